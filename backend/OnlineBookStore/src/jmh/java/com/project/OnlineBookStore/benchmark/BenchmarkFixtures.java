@@ -0,0 +1,119 @@
+package com.project.OnlineBookStore.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.model.Purchase;
+import com.project.OnlineBookStore.model.PurchaseStatus;
+import com.project.OnlineBookStore.model.Role;
+import com.project.OnlineBookStore.model.User;
+import com.project.OnlineBookStore.util.JwtUtil;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic in-memory test data shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    private static final String[] UNIVERSITIES = {
+            "University of Colombo", "University of Moratuwa", "University of Peradeniya", "University of Kelaniya"
+    };
+    private static final String[] FACULTIES = {"Science", "Engineering", "Medicine", "Management", "Arts"};
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        setField(jwtUtil, "secret", "myVerySecretKeyForJWTTokenGeneration123456789012345678901234567890");
+        setField(jwtUtil, "expiration", 86_400_000L);
+        return jwtUtil;
+    }
+
+    // Same configuration Spring Boot applies to the MVC ObjectMapper (ISO dates, JavaTimeModule)
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setFullName("Student " + id);
+        user.setEmail("student" + id + "@example.com");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+        user.setRole(Role.ROLE_USER);
+        return user;
+    }
+
+    static Material material(long id) {
+        Material material = new Material();
+        material.setId(id);
+        material.setTitle("Lecture notes volume " + id);
+        material.setUniversity(UNIVERSITIES[(int) (id % UNIVERSITIES.length)]);
+        material.setFaculty(FACULTIES[(int) (id % FACULTIES.length)]);
+        material.setStudentYear((int) (id % 4) + 1);
+        material.setCourseModule("CS" + (1000 + id % 400));
+        material.setFilename("0f8fad5b-d9cb-469f-a165-70867728950e-notes-" + id + ".pdf");
+        material.setPrice(500.0 + id % 20 * 50);
+        material.setUploadedAt(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(id * 3600));
+        return material;
+    }
+
+    static List<Material> materials(int count) {
+        List<Material> materials = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            materials.add(material(i));
+        }
+        return materials;
+    }
+
+    static List<Purchase> purchases(int count) {
+        User user = user(1);
+        List<Purchase> purchases = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            Purchase purchase = new Purchase();
+            purchase.setId(i);
+            purchase.setUser(user);
+            purchase.setMaterial(material(i));
+            purchase.setPurchasePrice(purchase.getMaterial().getPrice());
+            purchase.setPurchaseDate(LocalDateTime.of(2025, 3, 1, 12, 0).plusMinutes(i));
+            purchase.setStatus(PurchaseStatus.DONE);
+            purchase.setStripePaymentIntentId("pi_3Nb" + i);
+            purchase.setStripeClientSecret("pi_3Nb" + i + "_secret_abc");
+            purchases.add(purchase);
+        }
+        return purchases;
+    }
+
+    // Minimal repository stand-in: only the methods a benchmark needs are answered
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, InvocationHandler answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + " stub";
+                };
+            }
+            return answers.invoke(proxy, method, args);
+        });
+    }
+
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+}
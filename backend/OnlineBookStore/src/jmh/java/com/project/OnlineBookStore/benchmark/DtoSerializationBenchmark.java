@@ -0,0 +1,65 @@
+package com.project.OnlineBookStore.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.MaterialDTO;
+import com.project.OnlineBookStore.dto.PurchaseDTO;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.model.Purchase;
+import com.project.OnlineBookStore.service.DTOConversionService;
+import com.project.OnlineBookStore.service.MaterialCounters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO conversion and JSON serialization of catalog and purchase-history responses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private final DTOConversionService conversionService = new DTOConversionService(new MaterialCounters());
+    private ObjectMapper objectMapper;
+    private List<Material> materials;
+    private List<Purchase> purchases;
+    private List<MaterialDTO> materialDTOs;
+    private List<PurchaseDTO> purchaseDTOs;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        materials = BenchmarkFixtures.materials(size);
+        purchases = BenchmarkFixtures.purchases(size);
+        materialDTOs = materials.stream().map(m -> conversionService.convertToMaterialDTO(m, m.getId() % 3 == 0)).toList();
+        purchaseDTOs = purchases.stream().map(conversionService::convertToPurchaseDTO).toList();
+    }
+
+    @Benchmark
+    public List<PurchaseDTO> convertPurchases() {
+        return purchases.stream().map(conversionService::convertToPurchaseDTO).toList();
+    }
+
+    @Benchmark
+    public List<MaterialDTO> convertMaterials() {
+        return materials.stream().map(m -> conversionService.convertToMaterialDTO(m, false)).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeMaterials() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(materialDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializePurchases() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(purchaseDTOs);
+    }
+}
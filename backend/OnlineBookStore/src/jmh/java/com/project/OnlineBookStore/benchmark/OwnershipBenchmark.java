@@ -0,0 +1,80 @@
+package com.project.OnlineBookStore.benchmark;
+
+import com.project.OnlineBookStore.dto.MaterialDTO;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.model.User;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import com.project.OnlineBookStore.repository.PurchaseRepository;
+import com.project.OnlineBookStore.repository.UserRepository;
+import com.project.OnlineBookStore.service.CatalogVersionService;
+import com.project.OnlineBookStore.service.DTOConversionService;
+import com.project.OnlineBookStore.service.MaterialCounters;
+import com.project.OnlineBookStore.service.MetricsService;
+import com.project.OnlineBookStore.service.PurchaseService;
+import com.project.OnlineBookStore.service.StripeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ownership resolution for a catalog listing, as done by MaterialController.browseMaterials.
+ * Repositories are in-memory stubs, so this measures the Java-side cost per listing;
+ * the number of SQL round trips it implies is reported by the Server-Timing header.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OwnershipBenchmark {
+
+    @Param({"100", "1000"})
+    public int catalogSize;
+
+    private final DTOConversionService conversionService = new DTOConversionService(new MaterialCounters());
+    private PurchaseService purchaseService;
+    private List<Material> catalog;
+
+    @Setup
+    public void setUp() {
+        User user = BenchmarkFixtures.user(1);
+        UserRepository userRepository = BenchmarkFixtures.stub(UserRepository.class, (proxy, method, args) -> {
+            if (method.getName().equals("findById")) {
+                return Optional.of(user);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        // user owns every tenth material
+        PurchaseRepository purchaseRepository = BenchmarkFixtures.stub(PurchaseRepository.class, (proxy, method, args) -> {
+            if (method.getName().equals("existsByUserAndMaterialIdAndStatus")) {
+                return (Long) args[1] % 10 == 0;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        MaterialRepository materialRepository = BenchmarkFixtures.stub(MaterialRepository.class, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+        PlatformTransactionManager transactionManager = BenchmarkFixtures.stub(PlatformTransactionManager.class,
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+        purchaseService = new PurchaseService(purchaseRepository, materialRepository, userRepository,
+                new StripeService(metricsService), metricsService, new CatalogVersionService(), event -> { },
+                transactionManager, 3);
+        catalog = BenchmarkFixtures.materials(catalogSize);
+    }
+
+    @Benchmark
+    public List<MaterialDTO> browseWithOwnership() {
+        return catalog.stream()
+                .map(material -> conversionService.convertToMaterialDTO(material,
+                        purchaseService.hasUserPurchased(1L, material.getId())))
+                .toList();
+    }
+}
@@ -1,5 +1,6 @@
 package com.project.OnlineBookStore.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -7,8 +8,15 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class AppConfig {
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+
+    // BCrypt on a bounded pool; hashes below bcrypt-strength are re-hashed on the next successful login
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(@Value("${app.passwords.bcrypt-strength:10}") int strength,
+                                                  @Value("${app.passwords.threads:0}") int threads,
+                                                  @Value("${app.passwords.queue-capacity:32}") int queueCapacity,
+                                                  @Value("${app.passwords.timeout-ms:3000}") long timeoutMillis) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(bcrypt, poolSize, queueCapacity, timeoutMillis);
     }
 }
@@ -0,0 +1,168 @@
+package com.project.OnlineBookStore.config;
+
+import com.project.OnlineBookStore.service.MetricsService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Sheds load with an adaptive concurrency limit (GradientLimiter) per route
+ * class. A request over its class's limit gets an immediate 503 with
+ * Retry-After instead of waiting for a worker thread, so latency of the
+ * admitted requests stays bounded. Runs in the security chain ahead of
+ * JwtAuthenticationFilter, before the token's user is looked up.
+ * Sign-in (LoginThrottle), health checks and the event stream are not limited,
+ * nor are bulk transfers: their duration is the client's bandwidth, not server
+ * latency, and would drag the limit down on an idle server. Downloads are
+ * capped by DownloadLane instead; admin uploads and imports by their size limits.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String CATALOG = "catalog";
+    static final String CHECKOUT = "checkout";
+    static final String ADMIN = "admin";
+
+    private static final Pattern DOWNLOAD_PATH = Pattern.compile("/api/materials/[^/]+/download");
+    private static final Pattern UPLOAD_PATH = Pattern.compile("/api/admin/uploads(/.*)?");
+    private static final Pattern PURCHASED_PATH = Pattern.compile("/api/materials/[^/]+/purchased");
+    private static final byte[] BUSY = "{\"error\":\"Server is busy, please retry shortly\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ConcurrencyLimitProperties properties;
+    private final MetricsService metricsService;
+    private final Map<String, GradientLimiter> limiters = new HashMap<>();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MetricsService metricsService) {
+        this.properties = properties;
+        this.metricsService = metricsService;
+        properties.getRoutes().forEach((routeClass, route) -> {
+            GradientLimiter limiter = new GradientLimiter(route.getInitialLimit(), route.getMinLimit(),
+                    route.getMaxLimit(), properties.getTolerance(), properties.getSmoothing());
+            limiters.put(routeClass, limiter);
+            metricsService.registerConcurrencyLimit(routeClass, limiter, GradientLimiter::getLimit,
+                    GradientLimiter::getInFlight);
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String routeClass = routeClass(request.getRequestURI().substring(request.getContextPath().length()));
+        GradientLimiter limiter = routeClass != null ? limiters.get(routeClass) : null;
+        if (limiter == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        int inFlight = limiter.tryAcquire();
+        if (inFlight == 0) {
+            metricsService.recordConcurrencyLimitRejection(routeClass);
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // streamed and deferred responses hold their slot until the async request completes
+                request.getAsyncContext().addListener(new Release(limiter, inFlight, start));
+            } else {
+                limiter.release(inFlight, completed ? System.nanoTime() - start : -1);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(BUSY.length);
+        response.getOutputStream().write(BUSY);
+    }
+
+    // The route class whose limit applies to the path, or null for unlimited paths
+    static String routeClass(String path) {
+        if (path.startsWith("/api/files/") || path.equals("/api/user/materials/bundle")
+                || DOWNLOAD_PATH.matcher(path).matches()
+                || UPLOAD_PATH.matcher(path).matches() || path.equals("/api/admin/materials/import")) {
+            return null; // bulk transfers, see the class comment
+        }
+        if (path.startsWith("/api/admin/") || (path.startsWith("/actuator/") && !path.equals("/actuator/health"))) {
+            return ADMIN;
+        }
+        if (path.startsWith("/api/payment/") || path.equals("/api/purchases")
+                || PURCHASED_PATH.matcher(path).matches()) {
+            return CHECKOUT;
+        }
+        if (path.equals("/api/user/events")) {
+            return null; // a long-lived stream, not a request with a latency
+        }
+        if (path.equals("/api/materials") || path.startsWith("/api/materials/") || path.startsWith("/api/user/")) {
+            return CATALOG;
+        }
+        return null;
+    }
+
+    private static class Release implements AsyncListener {
+        private final GradientLimiter limiter;
+        private final int inFlight;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Release(GradientLimiter limiter, int inFlight, long start) {
+            this.limiter = limiter;
+            this.inFlight = inFlight;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(-1);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(-1);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release(long rttNanos) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(inFlight, rttNanos);
+            }
+        }
+    }
+}
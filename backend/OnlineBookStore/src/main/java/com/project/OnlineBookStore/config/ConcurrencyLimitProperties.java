@@ -0,0 +1,46 @@
+package com.project.OnlineBookStore.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adaptive concurrency limits per route class (catalog, checkout, admin),
+ * e.g. app.concurrency-limit.routes.checkout.max-limit=100
+ */
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+@Getter
+@Setter
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    // Retry-After of rejected requests
+    private int retryAfterSeconds = 1;
+
+    // latency increase (short / long average) tolerated before the limit shrinks
+    private double tolerance = 1.5;
+
+    // weight of each new limit estimate
+    private double smoothing = 0.2;
+
+    private Map<String, Route> routes = new LinkedHashMap<>(Map.of(
+            ConcurrencyLimitFilter.CATALOG, new Route(50, 10, 400),
+            ConcurrencyLimitFilter.CHECKOUT, new Route(20, 4, 100),
+            ConcurrencyLimitFilter.ADMIN, new Route(10, 2, 50)));
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    public static class Route {
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 100;
+    }
+}
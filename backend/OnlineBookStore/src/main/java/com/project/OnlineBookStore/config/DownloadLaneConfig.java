@@ -0,0 +1,24 @@
+package com.project.OnlineBookStore.config;
+
+import com.project.OnlineBookStore.service.DownloadLane;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class DownloadLaneConfig implements WebMvcConfigurer {
+
+    private final DownloadLane downloadLane;
+
+    public DownloadLaneConfig(DownloadLane downloadLane) {
+        this.downloadLane = downloadLane;
+    }
+
+    // Releases download lane tickets of transfers that failed before their body was streamed; the
+    // lane's executor and timeout are set per request by DownloadLane.admit, not application-wide
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(downloadLane.releaseOnCompletion())
+                .addPathPatterns("/api/materials/*/download", "/api/user/materials/bundle", "/api/files/*");
+    }
+}
@@ -1,5 +1,10 @@
 package com.project.OnlineBookStore.config;
 
+import com.project.OnlineBookStore.service.ChunkedUploadService;
+import com.project.OnlineBookStore.service.DownloadLane;
+import com.project.OnlineBookStore.service.DownloadService;
+import com.project.OnlineBookStore.service.LoginThrottle;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -16,6 +21,44 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
     }
 
+    @ExceptionHandler(LoginThrottle.Throttled.class)
+    public ResponseEntity<Map<String, String>> handleThrottled(LoginThrottle.Throttled e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(BoundedPasswordEncoder.Saturated.class)
+    public ResponseEntity<Map<String, String>> handleSaturated(BoundedPasswordEncoder.Saturated e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(DownloadLane.Full.class)
+    public ResponseEntity<Map<String, String>> handleDownloadLaneFull(DownloadLane.Full e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(DownloadLane.TooManyDownloads.class)
+    public ResponseEntity<Map<String, String>> handleTooManyDownloads(DownloadLane.TooManyDownloads e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(DownloadService.EmptyBundle.class)
+    public ResponseEntity<Map<String, String>> handleEmptyBundle(DownloadService.EmptyBundle e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(ChunkedUploadService.UploadNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleUploadNotFound(ChunkedUploadService.UploadNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<Map<String, String>> handleAccessDeniedException(AccessDeniedException e) {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Access denied"));
@@ -0,0 +1,90 @@
+package com.project.OnlineBookStore.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit for one route class. Every completed request
+ * feeds its latency into a short and a long moving average; while the short
+ * one stays within tolerance of the long one the limit grows by about its
+ * square root, and when latency rises the limit shrinks in proportion
+ * (gradient = tolerance * long / short, at most halving per sample). The limit
+ * only grows while at least half of it is in use, so an idle route does not
+ * drift up to the maximum.
+ */
+final class GradientLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    GradientLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admits a request if fewer than the limit are in flight
+     * @return the number in flight including this one, or 0 if rejected
+     */
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Ends a request admitted by tryAcquire
+     * @param inFlightAtStart what tryAcquire returned
+     * @param rttNanos the request's latency, or a negative value if it failed and should not be sampled
+     */
+    void release(int inFlightAtStart, long rttNanos) {
+        inFlight.decrementAndGet();
+        if (rttNanos >= 0) {
+            sample(inFlightAtStart, rttNanos);
+        }
+    }
+
+    private synchronized void sample(int inFlightAtStart, long rttNanos) {
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        }
+        shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+        longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95; // latency dropped well below the baseline, e.g. after a slow spell
+        }
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
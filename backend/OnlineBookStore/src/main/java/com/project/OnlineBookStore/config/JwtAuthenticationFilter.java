@@ -1,7 +1,9 @@
 package com.project.OnlineBookStore.config;
 
 import com.project.OnlineBookStore.service.CustomUserDetailsService;
+import com.project.OnlineBookStore.service.MetricsService;
 import com.project.OnlineBookStore.util.JwtUtil;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,10 +22,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final MetricsService metricsService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+                                   MetricsService metricsService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.metricsService = metricsService;
+    }
+
+    // Signed download URLs carry their own authorization; skipping them saves the user lookup
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/api/files/");
     }
 
     @Override
@@ -37,9 +48,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
+            Timer.Sample sample = metricsService.startTimer();
             try {
                 username = jwtUtil.extractUsername(jwt);
+                metricsService.recordJwtVerification(sample, "parse", "success");
             } catch (Exception e) {
+                metricsService.recordJwtVerification(sample, "parse", "failure");
                 logger.error("JWT Token extraction failed", e);
             }
         }
@@ -47,7 +61,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            Timer.Sample sample = metricsService.startTimer();
+            boolean valid = jwtUtil.validateToken(jwt, userDetails);
+            metricsService.recordJwtVerification(sample, "validate", valid ? "success" : "failure");
+            if (valid) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
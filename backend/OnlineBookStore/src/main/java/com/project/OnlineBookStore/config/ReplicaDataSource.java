@@ -0,0 +1,69 @@
+package com.project.OnlineBookStore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out connections to read replicas in round-robin order. A replica that
+ * fails to produce a connection is skipped for a cool-down period; when no
+ * replica is available the primary serves the read.
+ */
+public class ReplicaDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private final List<DataSource> replicas;
+    private final DataSource primary;
+    private final long retryAfterMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray unavailableUntil;
+
+    public ReplicaDataSource(List<? extends DataSource> replicas, DataSource primary, long retryAfterMillis) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.retryAfterMillis = retryAfterMillis;
+        this.unavailableUntil = new AtomicLongArray(this.replicas.size());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    // Explicit credentials are passed to whichever replica (or the primary) serves the read
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(Connector connector) throws SQLException {
+        int size = replicas.size();
+        long now = System.currentTimeMillis();
+        for (int attempt = 0; attempt < size; attempt++) {
+            int index = Math.floorMod(next.getAndIncrement(), size);
+            if (unavailableUntil.get(index) > now) {
+                continue;
+            }
+            try {
+                return connector.connect(replicas.get(index));
+            } catch (SQLException e) {
+                unavailableUntil.set(index, now + retryAfterMillis);
+                log.warn("Read replica {} unavailable, retrying in {} ms: {}", index, retryAfterMillis, e.getMessage());
+            }
+        }
+        return connector.connect(primary);
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
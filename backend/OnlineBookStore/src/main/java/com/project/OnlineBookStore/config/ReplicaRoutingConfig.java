@@ -0,0 +1,84 @@
+package com.project.OnlineBookStore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to read replicas and everything else to the primary.
+ * Enabled with app.datasource.replicas.enabled=true.
+ *
+ * Connections are fetched lazily, at the first statement, by which point the
+ * transaction manager has flagged the connection read-only; the
+ * LazyConnectionDataSourceProxy then takes it from the replica pool instead of
+ * the primary. Replicas may lag behind the primary, so reads that must see a
+ * write from the same request belong in a read-write transaction.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+                                 @Value("${app.datasource.replicas.urls}") List<String> replicaUrls,
+                                 @Value("${app.datasource.replicas.username:${spring.datasource.username}}") String username,
+                                 @Value("${app.datasource.replicas.password:${spring.datasource.password}}") String password,
+                                 @Value("${app.datasource.replicas.connection-timeout-ms:2000}") long connectionTimeout,
+                                 @Value("${app.datasource.replicas.retry-after-ms:5000}") long retryAfter) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setMetricRegistry(meterRegistry);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName(primary.getPoolName() + "-replica-" + i);
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(connectionTimeout);
+            // a replica that is down at startup must not stop the application
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.add(replica);
+        }
+
+        RoutingDataSource routing = new RoutingDataSource(primary, replicas);
+        routing.setReadOnlyDataSource(new ReplicaDataSource(List.copyOf(replicas), primary, retryAfter));
+        return routing;
+    }
+
+    // Closes the underlying pools on shutdown (Spring infers close() as destroy method)
+    static class RoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final List<HikariDataSource> pools = new ArrayList<>();
+
+        RoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas) {
+            super(primary);
+            pools.add(primary);
+            pools.addAll(replicas);
+        }
+
+        @Override
+        public void close() {
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.project.OnlineBookStore.config;
+
+import com.project.OnlineBookStore.service.MetricsService;
+import com.project.OnlineBookStore.util.QueryStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Tracks SQL statements and DB time per request, reports them in a Server-Timing
+ * header and logs requests that exceed their endpoint's query budget.
+ * Runs ahead of Spring Security so the JWT user lookup is counted too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final SqlBudgetProperties properties;
+    private final MetricsService metricsService;
+
+    public SqlBudgetFilter(SqlBudgetProperties properties, MetricsService metricsService) {
+        this.properties = properties;
+        this.metricsService = metricsService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        QueryStats stats = QueryStats.begin();
+        ServerTimingResponse wrapped = new ServerTimingResponse(response, stats);
+        try {
+            chain.doFilter(request, wrapped);
+        } finally {
+            wrapped.addServerTiming();
+            QueryStats.end();
+            checkBudget(request, stats);
+        }
+    }
+
+    private void checkBudget(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern != null ? pattern.toString() : null;
+        metricsService.recordRequestQueries(endpoint != null ? endpoint : "UNMAPPED", stats.getQueryCount());
+
+        int budget = properties.budgetFor(endpoint);
+        if (stats.getQueryCount() > budget) {
+            logger.warn(String.format(Locale.ROOT,
+                    "SQL budget exceeded: %s %s ran %d queries (budget %d, %.1f ms in DB)",
+                    request.getMethod(), endpoint != null ? endpoint : request.getRequestURI(),
+                    stats.getQueryCount(), budget, stats.getDbMillis()));
+        }
+    }
+
+    static String formatServerTiming(QueryStats stats) {
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries\", app;dur=%.1f",
+                stats.getDbMillis(), stats.getQueryCount(), stats.getElapsedMillis());
+    }
+
+    // Headers must be set before the response commits, so the header is added
+    // right before the body is first written (or at the end for empty bodies)
+    private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final QueryStats stats;
+        private boolean added;
+
+        ServerTimingResponse(HttpServletResponse response, QueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void addServerTiming() {
+            if (!added && !isCommitted()) {
+                added = true;
+                addHeader(SERVER_TIMING, formatServerTiming(stats));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
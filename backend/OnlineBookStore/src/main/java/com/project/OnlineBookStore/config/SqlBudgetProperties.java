@@ -0,0 +1,32 @@
+package com.project.OnlineBookStore.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint SQL statement budgets, keyed by the MVC handler pattern,
+ * e.g. app.sql-budget.endpoints.[/api/user/materials]=5
+ */
+@ConfigurationProperties(prefix = "app.sql-budget")
+@Getter
+@Setter
+public class SqlBudgetProperties {
+
+    private boolean enabled = true;
+
+    // budget applied to endpoints without an explicit entry
+    private int defaultBudget = 20;
+
+    private Map<String, Integer> endpoints = new HashMap<>();
+
+    public int budgetFor(String pattern) {
+        if (pattern == null) {
+            return defaultBudget;
+        }
+        return endpoints.getOrDefault(pattern, defaultBudget);
+    }
+}
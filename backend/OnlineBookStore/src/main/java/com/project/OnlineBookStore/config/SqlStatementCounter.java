@@ -0,0 +1,19 @@
+package com.project.OnlineBookStore.config;
+
+import com.project.OnlineBookStore.util.QueryStats;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL statement Hibernate prepares against the current request.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.recordStatement();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,41 @@
+package com.project.OnlineBookStore.config;
+
+import com.project.OnlineBookStore.util.QueryStats;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds JDBC execution time of the current session to the request's QueryStats.
+ * Instantiated by Hibernate for every session (hibernate.session.events.auto).
+ */
+public class SqlTimingListener implements SessionEventListener {
+
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(batchStart);
+    }
+
+    private void record(long start) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null && start != 0) {
+            stats.recordDbTime(System.nanoTime() - start);
+        }
+    }
+}
@@ -12,8 +12,15 @@ public class StripeConfig {
     @Value("${stripe.secret.key}")
     private String stripeSecretKey;
 
+    // Optional override, e.g. a local Stripe stub for load testing
+    @Value("${stripe.api-base:}")
+    private String stripeApiBase;
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = stripeSecretKey;
+        if (!stripeApiBase.isBlank()) {
+            Stripe.overrideApiBase(stripeApiBase);
+        }
     }
 }
\ No newline at end of file
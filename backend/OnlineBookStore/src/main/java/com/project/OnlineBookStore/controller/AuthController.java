@@ -5,6 +5,7 @@ import com.project.OnlineBookStore.dto.RegisterRequest;
 import com.project.OnlineBookStore.model.Role;
 import com.project.OnlineBookStore.model.User;
 import com.project.OnlineBookStore.repository.UserRepository;
+import com.project.OnlineBookStore.service.LoginThrottle;
 import com.project.OnlineBookStore.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
@@ -28,19 +29,24 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final LoginThrottle loginThrottle;
 
     public AuthController(UserRepository userRepository,
                           PasswordEncoder passwordEncoder,
                           AuthenticationManager authenticationManager,
-                          JwtUtil jwtUtil) {
+                          JwtUtil jwtUtil,
+                          LoginThrottle loginThrottle) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.loginThrottle = loginThrottle;
     }
 
+    // Throttled per client address before the password is hashed
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest req) {
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest req, HttpServletRequest request) {
+        loginThrottle.acquire(request, null);
         if (userRepository.existsByEmail(req.getEmail())) {
             return ResponseEntity.badRequest().body(Map.of("error", "Email already in use"));
         }
@@ -53,12 +59,15 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "User created"));
     }
 
+    // Throttled per client address and per account; a successful login refunds the account attempt
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest req) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest req, HttpServletRequest request) {
+        loginThrottle.acquire(request, req.getEmail());
         try {
             UsernamePasswordAuthenticationToken authToken =
                     new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword());
             Authentication auth = authenticationManager.authenticate(authToken);
+            loginThrottle.loginSucceeded(req.getEmail());
 
             // Get user info
             User u = userRepository.findByEmail(req.getEmail()).orElseThrow();
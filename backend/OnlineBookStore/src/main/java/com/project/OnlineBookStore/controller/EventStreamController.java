@@ -0,0 +1,37 @@
+package com.project.OnlineBookStore.controller;
+
+import com.project.OnlineBookStore.service.EventStreamService;
+import com.project.OnlineBookStore.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+public class EventStreamController {
+
+    private final EventStreamService eventStreamService;
+    private final JwtUtil jwtUtil;
+
+    public EventStreamController(EventStreamService eventStreamService, JwtUtil jwtUtil) {
+        this.eventStreamService = eventStreamService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    // Live catalog and purchase updates (text/event-stream) for users and admins.
+    // Browsers' EventSource cannot send the Authorization header, so clients read the
+    // stream with fetch(); after a reconnect they refetch their lists (cheap with ETags).
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(value = "/api/user/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(HttpServletRequest request) {
+        String authorizationHeader = request.getHeader("Authorization");
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            throw new RuntimeException("No valid JWT token found in request");
+        }
+        String token = authorizationHeader.substring(7);
+        boolean admin = "ROLE_ADMIN".equals(jwtUtil.extractRole(token));
+        return eventStreamService.subscribe(jwtUtil.extractUserId(token), admin);
+    }
+}
@@ -1,37 +1,101 @@
 package com.project.OnlineBookStore.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.ContentSearchHitDTO;
 import com.project.OnlineBookStore.dto.MaterialDTO;
+import com.project.OnlineBookStore.dto.MaterialImportResultDTO;
+import com.project.OnlineBookStore.dto.MaterialPopularityDTO;
 import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.service.CatalogSnapshot;
+import com.project.OnlineBookStore.service.CatalogSnapshotService;
+import com.project.OnlineBookStore.service.CatalogVersionService;
+import com.project.OnlineBookStore.service.ContentSearchService;
 import com.project.OnlineBookStore.service.DTOConversionService;
+import com.project.OnlineBookStore.service.DownloadService;
+import com.project.OnlineBookStore.service.FacetIndex;
+import com.project.OnlineBookStore.service.FacetService;
+import com.project.OnlineBookStore.service.MaterialCounterService;
+import com.project.OnlineBookStore.service.MaterialCounters;
+import com.project.OnlineBookStore.service.MaterialImportService;
 import com.project.OnlineBookStore.service.MaterialService;
+import com.project.OnlineBookStore.service.MetricsService;
 import com.project.OnlineBookStore.service.PurchaseService;
+import com.project.OnlineBookStore.service.RecommendationService;
+import com.project.OnlineBookStore.service.SuggestionService;
+import com.project.OnlineBookStore.service.SuggestionTrie;
+import com.project.OnlineBookStore.service.TrendingService;
+import com.project.OnlineBookStore.util.DownloadUrlSigner;
 import com.project.OnlineBookStore.util.JwtUtil;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.core.io.PathResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.*;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RestController
 public class MaterialController {
 
+    // Browsers keep listings but revalidate them with If-None-Match on every use
+    private static final CacheControl LISTING_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final MaterialService materialService;
     private final PurchaseService purchaseService;
     private final JwtUtil jwtUtil;
     private final DTOConversionService dtoConversionService;
+    private final MetricsService metricsService;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final DownloadUrlSigner downloadUrlSigner;
+    private final DownloadService downloadService;
+    private final MaterialCounters materialCounters;
+    private final MaterialCounterService materialCounterService;
+    private final RecommendationService recommendationService;
+    private final TrendingService trendingService;
+    private final FacetService facetService;
+    private final SuggestionService suggestionService;
+    private final ContentSearchService contentSearchService;
+    private final MaterialImportService materialImportService;
 
     public MaterialController(MaterialService materialService, PurchaseService purchaseService, 
-                             JwtUtil jwtUtil, DTOConversionService dtoConversionService) {
+                             JwtUtil jwtUtil, DTOConversionService dtoConversionService,
+                             MetricsService metricsService, CatalogVersionService catalogVersionService,
+                             CatalogSnapshotService catalogSnapshotService, DownloadUrlSigner downloadUrlSigner,
+                             DownloadService downloadService, MaterialCounters materialCounters,
+                             MaterialCounterService materialCounterService,
+                             RecommendationService recommendationService, TrendingService trendingService,
+                             FacetService facetService, SuggestionService suggestionService,
+                             ContentSearchService contentSearchService, MaterialImportService materialImportService) {
         this.materialService = materialService;
         this.purchaseService = purchaseService;
         this.jwtUtil = jwtUtil;
         this.dtoConversionService = dtoConversionService;
+        this.metricsService = metricsService;
+        this.catalogVersionService = catalogVersionService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.downloadUrlSigner = downloadUrlSigner;
+        this.downloadService = downloadService;
+        this.materialCounters = materialCounters;
+        this.materialCounterService = materialCounterService;
+        this.recommendationService = recommendationService;
+        this.trendingService = trendingService;
+        this.facetService = facetService;
+        this.suggestionService = suggestionService;
+        this.contentSearchService = contentSearchService;
+        this.materialImportService = materialImportService;
     }
 
     // Create — admin only
@@ -49,6 +113,16 @@ public class MaterialController {
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    // Bulk import from a ZIP of PDFs and a CSV/JSON manifest — admin only
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/api/admin/materials/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<MaterialImportResultDTO> importMaterials(
+            @RequestPart("archive") MultipartFile archive,
+            @RequestPart(value = "manifest", required = false) MultipartFile manifest
+    ) {
+        return ResponseEntity.ok(materialImportService.importArchive(archive, manifest));
+    }
+
     // Update — admin only
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping(value = "/api/admin/materials/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -76,8 +150,15 @@ public class MaterialController {
     // List materials — accessible to both users and admins
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @GetMapping("/api/materials")
-    public List<Material> listAll() {
-        return materialService.listAll();
+    public ResponseEntity<List<Material>> listAll(WebRequest webRequest) {
+        String etag = catalogVersionService.catalogETag(null);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(LISTING_CACHE_CONTROL)
+                .body(materialService.listAll());
     }
 
     // Get single material — accessible to both users and admins
@@ -91,17 +172,31 @@ public class MaterialController {
 
     // Browse materials with purchase status for users
     @PreAuthorize("hasRole('USER')")
-    @GetMapping("/api/user/materials")
-    public List<MaterialDTO> browseMaterials(HttpServletRequest request) {
-        List<Material> materials = materialService.listAll();
+    // (served from the pre-serialized catalog snapshot; only the user's owned ids are queried)
+    @GetMapping(value = "/api/user/materials", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> browseMaterials(HttpServletRequest request, WebRequest webRequest) {
         Long userId = extractUserIdFromRequest(request);
-        
-        return materials.stream()
-                .map(material -> {
-                    boolean purchased = purchaseService.hasUserPurchased(userId, material.getId());
-                    return dtoConversionService.convertToMaterialDTO(material, purchased);
-                })
-                .toList();
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        String etag = catalogVersionService.catalogETag(userId, snapshot.getVersion());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        Timer.Sample sample = metricsService.startTimer();
+        BitSet owned = snapshot.ownership(purchaseService.getOwnedMaterialIds(userId));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(LISTING_CACHE_CONTROL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body;
+        if (owned.isEmpty() && acceptsGzip(request)) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = snapshot.getGzippedJson();
+        } else {
+            body = snapshot.render(owned);
+        }
+        metricsService.recordCatalogBrowse(sample, "all", snapshot.size());
+        return response.body(body);
     }
 
     // Get single material with purchase status for users
@@ -112,63 +207,232 @@ public class MaterialController {
                 .map(material -> {
                     Long userId = extractUserIdFromRequest(request);
                     boolean purchased = purchaseService.hasUserPurchased(userId, material.getId());
-                    return ResponseEntity.ok(dtoConversionService.convertToMaterialDTO(material, purchased));
+                    materialCounters.recordView(material.getId());
+                    trendingService.recordView(material.getId());
+                    return ResponseEntity.ok(dtoConversionService.convertToMaterialDetailDTO(material, purchased));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Trending (decayed recent purchases and views) or best-selling materials, optionally
+    // of one university and/or faculty (ranked in memory; besides the JWT user lookup only the owned ids are queried)
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping(value = "/api/user/materials/top", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> topMaterials(@RequestParam(defaultValue = "trending") String sort,
+                                               @RequestParam(required = false) String university,
+                                               @RequestParam(required = false) String faculty,
+                                               @RequestParam(defaultValue = "20") int limit,
+                                               HttpServletRequest request) {
+        Long userId = extractUserIdFromRequest(request);
+        byte[] body = trendingService.listing(TrendingService.parseSort(sort), university, faculty,
+                Math.max(1, Math.min(limit, 100)), userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // Students who bought this also bought — materials the user does not own yet, strongest first
+    // (co-purchase counts are kept in memory; besides the JWT user lookup only the owned ids are queried)
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping(value = "/api/user/materials/{id}/related", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> relatedMaterials(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit,
+                                                   HttpServletRequest request) {
+        Long userId = extractUserIdFromRequest(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(recommendationService.relatedListing(id, userId, Math.max(1, limit)));
+    }
+
+    // Rebuild the co-purchase recommendations from the purchases table — admin only
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/api/admin/recommendations/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRecommendations() {
+        return ResponseEntity.ok(Map.of("materials", recommendationService.rebuild()));
+    }
+
+    // Facet counts for university, faculty, studentYear and courseModule under the selected filters
+    // (each parameter repeatable; values of one facet are alternatives, facets are combined;
+    // counted on in-memory bitsets, so besides the JWT user lookup there is no query)
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/api/user/materials/facets")
+    public ResponseEntity<FacetIndex.Result> facetCounts(@RequestParam MultiValueMap<String, String> params) {
+        return ResponseEntity.ok(facetService.counts(FacetService.selection(params)));
+    }
+
+    // Materials matching the selected facet filters (same parameters as /facets), with purchase status
+    // (besides the JWT user lookup only the owned ids are queried)
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping(value = "/api/user/materials/filter", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> filterMaterials(@RequestParam MultiValueMap<String, String> params,
+                                                  HttpServletRequest request) {
+        Long userId = extractUserIdFromRequest(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(facetService.listing(FacetService.selection(params), userId));
+    }
+
+    // Typeahead suggestions for titles, course modules, universities and faculties matching the typed
+    // prefix at any word, most common first; type= restricts them to one field (served from in-memory tries)
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/api/user/materials/suggest")
+    public ResponseEntity<List<SuggestionTrie.Suggestion>> suggest(@RequestParam String q,
+                                                                   @RequestParam(required = false) String type,
+                                                                   @RequestParam(defaultValue = "10") int limit) {
+        SuggestionService.Field field = type == null || type.isBlank() ? null : SuggestionService.Field.fromParameter(type);
+        return ResponseEntity.ok(suggestionService.suggest(q, field, limit));
+    }
+
+    // Search inside the PDFs: materials whose text contains every word of q, best match first,
+    // with a snippet (answered from the on-disk content index; besides the JWT user lookup there is no query)
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/api/user/materials/content-search")
+    public ResponseEntity<List<ContentSearchHitDTO>> searchContent(@RequestParam String q,
+                                                                   @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(contentSearchService.search(q, Math.max(1, Math.min(limit, 100))));
+    }
+
     // Search materials by university for users
     @PreAuthorize("hasRole('USER')")
     @GetMapping("/api/user/materials/search/university/{university}")
-    public List<MaterialDTO> searchByUniversity(@PathVariable String university, HttpServletRequest request) {
-        List<Material> materials = materialService.findByUniversity(university);
-        Long userId = extractUserIdFromRequest(request);
-        
-        return materials.stream()
-                .map(material -> {
-                    boolean purchased = purchaseService.hasUserPurchased(userId, material.getId());
-                    return dtoConversionService.convertToMaterialDTO(material, purchased);
-                })
-                .toList();
+    public ResponseEntity<List<MaterialDTO>> searchByUniversity(@PathVariable String university, HttpServletRequest request,
+                                                                WebRequest webRequest) {
+        return userListing("university", () -> materialService.findByUniversity(university), request, webRequest);
     }
 
     // Search materials by faculty for users
     @PreAuthorize("hasRole('USER')")
     @GetMapping("/api/user/materials/search/faculty/{faculty}")
-    public List<MaterialDTO> searchByFaculty(@PathVariable String faculty, HttpServletRequest request) {
-        List<Material> materials = materialService.findByFaculty(faculty);
-        Long userId = extractUserIdFromRequest(request);
-        
-        return materials.stream()
-                .map(material -> {
-                    boolean purchased = purchaseService.hasUserPurchased(userId, material.getId());
-                    return dtoConversionService.convertToMaterialDTO(material, purchased);
-                })
-                .toList();
+    public ResponseEntity<List<MaterialDTO>> searchByFaculty(@PathVariable String faculty, HttpServletRequest request,
+                                                             WebRequest webRequest) {
+        return userListing("faculty", () -> materialService.findByFaculty(faculty), request, webRequest);
     }
 
     // Download file — accessible to both users and admins
+    // (the bytes are written on the download lane, or with app.download.offload by the fronting
+    // web server, see DownloadService; this request thread returns once authorization is done)
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @GetMapping("/api/materials/{id}/download")
-    public ResponseEntity<Resource> download(@PathVariable Long id, HttpServletRequest request) {
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable Long id, HttpServletRequest request,
+                                                          @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) throws IOException {
+        Timer.Sample sample = metricsService.startTimer();
         Material m = materialService.findById(id).orElseThrow(() -> new RuntimeException("Material not found"));
         
         // Check if user has purchased this material (admins can download without purchase)
         if (!hasUserRole("ADMIN", request) && !hasUserPurchasedMaterial(id, request)) {
+            metricsService.recordDownload(sample, "forbidden", 0);
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
-        Path path = materialService.getFilePath(m.getFilename());
-        Resource resource = new PathResource(path);
-        if (!resource.exists()) {
-            return ResponseEntity.notFound().build();
+        Long userId = extractUserIdFromRequest(request);
+        return countDownload(id, range, downloadService.serve(m.getFilename(), null, range, userId, sample));
+    }
+
+    // Download owned materials as one streamed ZIP — all of them, or the given ids
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/api/user/materials/bundle")
+    public ResponseEntity<StreamingResponseBody> downloadBundle(@RequestParam(required = false) List<Long> ids,
+                                                                HttpServletRequest request) {
+        Timer.Sample sample = metricsService.startTimer();
+        Long userId = extractUserIdFromRequest(request);
+        List<Material> owned = purchaseService.getOwnedMaterials(userId);
+        List<Material> selected = owned;
+        if (ids != null && !ids.isEmpty()) {
+            Set<Long> requested = new LinkedHashSet<>(ids);
+            selected = owned.stream().filter(m -> requested.contains(m.getId())).toList();
+            if (selected.size() != requested.size()) {
+                metricsService.recordDownload(sample, "forbidden", 0);
+                throw new AccessDeniedException("Not all requested materials are purchased");
+            }
         }
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentDisposition(ContentDisposition.attachment().filename(m.getFilename()).build());
-        headers.setContentType(MediaType.APPLICATION_PDF);
+        // an empty selection is answered with 404 (DownloadService.EmptyBundle)
+        ResponseEntity<StreamingResponseBody> bundle = downloadService.bundle(selected, "materials.zip", userId, sample);
+        selected.forEach(material -> materialCounters.recordDownload(material.getId()));
+        return bundle;
+    }
+
+    // Mint a short-lived signed download URL — one ownership check, then the URL can be
+    // used (and resumed with Range requests) without a JWT or any database query
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @PostMapping("/api/materials/{id}/download-url")
+    public ResponseEntity<?> createDownloadUrl(@PathVariable Long id, HttpServletRequest request) {
+        Material m = materialService.findById(id).orElseThrow(() -> new RuntimeException("Material not found"));
+        if (!hasUserRole("ADMIN", request) && !hasUserPurchasedMaterial(id, request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Material not purchased"));
+        }
+        String url = downloadUrlSigner.sign(id, extractUserIdFromRequest(request), m.getFilename());
+        return ResponseEntity.ok(Map.of("url", url));
+    }
+
+    // Signed download — permitted without a JWT; the signature stands in for authentication
+    // and ownership. Single Range requests are answered by DownloadService (resumable downloads).
+    @GetMapping("/api/files/{materialId}")
+    public ResponseEntity<StreamingResponseBody> signedDownload(@PathVariable Long materialId,
+                                                                @RequestParam("u") Long userId,
+                                                                @RequestParam("f") String filename,
+                                                                @RequestParam("e") long expiresAt,
+                                                                @RequestParam("s") String signature,
+                                                                @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) throws IOException {
+        Timer.Sample sample = metricsService.startTimer();
+        if (!downloadUrlSigner.isValid(materialId, userId, filename, expiresAt, signature)) {
+            metricsService.recordDownload(sample, "invalid_signature", 0);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (downloadUrlSigner.isExpired(expiresAt)) {
+            metricsService.recordDownload(sample, "expired", 0);
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(downloadUrlSigner.secondsUntil(expiresAt))).cachePrivate();
+        return countDownload(materialId, range, downloadService.serve(filename, cacheControl, range, userId, sample));
+    }
+
+    // Download and view counts per material, most downloaded (or viewed with sort=views) first — admin only
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/reports/popularity")
+    public ResponseEntity<List<MaterialPopularityDTO>> popularityReport(@RequestParam(defaultValue = "downloads") String sort,
+                                                                        @RequestParam(defaultValue = "50") int limit) {
+        if (!sort.equals("downloads") && !sort.equals("views")) {
+            throw new IllegalArgumentException("sort must be downloads or views");
+        }
+        return ResponseEntity.ok(materialCounterService.report(sort.equals("views"), Math.max(1, Math.min(limit, 1000))));
+    }
+
+    // Helper method for the user catalog listings: the ETag (catalog version + the user's
+    // ownership version) is read before querying, so a matching If-None-Match is answered
+    // with 304 without touching the database
+    private ResponseEntity<List<MaterialDTO>> userListing(String view, Supplier<List<Material>> query,
+                                                         HttpServletRequest request, WebRequest webRequest) {
+        Long userId = extractUserIdFromRequest(request);
+        String etag = catalogVersionService.catalogETag(userId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        Timer.Sample sample = metricsService.startTimer();
+        List<MaterialDTO> result = query.get().stream()
+                .map(material -> {
+                    boolean purchased = purchaseService.hasUserPurchased(userId, material.getId());
+                    return dtoConversionService.convertToMaterialDTO(material, purchased);
+                })
+                .toList();
+        metricsService.recordCatalogBrowse(sample, view, result.size());
         return ResponseEntity.ok()
-                .headers(headers)
-                .body(resource);
+                .eTag(etag)
+                .cacheControl(LISTING_CACHE_CONTROL)
+                .body(result);
+    }
+
+    // Helper method counting a served download in memory (flushed in batches by MaterialCounterService);
+    // resumed transfers (Range not starting at byte 0) are the same download and are not counted again
+    private ResponseEntity<StreamingResponseBody> countDownload(Long materialId, String range,
+                                                                ResponseEntity<StreamingResponseBody> response) {
+        if (response.getStatusCode().is2xxSuccessful() && (range == null || range.trim().startsWith("bytes=0-"))) {
+            materialCounters.recordDownload(materialId);
+        }
+        return response;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
     }
 
     // Helper method to check if user has a specific role
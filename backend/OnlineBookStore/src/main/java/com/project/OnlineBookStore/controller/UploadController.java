@@ -0,0 +1,88 @@
+package com.project.OnlineBookStore.controller;
+
+import com.project.OnlineBookStore.dto.MaterialDetailsRequest;
+import com.project.OnlineBookStore.dto.UploadSessionRequest;
+import com.project.OnlineBookStore.dto.UploadStatusDTO;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/uploads")
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    public UploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    // Start a resumable upload of a large PDF — admin only
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<UploadStatusDTO> createUpload(@RequestBody UploadSessionRequest request) {
+        UploadStatusDTO status = chunkedUploadService.create(request.getFilename(), request.getSize());
+        return ResponseEntity.status(HttpStatus.CREATED).body(status);
+    }
+
+    // Send the bytes starting at offset (raw application/octet-stream body, not multipart).
+    // A chunk may repeat bytes already received; one past the received offset gets 409
+    // with the offset to resume from.
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> writeChunk(@PathVariable String uploadId, @RequestParam long offset,
+                                        HttpServletRequest request) throws IOException {
+        try (InputStream in = request.getInputStream()) {
+            return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, offset, in));
+        } catch (ChunkedUploadService.OffsetMismatchException e) {
+            return offsetMismatch(e);
+        }
+    }
+
+    // Received offset of an upload — where to resume after a dropped connection
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadStatusDTO> getUpload(@PathVariable String uploadId) {
+        return chunkedUploadService.find(uploadId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Attach the complete file to a new material (details body) or replace the file of materialId
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/{uploadId}/finalize")
+    public ResponseEntity<?> finalizeUpload(@PathVariable String uploadId,
+                                            @RequestParam(required = false) Long materialId,
+                                            @RequestBody(required = false) MaterialDetailsRequest details) throws IOException {
+        try {
+            Material saved = chunkedUploadService.finalizeUpload(uploadId, details, materialId);
+            return ResponseEntity.status(materialId == null ? HttpStatus.CREATED : HttpStatus.OK).body(saved);
+        } catch (ChunkedUploadService.OffsetMismatchException e) {
+            return offsetMismatch(e);
+        }
+    }
+
+    // Abandon an upload and delete the received bytes
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        return chunkedUploadService.abort(uploadId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    // Helper method for the 409 answer carrying the offset to resume from
+    private ResponseEntity<Map<String, Object>> offsetMismatch(ChunkedUploadService.OffsetMismatchException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage(), "offset", e.getExpectedOffset()));
+    }
+}
@@ -2,20 +2,30 @@ package com.project.OnlineBookStore.controller;
 
 import com.project.OnlineBookStore.model.User;
 import com.project.OnlineBookStore.repository.UserRepository;
+import com.project.OnlineBookStore.service.DashboardBootstrapService;
+import com.project.OnlineBookStore.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
 
     private final UserRepository repo;
+    private final DashboardBootstrapService dashboardBootstrapService;
+    private final JwtUtil jwtUtil;
 
-    public UserController(UserRepository repo) {
+    public UserController(UserRepository repo, DashboardBootstrapService dashboardBootstrapService, JwtUtil jwtUtil) {
         this.repo = repo;
+        this.dashboardBootstrapService = dashboardBootstrapService;
+        this.jwtUtil = jwtUtil;
     }
 
     @GetMapping("/profile")
@@ -28,4 +38,26 @@ public class UserController {
                 "role", u.getRole().name()
         ));
     }
-}
\ No newline at end of file
+
+    // Dashboard bootstrap: profile, library, catalog page, purchase history and payment config in one response
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/bootstrap")
+    public ResponseEntity<?> bootstrap(@RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "50") int size,
+                                       HttpServletRequest request) {
+        if (page < 0 || size < 1 || size > 500) {
+            return ResponseEntity.badRequest().body(Map.of("error", "page must be >= 0 and size between 1 and 500"));
+        }
+        String authorizationHeader = request.getHeader("Authorization");
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            throw new RuntimeException("No valid JWT token found in request");
+        }
+        Long userId = jwtUtil.extractUserId(authorizationHeader.substring(7));
+        try {
+            return ResponseEntity.ok(dashboardBootstrapService.bootstrap(userId, page, size));
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Dashboard data is taking too long, please retry"));
+        }
+    }
+}
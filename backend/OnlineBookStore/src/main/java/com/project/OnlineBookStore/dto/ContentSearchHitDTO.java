@@ -0,0 +1,17 @@
+package com.project.OnlineBookStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ContentSearchHitDTO {
+    private Long materialId;
+    private String title;
+    private Double score;
+    private String snippet;
+}
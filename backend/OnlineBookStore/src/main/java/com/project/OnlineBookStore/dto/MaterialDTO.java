@@ -1,5 +1,6 @@
 package com.project.OnlineBookStore.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,5 +21,11 @@ public class MaterialDTO {
     private String courseModule;
     private Double price;
     private Instant uploadedAt;
+    // Detail only (convertToMaterialDetailDTO): this instance's hits are live, other
+    // instances' are as of the last counter flush, see MaterialCounterService
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long downloads;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long views;
     private Boolean purchased; // Whether current user has purchased this material
 }
\ No newline at end of file
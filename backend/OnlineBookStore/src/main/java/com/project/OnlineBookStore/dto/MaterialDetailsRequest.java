@@ -0,0 +1,20 @@
+package com.project.OnlineBookStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Editable details of a material, e.g. when finalizing a chunked upload
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MaterialDetailsRequest {
+    private String title;
+    private String university;
+    private String faculty;
+    private Integer studentYear;
+    private String courseModule;
+    private Double price;
+}
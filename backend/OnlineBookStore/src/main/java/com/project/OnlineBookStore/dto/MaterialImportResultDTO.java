@@ -0,0 +1,19 @@
+package com.project.OnlineBookStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MaterialImportResultDTO {
+    private Integer total;
+    private Integer created;
+    private Integer failed;
+    private List<MaterialImportRowDTO> rows;
+}
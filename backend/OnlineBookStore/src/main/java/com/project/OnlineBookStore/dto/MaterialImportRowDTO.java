@@ -0,0 +1,20 @@
+package com.project.OnlineBookStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MaterialImportRowDTO {
+    // 1-based position in the manifest
+    private Integer row;
+    private String file;
+    // set when the material was created
+    private Long materialId;
+    // set when the row was rejected
+    private String error;
+}
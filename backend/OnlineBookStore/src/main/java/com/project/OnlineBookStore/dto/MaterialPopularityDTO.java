@@ -0,0 +1,18 @@
+package com.project.OnlineBookStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MaterialPopularityDTO {
+    private Long materialId;
+    private String title;
+    private String university;
+    private Long downloads;
+    private Long views;
+}
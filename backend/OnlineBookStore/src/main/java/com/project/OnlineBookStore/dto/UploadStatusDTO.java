@@ -0,0 +1,19 @@
+package com.project.OnlineBookStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class UploadStatusDTO {
+    private String uploadId;
+    private String filename;
+    private Long size;
+    private Long offset; // bytes received so far; the next chunk starts here
+    private Long maxChunkSize;
+    private Boolean complete;
+}
@@ -0,0 +1,14 @@
+package com.project.OnlineBookStore.event;
+
+import com.project.OnlineBookStore.model.Material;
+
+/**
+ * Published by MaterialService after a material was created, updated or deleted.
+ * material is the saved state, or null for DELETED.
+ */
+public record MaterialChangedEvent(Long materialId, ChangeType type, Material material) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,10 @@
+package com.project.OnlineBookStore.event;
+
+import com.project.OnlineBookStore.model.PurchaseStatus;
+
+/**
+ * Published by PurchaseService when a purchase is created or changes status.
+ * Listeners bound to the transaction only see committed transitions.
+ */
+public record PurchaseStatusChangedEvent(Long purchaseId, Long userId, Long materialId, PurchaseStatus status) {
+}
@@ -0,0 +1,222 @@
+package com.project.OnlineBookStore.init;
+
+import com.project.OnlineBookStore.service.FileStorageService;
+import com.project.OnlineBookStore.service.MaterialIdSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Generates a large synthetic dataset (profile "seed") for scaling tests:
+ * users, materials with placeholder PDFs and DONE purchases, written with
+ * batched JDBC inserts. The BCrypt hash is computed once and shared by all
+ * seeded users (password: app.seed.user-password).
+ */
+@Component
+@Profile("seed")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SyntheticDataSeeder implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataSeeder.class);
+    private static final String MARKER_EMAIL = "seed-user-0@example.com";
+    private static final String[] UNIVERSITIES = {
+            "University of Colombo", "University of Moratuwa", "University of Peradeniya",
+            "University of Kelaniya", "University of Ruhuna", "University of Jaffna"
+    };
+    private static final String[] FACULTIES = {
+            "Science", "Engineering", "Medicine", "Management", "Arts", "Information Technology", "Agriculture"
+    };
+    private static final String[] SUBJECTS = {
+            "Data Structures", "Linear Algebra", "Organic Chemistry", "Microeconomics", "Anatomy",
+            "Thermodynamics", "Software Engineering", "Statistics", "Marketing", "Databases"
+    };
+    private static final byte[] PLACEHOLDER_PDF = ("%PDF-1.4\n1 0 obj<</Type/Catalog/Pages 2 0 R>>endobj\n"
+            + "2 0 obj<</Type/Pages/Kids[]/Count 0>>endobj\ntrailer<</Root 1 0 R>>\n%%EOF\n")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final FileStorageService fileStorageService;
+    private final MaterialIdSequence materialIdSequence;
+
+    @Value("${app.seed.users:1000}")
+    private int userCount;
+
+    @Value("${app.seed.materials:10000}")
+    private int materialCount;
+
+    @Value("${app.seed.purchases:100000}")
+    private int purchaseCount;
+
+    @Value("${app.seed.batch-size:1000}")
+    private int batchSize;
+
+    // concurrent connections used for purchase inserts
+    @Value("${app.seed.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.seed.user-password:password123}")
+    private String userPassword;
+
+    // one placeholder file shared by every material instead of one file each
+    // (MaterialService deletes it only with the last material that uses it)
+    @Value("${app.seed.shared-placeholder:true}")
+    private boolean sharedPlaceholder;
+
+    public SyntheticDataSeeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder,
+                               FileStorageService fileStorageService, MaterialIdSequence materialIdSequence) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.fileStorageService = fileStorageService;
+        this.materialIdSequence = materialIdSequence;
+    }
+
+    @Override
+    public void run(String... args) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = ?", Integer.class, MARKER_EMAIL);
+        if (existing != null && existing > 0) {
+            log.info("Synthetic data already present, skipping seeding");
+            return;
+        }
+        long started = System.nanoTime();
+        long[] userIds = seedUsers();
+        log.info("Seeded {} users after {} ms", userIds.length, (System.nanoTime() - started) / 1_000_000);
+        long[] materialIds = seedMaterials();
+        log.info("Seeded {} materials after {} ms", materialIds.length, (System.nanoTime() - started) / 1_000_000);
+        int purchases = seedPurchases(userIds, materialIds);
+        log.info("Seeded {} users, {} materials, {} purchases in {} ms", userIds.length, materialIds.length,
+                purchases, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private long[] seedUsers() {
+        String hash = passwordEncoder.encode(userPassword);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long before = maxId("users");
+        insertInBatches("INSERT INTO users (full_name, email, password, role, enabled, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                userCount, i -> new Object[]{"Seed User " + i, "seed-user-" + i + "@example.com", hash, "ROLE_USER", true, now});
+        return idsAfter("users", before);
+    }
+
+    private long[] seedMaterials() {
+        String[] filenames = new String[materialCount];
+        if (sharedPlaceholder) {
+            String shared = storePlaceholder("seed-placeholder.pdf");
+            Arrays.fill(filenames, shared);
+        } else {
+            IntStream.range(0, materialCount).parallel()
+                    .forEach(i -> filenames[i] = storePlaceholder("seed-material-" + i + ".pdf"));
+        }
+        Instant base = Instant.now().minusSeconds(365L * 24 * 3600);
+        // material ids come from the shared id sequence, not from the database
+        long firstId = materialIdSequence.reserve(materialCount);
+        insertInBatches("INSERT INTO materials (id, title, university, faculty, student_year, course_module, filename, price, uploaded_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                materialCount, i -> new Object[]{
+                        firstId + i,
+                        SUBJECTS[i % SUBJECTS.length] + " notes #" + i,
+                        UNIVERSITIES[i % UNIVERSITIES.length],
+                        FACULTIES[(i / UNIVERSITIES.length) % FACULTIES.length],
+                        i % 4 + 1,
+                        "MOD" + (1000 + i % 500),
+                        filenames[i],
+                        price(i),
+                        Timestamp.from(base.plusSeconds(i * 60L))});
+        return LongStream.range(firstId, firstId + materialCount).toArray();
+    }
+
+    // Each user buys distinct materials: purchase k goes to user k % U, material (offset(user) + k / U) % M
+    private int seedPurchases(long[] userIds, long[] materialIds) {
+        if (userIds.length == 0 || materialIds.length == 0) {
+            return 0;
+        }
+        int perUserCap = materialIds.length;
+        int total = (int) Math.min(purchaseCount, (long) userIds.length * perUserCap);
+        int[] offsets = new SplittableRandom(42).ints(userIds.length, 0, materialIds.length).toArray();
+        LocalDateTime base = LocalDateTime.now().minusDays(180);
+        insertInParallelBatches("INSERT INTO purchases (user_id, material_id, purchase_price, purchase_date, status, stripe_payment_intent_id, version) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, 0)",
+                total, k -> {
+                    int user = k % userIds.length;
+                    int material = (offsets[user] + k / userIds.length) % materialIds.length;
+                    return new Object[]{userIds[user], materialIds[material], price(material),
+                            Timestamp.valueOf(base.plusSeconds(k * 15L)), "DONE", "pi_seed_" + k};
+                });
+        return total;
+    }
+
+    private void insertInBatches(String sql, int count, RowGenerator generator) {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < count; i++) {
+            batch.add(generator.row(i));
+            if (batch.size() == batchSize) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    // Batches are independent, so they are spread over several pooled connections
+    private void insertInParallelBatches(String sql, int count, RowGenerator generator) {
+        int batches = (count + batchSize - 1) / batchSize;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, batches).parallel().forEach(b -> {
+                int from = b * batchSize;
+                int to = Math.min(from + batchSize, count);
+                List<Object[]> batch = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    batch.add(generator.row(i));
+                }
+                jdbcTemplate.batchUpdate(sql, batch);
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private String storePlaceholder(String name) {
+        return fileStorageService.store(name, new ByteArrayInputStream(PLACEHOLDER_PDF));
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max : 0L;
+    }
+
+    private long[] idsAfter(String table, long afterId) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id > ? ORDER BY id", Long.class, afterId)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static double price(int index) {
+        return 250.0 + (index % 16) * 125.0;
+    }
+
+    @FunctionalInterface
+    private interface RowGenerator {
+        Object[] row(int index);
+    }
+}
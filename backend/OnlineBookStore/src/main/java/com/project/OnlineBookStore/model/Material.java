@@ -16,8 +16,14 @@ import java.time.Instant;
 @Setter
 public class Material {
 
+    public static final int ID_BLOCK_SIZE = 50;
+
+    // ids come in blocks of 50 from the id_generators table (one round trip per block), so
+    // inserts can be batched; MaterialIdSequence reserves blocks for plain JDBC inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "material_ids")
+    @TableGenerator(name = "material_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "materials", allocationSize = Material.ID_BLOCK_SIZE)
     private Long id;
 
     private String title;
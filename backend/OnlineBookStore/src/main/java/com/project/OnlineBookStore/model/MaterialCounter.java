@@ -0,0 +1,31 @@
+package com.project.OnlineBookStore.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Persisted download and view totals of a material. Written only by
+ * MaterialCounterService in batched upserts; no foreign key, so the write-behind
+ * flush never fails on a material deleted in the meantime.
+ */
+@Entity
+@Table(name = "material_counters")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MaterialCounter {
+
+    @Id
+    @Column(name = "material_id")
+    private Long materialId;
+
+    @Column(nullable = false)
+    private long downloads;
+
+    @Column(nullable = false)
+    private long views;
+}
@@ -45,4 +45,9 @@ public class Purchase {
     @Column(name = "stripe_client_secret")
     private String stripeClientSecret;
 
+    // optimistic lock: concurrent status changes of one purchase conflict instead of overwriting each other
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
 }
\ No newline at end of file
@@ -1,10 +1,33 @@
 package com.project.OnlineBookStore.model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum PurchaseStatus {
     PND,    // PENDING
     NEW,    // CREATED - Payment intent created
     PROC,   // PROCESSING - Payment being processed
     DONE,   // COMPLETED - Payment successful
     FAIL,   // FAILED - Payment failed
-    REF     // REFUNDED - Payment refunded
-}
\ No newline at end of file
+    REF;    // REFUNDED - Payment refunded
+
+    // Statuses a purchase may move to from each status; PurchaseService rejects any other change
+    private static final Map<PurchaseStatus, Set<PurchaseStatus>> TRANSITIONS = new EnumMap<>(PurchaseStatus.class);
+
+    static {
+        TRANSITIONS.put(PND, EnumSet.of(NEW, FAIL));
+        TRANSITIONS.put(NEW, EnumSet.of(PROC, FAIL));
+        TRANSITIONS.put(PROC, EnumSet.of(DONE, FAIL));
+        // a failed payment intent can be confirmed again with another payment method,
+        // and a success reported by Stripe wins over a failure recorded concurrently
+        TRANSITIONS.put(FAIL, EnumSet.of(PROC, DONE));
+        TRANSITIONS.put(DONE, EnumSet.of(REF));
+        TRANSITIONS.put(REF, EnumSet.noneOf(PurchaseStatus.class));
+    }
+
+    public boolean canTransitionTo(PurchaseStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+}
@@ -12,4 +12,5 @@ public interface MaterialRepository extends JpaRepository<Material, Long> {
     List<Material> findByFacultyIgnoreCase(String faculty);
     List<Material> findByStudentYear(Integer studentYear);
     List<Material> findByCourseModuleIgnoreCase(String courseModule);
+    boolean existsByFilenameAndIdNot(String filename, Long id);
 }
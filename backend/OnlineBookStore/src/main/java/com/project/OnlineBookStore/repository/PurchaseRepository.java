@@ -1,18 +1,44 @@
 package com.project.OnlineBookStore.repository;
 
 import com.project.OnlineBookStore.model.Purchase;
+import com.project.OnlineBookStore.model.PurchaseStatus;
 import com.project.OnlineBookStore.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     List<Purchase> findByUser(User user);
+    @EntityGraph(attributePaths = {"user", "material"})
     List<Purchase> findByUserId(Long userId);
+    @EntityGraph(attributePaths = {"user", "material"})
+    List<Purchase> findByUserIdAndStatus(Long userId, PurchaseStatus status);
     Optional<Purchase> findByUserAndMaterialId(User user, Long materialId);
     boolean existsByUserAndMaterialId(User user, Long materialId);
+    boolean existsByUserAndMaterialIdAndStatus(User user, Long materialId, PurchaseStatus status);
     Optional<Purchase> findByStripePaymentIntentId(String stripePaymentIntentId);
-}
\ No newline at end of file
+
+    // ids of the materials the user has a purchase in the given status for
+    @Query("select p.material.id from Purchase p where p.user.id = :userId and p.status = :status")
+    List<Long> findMaterialIdsByUserId(@Param("userId") Long userId, @Param("status") PurchaseStatus status);
+
+    // (user id, material id) of every purchase in the given status, grouped by user in purchase order
+    @Query("select p.user.id, p.material.id from Purchase p where p.status = :status order by p.user.id, p.id")
+    Stream<Object[]> streamUserMaterialPairs(@Param("status") PurchaseStatus status);
+
+    // (material id, purchase date) of purchases in the given status since the given time
+    @Query("select p.material.id, p.purchaseDate from Purchase p where p.status = :status and p.purchaseDate >= :since")
+    List<Object[]> findMaterialPurchaseDates(@Param("status") PurchaseStatus status, @Param("since") LocalDateTime since);
+
+    // (material id, number of purchases) in the given status
+    @Query("select p.material.id, count(p) from Purchase p where p.status = :status group by p.material.id")
+    List<Object[]> countByMaterial(@Param("status") PurchaseStatus status);
+}
@@ -0,0 +1,224 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.MaterialDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, pre-serialized JSON array of the catalog (MaterialDTO list) with
+ * every "purchased" flag set to false. Per-user listings are produced by
+ * copying the buffer and overwriting the flags of owned materials, so no
+ * objects are created or serialized per request.
+ */
+public final class CatalogSnapshot {
+
+    private static final byte[] FALSE_SUFFIX = "\"purchased\":false}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+
+    private final long version;
+    private final long[] ids;          // sorted material ids, index = position in the array
+    private final int[] starts;        // offset of the opening brace of each element
+    private final int[] flagOffsets;   // offset of the "false" literal of each element
+    private final String[] titles;
+    private final String[] universities;
+    private final String[] faculties;
+    private final byte[] json;
+    private final byte[] gzippedJson;
+
+    private CatalogSnapshot(long version, long[] ids, int[] starts, int[] flagOffsets, String[] titles,
+                            String[] universities, String[] faculties, byte[] json) {
+        this.version = version;
+        this.ids = ids;
+        this.starts = starts;
+        this.flagOffsets = flagOffsets;
+        this.titles = titles;
+        this.universities = universities;
+        this.faculties = faculties;
+        this.json = json;
+        this.gzippedJson = gzip(json);
+    }
+
+    /**
+     * @param version catalog version read before the materials were loaded
+     * @param materials catalog sorted by id, with purchased = false
+     */
+    public static CatalogSnapshot build(long version, List<MaterialDTO> materials, ObjectMapper objectMapper) {
+        long[] ids = new long[materials.size()];
+        int[] starts = new int[materials.size()];
+        int[] flagOffsets = new int[materials.size()];
+        String[] titles = new String[materials.size()];
+        String[] universities = new String[materials.size()];
+        String[] faculties = new String[materials.size()];
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, materials.size() * 256));
+        out.write('[');
+        for (int i = 0; i < materials.size(); i++) {
+            MaterialDTO dto = materials.get(i);
+            byte[] element;
+            try {
+                element = objectMapper.writeValueAsBytes(dto);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize material " + dto.getId(), e);
+            }
+            if (!endsWith(element, FALSE_SUFFIX)) {
+                throw new IllegalStateException("MaterialDTO must serialize \"purchased\":false as its last property");
+            }
+            if (i > 0) {
+                out.write(',');
+                if (dto.getId() <= ids[i - 1]) {
+                    throw new IllegalArgumentException("Materials must be sorted by id");
+                }
+            }
+            ids[i] = dto.getId();
+            titles[i] = dto.getTitle();
+            universities[i] = dto.getUniversity();
+            faculties[i] = dto.getFaculty();
+            starts[i] = out.size();
+            flagOffsets[i] = out.size() + element.length - FALSE.length - 1;
+            out.writeBytes(element);
+        }
+        out.write(']');
+        return new CatalogSnapshot(version, ids, starts, flagOffsets, titles, universities, faculties,
+                out.toByteArray());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // Positions of the given material ids; ids no longer in the catalog are ignored
+    public BitSet ownership(Collection<Long> materialIds) {
+        BitSet owned = new BitSet(ids.length);
+        for (Long id : materialIds) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0) {
+                owned.set(index);
+            }
+        }
+        return owned;
+    }
+
+    public String title(int position) {
+        return titles[position];
+    }
+
+    // University of the material at the given position, for filtering rankings in memory
+    public String university(int position) {
+        return universities[position];
+    }
+
+    public String faculty(int position) {
+        return faculties[position];
+    }
+
+    // Position of the material in the listing, or -1 if it is not in the catalog
+    public int indexOf(long materialId) {
+        int index = Arrays.binarySearch(ids, materialId);
+        return index >= 0 ? index : -1;
+    }
+
+    // Listing with "purchased" set to true for the positions in owned
+    public byte[] render(BitSet owned) {
+        if (owned.isEmpty()) {
+            return json;
+        }
+        return splice(owned, 0, ids.length, 0, json.length, false);
+    }
+
+    // Elements [from, to) as a JSON array, with "purchased" set to true for the positions in owned
+    public byte[] render(BitSet owned, int from, int to) {
+        if (from == 0 && to == ids.length) {
+            return render(owned);
+        }
+        if (from >= to) {
+            return new byte[]{'[', ']'};
+        }
+        return splice(owned, from, to, starts[from], flagOffsets[to - 1] + FALSE.length + 1, true);
+    }
+
+    // The elements at the given positions, in that order, as a JSON array with nothing owned
+    public byte[] render(int[] positions) {
+        return render(positions, new BitSet());
+    }
+
+    // The elements at the given positions, in that order, with "purchased" set to true for the positions in owned
+    public byte[] render(int[] positions, BitSet owned) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + positions.length * 256);
+        out.write('[');
+        for (int i = 0; i < positions.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            int position = positions[i];
+            int flag = flagOffsets[position];
+            if (owned.get(position)) {
+                out.write(json, starts[position], flag - starts[position]);
+                out.writeBytes(TRUE);
+                out.write('}');
+            } else {
+                out.write(json, starts[position], flag + FALSE.length + 1 - starts[position]);
+            }
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    // Copies json[start, end) and overwrites the flags of the owned elements in [from, to)
+    private byte[] splice(BitSet owned, int from, int to, int start, int end, boolean brackets) {
+        BitSet flips = owned.get(from, to);
+        int length = end - start + (brackets ? 2 : 0) - flips.cardinality() * (FALSE.length - TRUE.length);
+        byte[] result = new byte[length];
+        int target = 0;
+        if (brackets) {
+            result[target++] = '[';
+        }
+        int source = start;
+        for (int i = flips.nextSetBit(0); i >= 0; i = flips.nextSetBit(i + 1)) {
+            int flag = flagOffsets[from + i];
+            System.arraycopy(json, source, result, target, flag - source);
+            target += flag - source;
+            System.arraycopy(TRUE, 0, result, target, TRUE.length);
+            target += TRUE.length;
+            source = flag + FALSE.length;
+        }
+        System.arraycopy(json, source, result, target, end - source);
+        if (brackets) {
+            result[length - 1] = ']';
+        }
+        return result;
+    }
+
+    // Gzip-encoded listing with nothing owned; callers must not modify it
+    public byte[] getGzippedJson() {
+        return gzippedJson;
+    }
+
+    private static boolean endsWith(byte[] bytes, byte[] suffix) {
+        return bytes.length >= suffix.length
+                && Arrays.equals(bytes, bytes.length - suffix.length, bytes.length, suffix, 0, suffix.length);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,115 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.MaterialDTO;
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the current CatalogSnapshot. It is built at startup and rebuilt in the
+ * background after material changes; bursts of changes collapse into a single
+ * rebuild. Until a rebuild completes the previous snapshot (with its own
+ * version, and therefore its own ETag) keeps being served.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final MaterialRepository materialRepository;
+    private final DTOConversionService dtoConversionService;
+    private final CatalogVersionService catalogVersionService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogSnapshotService(MaterialRepository materialRepository, DTOConversionService dtoConversionService,
+                                  CatalogVersionService catalogVersionService, ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.materialRepository = materialRepository;
+        this.dtoConversionService = dtoConversionService;
+        this.catalogVersionService = catalogVersionService;
+        this.objectMapper = objectMapper;
+        // read-write on purpose: the snapshot must be read from the primary, not a lagging replica
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Current snapshot, built on the calling thread if none exists yet
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = rebuild();
+                }
+            }
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Catalog snapshot rebuild failed, keeping version {}",
+                            snapshot != null ? snapshot.getVersion() : null, e);
+                }
+            });
+        }
+    }
+
+    private synchronized CatalogSnapshot rebuild() {
+        long started = System.nanoTime();
+        // version first: a change committed after this point bumps it again and triggers another rebuild
+        long version = catalogVersionService.currentCatalogVersion();
+        List<MaterialDTO> materials = transactionTemplate.execute(status ->
+                materialRepository.findAll(Sort.by("id")).stream()
+                        .map(material -> dtoConversionService.convertToMaterialDTO(material, false))
+                        .toList());
+        CatalogSnapshot built = CatalogSnapshot.build(version, materials, objectMapper);
+        snapshot = built;
+        log.info("Built catalog snapshot version {} with {} materials in {} ms", version, built.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return built;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.OnlineBookStore.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the catalog and for each user's purchases, used as
+ * HTTP validators (ETag) for the catalog listings. Counters start at the boot
+ * time so validators issued before a restart never match afterwards.
+ * Versions are bumped only after the change has committed, so a request that
+ * reads a new version always sees the new data.
+ */
+@Service
+public class CatalogVersionService {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<Long, AtomicLong> ownershipVersions = new ConcurrentHashMap<>();
+
+    public long currentCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long ownershipVersion(Long userId) {
+        AtomicLong version = ownershipVersions.get(userId);
+        return version != null ? version.get() : 0L;
+    }
+
+    // Call after a material has been created, updated or deleted
+    public void bumpCatalog() {
+        afterCommit(catalogVersion::incrementAndGet);
+    }
+
+    // Call after the set of materials owned by a user has changed
+    public void bumpOwnership(Long userId) {
+        afterCommit(() -> ownershipVersions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet());
+    }
+
+    /**
+     * ETag for a catalog listing as seen by a user
+     * @param userId the user, or null for listings without ownership information
+     */
+    public String catalogETag(Long userId) {
+        return catalogETag(userId, currentCatalogVersion());
+    }
+
+    /**
+     * ETag for a listing built from a given catalog version (e.g. a CatalogSnapshot).
+     * Weak, because the same listing may be sent gzip-encoded or not.
+     */
+    public String catalogETag(Long userId, long catalogVersion) {
+        if (userId == null) {
+            return "W/\"c" + epoch + "." + catalogVersion + "\"";
+        }
+        return "W/\"c" + epoch + "." + catalogVersion + "-u" + userId + "." + ownershipVersion(userId) + "\"";
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
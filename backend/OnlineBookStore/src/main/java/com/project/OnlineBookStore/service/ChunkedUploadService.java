@@ -0,0 +1,330 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.dto.MaterialDetailsRequest;
+import com.project.OnlineBookStore.dto.UploadStatusDTO;
+import com.project.OnlineBookStore.model.Material;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Resumable chunked uploads for large materials: create a session, PUT chunks
+ * at byte offsets, query the offset after a failure, finalize. Each chunk is
+ * received into a file of its own and then copied at its offset into a part
+ * file under FileStorageService.partialDir(); bytes that arrived before a
+ * connection broke are kept, so the client resumes from the reported offset. A chunk
+ * may overlap bytes already received (a retry) but must not leave a gap.
+ * Finalizing renames the part file into the store atomically and attaches it
+ * to a material; if saving the material fails the file is moved back so
+ * finalize can be retried. Sessions live in memory and expire when idle.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileStorageService fileStorageService;
+    private final MaterialService materialService;
+    private final MetricsService metricsService;
+    private final long maxFileSize;
+    private final long maxChunkSize;
+    private final Duration sessionTtl;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService cleaner;
+
+    public ChunkedUploadService(FileStorageService fileStorageService, MaterialService materialService,
+                                MetricsService metricsService,
+                                @Value("${app.uploads.max-file-size-bytes:1073741824}") long maxFileSize,
+                                @Value("${app.uploads.max-chunk-size-bytes:33554432}") long maxChunkSize,
+                                @Value("${app.uploads.session-ttl-minutes:1440}") long sessionTtlMinutes,
+                                @Value("${app.uploads.cleanup-interval-seconds:600}") long cleanupIntervalSeconds) {
+        this.fileStorageService = fileStorageService;
+        this.materialService = materialService;
+        this.metricsService = metricsService;
+        this.maxFileSize = maxFileSize;
+        this.maxChunkSize = maxChunkSize;
+        this.sessionTtl = Duration.ofMinutes(sessionTtlMinutes);
+        removeOrphanedParts();
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cleaner.scheduleWithFixedDelay(this::removeExpiredSessions,
+                cleanupIntervalSeconds, cleanupIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    // Part files of a previous run cannot be resumed (sessions are in memory)
+    private void removeOrphanedParts() {
+        try (Stream<Path> parts = Files.list(fileStorageService.partialDir())) {
+            parts.forEach(ChunkedUploadService::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not clean partial upload directory", e);
+        }
+    }
+
+    public UploadStatusDTO create(String filename, Long size) {
+        String name = fileStorageService.validatedName(filename);
+        if (size == null || size <= 0 || size > maxFileSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxFileSize + " bytes");
+        }
+        String id = UUID.randomUUID().toString();
+        Path part = fileStorageService.partialDir().resolve(id + ".part");
+        try {
+            Files.createFile(part);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload session", e);
+        }
+        UploadSession session = new UploadSession(id, name, size, part);
+        sessions.put(id, session);
+        return status(session);
+    }
+
+    public Optional<UploadStatusDTO> find(String uploadId) {
+        return Optional.ofNullable(sessions.get(uploadId)).map(this::status);
+    }
+
+    /**
+     * Write one chunk starting at offset. The body is first read from the network into a
+     * chunk file of its own, so the session is locked only while that file is copied into
+     * the part file, never while waiting on a slow client: status and abort stay responsive.
+     * @throws OffsetMismatchException if offset is past the bytes received so far
+     * @throws UploadNotFoundException if the session does not exist, or was aborted or
+     * finalized while the chunk was being received
+     */
+    public UploadStatusDTO writeChunk(String uploadId, long offset, InputStream in) throws IOException {
+        UploadSession session = require(uploadId);
+        Timer.Sample sample = metricsService.startTimer();
+        session.touch();
+        // received only grows, so a chunk that continues the upload now still does under the lock
+        if (offset < 0 || offset > session.received) {
+            throw new OffsetMismatchException(session.received);
+        }
+        Path chunk = fileStorageService.partialDir().resolve(session.id + "." + UUID.randomUUID() + ".chunk");
+        try (FileChannel staged = FileChannel.open(chunk, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            IOException broken = null;
+            try {
+                receive(in, staged, session.size - offset);
+            } catch (IOException e) {
+                // whatever arrived still counts, the client resumes after it
+                broken = e;
+            }
+            UploadStatusDTO status = append(session, staged, offset, sample);
+            if (broken != null) {
+                throw broken;
+            }
+            return status;
+        }
+    }
+
+    private void receive(InputStream in, FileChannel staged, long remaining) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long length = 0;
+        for (int n; (n = in.read(buffer.array())) > 0; ) {
+            length += n;
+            if (length > remaining || length > maxChunkSize) {
+                throw new IllegalArgumentException("Chunk exceeds the declared file size or "
+                        + maxChunkSize + " bytes");
+            }
+            buffer.clear().limit(n);
+            while (buffer.hasRemaining()) {
+                staged.write(buffer);
+            }
+        }
+    }
+
+    private UploadStatusDTO append(UploadSession session, FileChannel staged, long offset,
+                                   Timer.Sample sample) throws IOException {
+        synchronized (session) {
+            if (session.closed) {
+                throw new UploadNotFoundException(session.id);
+            }
+            long length = staged.size();
+            long copied = 0;
+            try (FileChannel channel = FileChannel.open(session.part, StandardOpenOption.WRITE)) {
+                channel.position(offset);
+                while (copied < length) {
+                    copied += staged.transferTo(copied, length - copied, channel);
+                }
+            } finally {
+                session.received = Math.max(session.received, offset + copied);
+                metricsService.recordUpload(sample, "chunk", copied);
+            }
+            session.touch();
+            return status(session);
+        }
+    }
+
+    /**
+     * Attach the completed upload to a new material, or replace the file of an existing one
+     * @param materialId existing material, or null to create one from metadata
+     */
+    public Material finalizeUpload(String uploadId, MaterialDetailsRequest details, Long materialId) throws IOException {
+        UploadSession session = require(uploadId);
+        synchronized (session) {
+            if (session.closed) {
+                throw new UploadNotFoundException(uploadId);
+            }
+            session.touch();
+            if (session.received != session.size) {
+                throw new OffsetMismatchException(session.received);
+            }
+            try (FileChannel channel = FileChannel.open(session.part, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer head = ByteBuffer.allocate(PDF_MAGIC.length);
+                channel.read(head, 0);
+                if (!Arrays.equals(head.array(), PDF_MAGIC)) {
+                    throw new IllegalArgumentException("Uploaded file is not a PDF");
+                }
+                channel.force(true);
+            }
+            String stored = fileStorageService.adopt(session.part, session.filename);
+            Material material;
+            try {
+                material = materialService.attachStoredFile(materialId, toMaterial(details), stored);
+            } catch (RuntimeException e) {
+                // attachStoredFile is one transaction whose listeners run after commit and cannot
+                // throw here, so the material was not saved: give the file back to the session
+                Files.move(fileStorageService.load(stored), session.part, StandardCopyOption.ATOMIC_MOVE);
+                throw e;
+            }
+            session.closed = true;
+            sessions.remove(uploadId);
+            return material;
+        }
+    }
+
+    public boolean abort(String uploadId) {
+        UploadSession session = sessions.remove(uploadId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            session.closed = true;
+            deleteQuietly(session.part);
+        }
+        return true;
+    }
+
+    // Sessions idle for longer than app.uploads.session-ttl-minutes are aborted
+    void removeExpiredSessions() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        sessions.values().stream()
+                .filter(session -> session.lastActivity.isBefore(cutoff))
+                .map(session -> session.id)
+                .toList()
+                .forEach(id -> {
+                    log.info("Upload session {} expired", id);
+                    abort(id);
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    private static Material toMaterial(MaterialDetailsRequest details) {
+        if (details == null) {
+            return null;
+        }
+        Material material = new Material();
+        material.setTitle(details.getTitle());
+        material.setUniversity(details.getUniversity());
+        material.setFaculty(details.getFaculty());
+        material.setStudentYear(details.getStudentYear());
+        material.setCourseModule(details.getCourseModule());
+        material.setPrice(details.getPrice());
+        return material;
+    }
+
+    private UploadSession require(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new UploadNotFoundException(uploadId);
+        }
+        return session;
+    }
+
+    private UploadStatusDTO status(UploadSession session) {
+        return new UploadStatusDTO(session.id, session.filename, session.size, session.received, maxChunkSize,
+                session.received == session.size);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", path, e);
+        }
+    }
+
+    private static final class UploadSession {
+        final String id;
+        final String filename;
+        final long size;
+        final Path part;
+        volatile long received;
+        volatile Instant lastActivity = Instant.now();
+        // aborted or finalized; guarded by the session's lock
+        boolean closed;
+
+        UploadSession(String id, String filename, long size, Path part) {
+            this.id = id;
+            this.filename = filename;
+            this.size = size;
+            this.part = part;
+        }
+
+        void touch() {
+            lastActivity = Instant.now();
+        }
+    }
+
+    // The session does not exist (never created, expired, aborted or finalized)
+    public static class UploadNotFoundException extends RuntimeException {
+        public UploadNotFoundException(String uploadId) {
+            super("Upload not found: " + uploadId);
+        }
+    }
+
+    // The chunk does not continue the bytes received so far; the client resumes from expectedOffset
+    public static class OffsetMismatchException extends RuntimeException {
+        private final long expectedOffset;
+
+        public OffsetMismatchException(long expectedOffset) {
+            super("Upload continues at offset " + expectedOffset);
+            this.expectedOffset = expectedOffset;
+        }
+
+        public long getExpectedOffset() {
+            return expectedOffset;
+        }
+    }
+}
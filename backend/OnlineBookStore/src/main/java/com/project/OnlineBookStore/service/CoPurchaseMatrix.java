@@ -0,0 +1,172 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse co-purchase matrix: for every material, how many users bought it
+ * together with each other material. Rows are primitive-keyed maps
+ * (LongIntHashMap), and each row caches its top entries until the next
+ * change, so reading the related materials is a lookup plus an array copy.
+ *
+ * A purchase pairs the material with the buyer's most recent maxBasket - 1
+ * earlier purchases, which bounds the work per purchase for heavy buyers.
+ * Adding the same (user, material) twice has no effect.
+ */
+public final class CoPurchaseMatrix {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final int maxBasket;
+    private final int topK;
+    private final Map<Long, Row> rows;
+    private final Map<Long, long[]> baskets;
+
+    public CoPurchaseMatrix(int maxBasket, int topK) {
+        this(maxBasket, topK, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private CoPurchaseMatrix(int maxBasket, int topK, Map<Long, Row> rows, Map<Long, long[]> baskets) {
+        this.maxBasket = maxBasket;
+        this.topK = topK;
+        this.rows = rows;
+        this.baskets = baskets;
+    }
+
+    /**
+     * Builds the matrix from complete purchase histories. Rows are counted on
+     * the calling ForkJoinPool (parallel stream) into per-worker partial
+     * matrices that are merged at the end, so workers never share a row.
+     * @param userBaskets material ids per user, in purchase order
+     */
+    public static CoPurchaseMatrix build(Map<Long, long[]> userBaskets, int maxBasket, int topK) {
+        Map<Long, LongIntHashMap> counts = userBaskets.values().parallelStream().collect(HashMap::new,
+                (partial, basket) -> {
+                    for (int i = 1; i < basket.length; i++) {
+                        for (int j = Math.max(0, i - (maxBasket - 1)); j < i; j++) {
+                            partial.computeIfAbsent(basket[i], id -> new LongIntHashMap()).addTo(basket[j], 1);
+                            partial.computeIfAbsent(basket[j], id -> new LongIntHashMap()).addTo(basket[i], 1);
+                        }
+                    }
+                },
+                (left, right) -> right.forEach((materialId, row) -> left.merge(materialId, row, (a, b) -> {
+                    a.addAll(b);
+                    return a;
+                })));
+        Map<Long, Row> rows = new ConcurrentHashMap<>(Math.max(16, counts.size() * 4 / 3));
+        counts.forEach((materialId, row) -> rows.put(materialId, new Row(row)));
+        return new CoPurchaseMatrix(maxBasket, topK, rows, new ConcurrentHashMap<>(userBaskets));
+    }
+
+    /**
+     * Adds one completed purchase
+     * @return false if the user had already bought the material
+     */
+    public boolean add(long userId, long materialId) {
+        boolean[] added = {false};
+        // the basket entry is locked while pairing, so purchases of one user are applied one at a time
+        baskets.compute(userId, (id, basket) -> {
+            long[] current = basket != null ? basket : EMPTY;
+            for (long owned : current) {
+                if (owned == materialId) {
+                    return current;
+                }
+            }
+            for (int i = Math.max(0, current.length - (maxBasket - 1)); i < current.length; i++) {
+                row(materialId).add(current[i]);
+                row(current[i]).add(materialId);
+            }
+            long[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = materialId;
+            added[0] = true;
+            return grown;
+        });
+        return added[0];
+    }
+
+    /**
+     * Materials most often bought together with materialId, strongest first
+     * (ties by lower id); at most min(limit, topK)
+     */
+    public long[] related(long materialId, int limit) {
+        Row row = rows.get(materialId);
+        if (row == null) {
+            return EMPTY;
+        }
+        long[] top = row.top(topK);
+        return top.length <= limit ? top.clone() : Arrays.copyOf(top, limit);
+    }
+
+    // Number of users who bought both materials
+    public int count(long materialId, long otherId) {
+        Row row = rows.get(materialId);
+        return row == null ? 0 : row.count(otherId);
+    }
+
+    public int materials() {
+        return rows.size();
+    }
+
+    private Row row(long materialId) {
+        return rows.computeIfAbsent(materialId, id -> new Row(new LongIntHashMap()));
+    }
+
+    private static final class Row {
+        private final LongIntHashMap counts;
+        private long[] top;
+
+        Row(LongIntHashMap counts) {
+            this.counts = counts;
+        }
+
+        synchronized void add(long otherId) {
+            counts.addTo(otherId, 1);
+            top = null;
+        }
+
+        synchronized int count(long otherId) {
+            return counts.get(otherId);
+        }
+
+        synchronized long[] top(int k) {
+            if (top == null) {
+                top = selectTop(counts, k);
+            }
+            return top;
+        }
+
+        // Partial insertion sort into k slots: O(row size * k), k is small
+        private static long[] selectTop(LongIntHashMap counts, int k) {
+            long[] ids = new long[Math.min(k, counts.size())];
+            if (ids.length == 0) {
+                return ids;
+            }
+            int[] scores = new int[ids.length];
+            int[] filled = {0};
+            counts.forEach((id, score) -> {
+                int n = filled[0];
+                if (n == ids.length && !ranksBefore(score, id, scores[n - 1], ids[n - 1])) {
+                    return;
+                }
+                int i = n == ids.length ? n - 1 : n;
+                while (i > 0 && ranksBefore(score, id, scores[i - 1], ids[i - 1])) {
+                    ids[i] = ids[i - 1];
+                    scores[i] = scores[i - 1];
+                    i--;
+                }
+                ids[i] = id;
+                scores[i] = score;
+                filled[0] = Math.min(n + 1, ids.length);
+            });
+            return ids;
+        }
+
+        private static boolean ranksBefore(int score, long id, int otherScore, long otherId) {
+            return score > otherScore || (score == otherScore && id < otherId);
+        }
+    }
+}
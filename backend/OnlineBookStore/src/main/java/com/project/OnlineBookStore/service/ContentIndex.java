@@ -0,0 +1,516 @@
+package com.project.OnlineBookStore.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * On-disk inverted index of extracted material text, made of immutable
+ * ContentSegments listed (oldest first) in a manifest file. Added and deleted
+ * materials are buffered and written as a new segment by flush(); a newer
+ * entry for a material supersedes older ones, and deletions are tombstone
+ * entries. maybeMerge() streams adjacent small segments into one, dropping
+ * superseded entries, so the number of segments stays bounded.
+ *
+ * Only the manifest, a map of the live entry per material and the unflushed
+ * buffer are held in the heap; postings and text are read from the mapped
+ * segments. Writers are serialized; searches run concurrently on the state
+ * published by the last flush or merge.
+ */
+public final class ContentIndex {
+
+    public record Hit(long materialId, double score, String snippet) {
+    }
+
+    private record DocRef(ContentSegment segment, int doc) {
+    }
+
+    private record State(List<ContentSegment> segments, Map<Long, DocRef> live) {
+    }
+
+    // text is null for a deletion
+    private record Pending(String source, String text) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ContentIndex.class);
+
+    private static final String MANIFEST = "segments";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".cidx";
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final double K1 = 1.2;  // BM25 term frequency saturation
+    private static final double B = 0.75;  // BM25 length normalization
+    private static final int SNIPPET_CHARS = 200;
+    private static final int SNIPPET_SCAN_BYTES = 64 * 1024;
+
+    private final Path dir;
+    private final int mergeFactor;
+    private final long maxSegmentBytes;
+    // guarded by this
+    private final Map<Long, Pending> pending = new LinkedHashMap<>();
+    private long nextGeneration;
+    private volatile State state;
+
+    private ContentIndex(Path dir, int mergeFactor, long maxSegmentBytes, List<ContentSegment> segments) {
+        this.dir = dir;
+        this.mergeFactor = mergeFactor;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.nextGeneration = segments.stream().mapToLong(ContentSegment::generation).max().orElse(0) + 1;
+        Map<Long, DocRef> live = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            ContentSegment segment = segments.get(s);
+            for (int doc = segment.docCount() - 1; doc >= 0; doc--) {
+                long materialId = segment.materialId(doc);
+                if (seen.add(materialId) && !segment.deleted(doc)) {
+                    live.put(materialId, new DocRef(segment, doc));
+                }
+            }
+        }
+        this.state = new State(List.copyOf(segments), live);
+    }
+
+    /**
+     * Opens the index in dir, creating it if missing. Files not listed in the
+     * manifest (left by an interrupted flush or merge) are deleted.
+     * @param maxSegmentBytes merges stop short of this size; at most 2 GB, one segment is one mapping
+     */
+    public static ContentIndex open(Path dir, int mergeFactor, long maxSegmentBytes) throws IOException {
+        Files.createDirectories(dir);
+        Path manifest = dir.resolve(MANIFEST);
+        List<String> names = Files.exists(manifest)
+                ? Files.readAllLines(manifest, StandardCharsets.UTF_8).stream().filter(name -> !name.isBlank()).toList()
+                : List.of();
+        List<ContentSegment> segments = new ArrayList<>();
+        for (String name : names) {
+            segments.add(ContentSegment.open(dir.resolve(name), generation(name)));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.equals(MANIFEST) && !names.contains(name)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        return new ContentIndex(dir, mergeFactor, Math.min(maxSegmentBytes, Integer.MAX_VALUE), segments);
+    }
+
+    /**
+     * Index the text of a material, replacing what was indexed for it
+     * @param source tag of the indexed file (its stored name), see sources()
+     */
+    public synchronized void add(long materialId, String source, String text) {
+        pending.put(materialId, new Pending(source, text));
+    }
+
+    public synchronized void delete(long materialId) {
+        pending.put(materialId, new Pending(null, null));
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    // Indexed materials (flushed or not) with the source tag their text came from
+    public synchronized Map<Long, String> sources() {
+        Map<Long, String> sources = new HashMap<>();
+        state.live().forEach((materialId, ref) -> sources.put(materialId, ref.segment().source(ref.doc())));
+        pending.forEach((materialId, entry) -> {
+            if (entry.text() == null) {
+                sources.remove(materialId);
+            } else {
+                sources.put(materialId, entry.source());
+            }
+        });
+        return sources;
+    }
+
+    // Source tag of what is indexed (or buffered) for the material, null if nothing is
+    public synchronized String source(long materialId) {
+        Pending change = pending.get(materialId);
+        if (change != null) {
+            return change.source();
+        }
+        DocRef ref = state.live().get(materialId);
+        return ref != null ? ref.segment().source(ref.doc()) : null;
+    }
+
+    public int size() {
+        return state.live().size();
+    }
+
+    public int segmentCount() {
+        return state.segments().size();
+    }
+
+    /**
+     * Writes the buffered changes as a new segment and makes them searchable
+     * @return whether a segment was written
+     */
+    public synchronized boolean flush() throws IOException {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        State current = state;
+        Path file = dir.resolve(SEGMENT_PREFIX + nextGeneration + SEGMENT_SUFFIX);
+        List<Long> materialIds = new ArrayList<>();
+        List<Boolean> deletions = new ArrayList<>();
+        TreeMap<String, List<int[]>> postings = new TreeMap<>();
+        try (ContentSegment.Writer writer = new ContentSegment.Writer(file, maxSegmentBytes)) {
+            for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                Pending change = entry.getValue();
+                if (change.text() == null) {
+                    if (current.live().containsKey(entry.getKey())) {
+                        writer.addDoc(entry.getKey(), new byte[0], 0, 0, true);
+                        materialIds.add(entry.getKey());
+                        deletions.add(true);
+                    }
+                    continue;
+                }
+                Map<String, Integer> frequencies = new HashMap<>();
+                tokenize(change.text(), (term, start, end) -> frequencies.merge(term, 1, Integer::sum));
+                byte[] source = change.source().getBytes(StandardCharsets.UTF_8);
+                byte[] text = change.text().getBytes(StandardCharsets.UTF_8);
+                byte[] stored = Arrays.copyOf(source, source.length + text.length);
+                System.arraycopy(text, 0, stored, source.length, text.length);
+                int tokens = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+                int doc = writer.addDoc(entry.getKey(), stored, source.length, tokens, false);
+                frequencies.forEach((term, frequency) ->
+                        postings.computeIfAbsent(term, t -> new ArrayList<>()).add(new int[]{doc, frequency}));
+                materialIds.add(entry.getKey());
+                deletions.add(false);
+            }
+            if (materialIds.isEmpty()) {
+                pending.clear();
+                return false;
+            }
+            for (Map.Entry<String, List<int[]>> term : postings.entrySet()) {
+                writer.startTerm(term.getKey());
+                for (int[] posting : term.getValue()) {
+                    writer.addPosting(posting[0], posting[1]);
+                }
+                writer.finishTerm();
+            }
+            writer.finish();
+        }
+        ContentSegment segment = ContentSegment.open(file, nextGeneration++);
+        Map<Long, DocRef> live = new HashMap<>(current.live());
+        for (int doc = 0; doc < materialIds.size(); doc++) {
+            if (deletions.get(doc)) {
+                live.remove(materialIds.get(doc));
+            } else {
+                live.put(materialIds.get(doc), new DocRef(segment, doc));
+            }
+        }
+        List<ContentSegment> segments = new ArrayList<>(current.segments());
+        segments.add(segment);
+        publish(segments, live);
+        pending.clear();
+        return true;
+    }
+
+    /**
+     * Merges the mergeFactor adjacent segments with the fewest bytes into one when
+     * there are more than mergeFactor segments, unless they would exceed the
+     * maximum segment size
+     * @return whether segments were merged
+     */
+    public synchronized boolean maybeMerge() throws IOException {
+        List<ContentSegment> segments = state.segments();
+        if (segments.size() <= mergeFactor) {
+            return false;
+        }
+        int best = -1;
+        long bestBytes = Long.MAX_VALUE;
+        for (int from = 0; from + mergeFactor <= segments.size(); from++) {
+            long bytes = segments.subList(from, from + mergeFactor).stream().mapToLong(ContentSegment::sizeBytes).sum();
+            if (bytes < bestBytes) {
+                best = from;
+                bestBytes = bytes;
+            }
+        }
+        if (bestBytes > maxSegmentBytes) {
+            log.warn("Not merging {} content index segments: the smallest run has {} bytes", segments.size(), bestBytes);
+            return false;
+        }
+        merge(best, best + mergeFactor);
+        return true;
+    }
+
+    /**
+     * Live materials containing every term of the query, best BM25 score first,
+     * with a snippet around the first match
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(terms(query));
+        State current = state;
+        int liveDocs = current.live().size();
+        if (terms.isEmpty() || liveDocs == 0 || limit <= 0) {
+            return List.of();
+        }
+        long docs = 0;
+        long tokens = 0;
+        long[] documentFrequencies = new long[terms.size()];
+        for (ContentSegment segment : current.segments()) {
+            docs += segment.docCount();
+            tokens += segment.tokenCount();
+            for (int i = 0; i < terms.size(); i++) {
+                int term = segment.findTerm(terms.get(i));
+                documentFrequencies[i] += term >= 0 ? segment.docFrequency(term) : 0;
+            }
+        }
+        double averageLength = Math.max(1, (double) tokens / Math.max(1, docs));
+        double[] idf = new double[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            double df = Math.min(documentFrequencies[i], liveDocs);
+            idf[i] = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+        }
+
+        record Scored(DocRef ref, double score) {
+        }
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        for (ContentSegment segment : current.segments()) {
+            ContentSegment.Postings[] postings = new ContentSegment.Postings[terms.size()];
+            boolean allPresent = true;
+            for (int i = 0; i < terms.size() && allPresent; i++) {
+                int term = segment.findTerm(terms.get(i));
+                allPresent = term >= 0;
+                postings[i] = allPresent ? segment.postings(term) : null;
+            }
+            if (!allPresent) {
+                continue;
+            }
+            int doc = 0;
+            matching:
+            while (true) {
+                // leapfrog: move every list to the largest current doc until all agree
+                for (ContentSegment.Postings list : postings) {
+                    if (!list.advance(doc)) {
+                        break matching;
+                    }
+                    if (list.doc() > doc) {
+                        doc = list.doc();
+                        continue matching;
+                    }
+                }
+                DocRef ref = current.live().get(segment.materialId(doc));
+                if (ref != null && ref.segment() == segment && ref.doc() == doc) {
+                    double lengthNorm = K1 * (1 - B + B * segment.tokens(doc) / averageLength);
+                    double score = 0;
+                    for (int i = 0; i < postings.length; i++) {
+                        int tf = postings[i].frequency();
+                        score += idf[i] * tf * (K1 + 1) / (tf + lengthNorm);
+                    }
+                    top.add(new Scored(ref, score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+                doc++;
+            }
+        }
+        List<Scored> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(Scored::score).reversed()
+                .thenComparingLong(scored -> scored.ref().segment().materialId(scored.ref().doc())));
+        Set<String> termSet = new HashSet<>(terms);
+        return ranked.stream()
+                .map(scored -> new Hit(scored.ref().segment().materialId(scored.ref().doc()), scored.score(),
+                        snippet(scored.ref(), termSet)))
+                .toList();
+    }
+
+    interface TokenConsumer {
+        void accept(String term, int start, int end);
+    }
+
+    // Runs of letters and digits, lower-cased; very short and very long runs are skipped
+    static void tokenize(String text, TokenConsumer consumer) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i - start >= MIN_TERM_LENGTH && i - start <= MAX_TERM_LENGTH) {
+                consumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), start, i);
+            }
+        }
+    }
+
+    private static Set<String> terms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, (term, start, end) -> terms.add(term));
+        return terms;
+    }
+
+    // Text around the first occurrence of a query term, scanning the mapped text in chunks
+    private static String snippet(DocRef ref, Set<String> terms) {
+        ContentSegment segment = ref.segment();
+        int length = segment.textLength(ref.doc());
+        int overlap = MAX_TERM_LENGTH * 4;
+        for (int from = 0; from < length; from += SNIPPET_SCAN_BYTES - overlap) {
+            String chunk = segment.textRegion(ref.doc(), from, SNIPPET_SCAN_BYTES);
+            int[] match = {-1};
+            tokenize(chunk, (term, start, end) -> {
+                if (match[0] < 0 && terms.contains(term)) {
+                    match[0] = start;
+                }
+            });
+            if (match[0] >= 0) {
+                return window(chunk, match[0], from > 0, from + SNIPPET_SCAN_BYTES < length);
+            }
+        }
+        return window(segment.textRegion(ref.doc(), 0, SNIPPET_SCAN_BYTES), 0, false, length > SNIPPET_SCAN_BYTES);
+    }
+
+    private static String window(String chunk, int match, boolean chunkTruncatedBefore, boolean chunkTruncatedAfter) {
+        int start = Math.max(0, match - SNIPPET_CHARS / 4);
+        if (start > 0) {
+            int space = chunk.indexOf(' ', start);
+            start = space >= 0 && space < match ? space + 1 : start;
+        }
+        int end = Math.min(chunk.length(), start + SNIPPET_CHARS);
+        if (end < chunk.length()) {
+            int space = chunk.lastIndexOf(' ', end);
+            end = space > match ? space : end;
+        }
+        String text = chunk.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 || chunkTruncatedBefore ? "…" : "") + text
+                + (end < chunk.length() || chunkTruncatedAfter ? "…" : "");
+    }
+
+    private void merge(int from, int to) throws IOException {
+        long started = System.nanoTime();
+        State current = state;
+        List<ContentSegment> window = current.segments().subList(from, to);
+        // keep the live entries, and tombstones still hiding an entry in an older segment
+        BitSet[] keep = new BitSet[window.size()];
+        Set<Long> seen = new HashSet<>();
+        for (int s = window.size() - 1; s >= 0; s--) {
+            ContentSegment segment = window.get(s);
+            keep[s] = new BitSet(segment.docCount());
+            for (int doc = segment.docCount() - 1; doc >= 0; doc--) {
+                long materialId = segment.materialId(doc);
+                if (!seen.add(materialId)) {
+                    continue;
+                }
+                DocRef ref = current.live().get(materialId);
+                boolean kept = segment.deleted(doc)
+                        ? from > 0 && ref == null
+                        : ref != null && ref.segment() == segment && ref.doc() == doc;
+                keep[s].set(doc, kept);
+            }
+        }
+
+        Path file = dir.resolve(SEGMENT_PREFIX + nextGeneration + SEGMENT_SUFFIX);
+        int[][] renumbered = new int[window.size()][];
+        try (ContentSegment.Writer writer = new ContentSegment.Writer(file, maxSegmentBytes)) {
+            for (int s = 0; s < window.size(); s++) {
+                ContentSegment segment = window.get(s);
+                renumbered[s] = new int[segment.docCount()];
+                Arrays.fill(renumbered[s], -1);
+                for (int doc = keep[s].nextSetBit(0); doc >= 0; doc = keep[s].nextSetBit(doc + 1)) {
+                    renumbered[s][doc] = writer.addDoc(segment.materialId(doc), segment.storedBytes(doc),
+                            segment.sourceLength(doc), segment.tokens(doc), segment.deleted(doc));
+                }
+            }
+            mergeTerms(window, renumbered, writer);
+            writer.finish();
+        }
+
+        ContentSegment merged = ContentSegment.open(file, nextGeneration++);
+        Map<Long, DocRef> live = new HashMap<>(current.live());
+        for (int doc = 0; doc < merged.docCount(); doc++) {
+            if (!merged.deleted(doc)) {
+                live.put(merged.materialId(doc), new DocRef(merged, doc));
+            }
+        }
+        List<ContentSegment> segments = new ArrayList<>(current.segments().subList(0, from));
+        segments.add(merged);
+        segments.addAll(current.segments().subList(to, current.segments().size()));
+        publish(segments, live);
+        for (ContentSegment old : window) {
+            try {
+                // searches still reading the old mapping are not affected on POSIX systems
+                Files.deleteIfExists(dir.resolve(old.name()));
+            } catch (IOException e) {
+                log.warn("Could not delete merged content index segment {}; it is removed on the next start", old.name(), e);
+            }
+        }
+        log.info("Merged {} content index segments into {} ({} docs, {} bytes) in {} ms", window.size(), merged.name(),
+                merged.docCount(), merged.sizeBytes(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // K-way merge of the sorted term tables; postings are renumbered and stream straight into the writer
+    private static void mergeTerms(List<ContentSegment> window, int[][] renumbered, ContentSegment.Writer writer)
+            throws IOException {
+        record Cursor(int segment, int term, String value) {
+        }
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(
+                Comparator.comparing(Cursor::value).thenComparingInt(Cursor::segment));
+        for (int s = 0; s < window.size(); s++) {
+            if (window.get(s).termCount() > 0) {
+                cursors.add(new Cursor(s, 0, window.get(s).term(0)));
+            }
+        }
+        while (!cursors.isEmpty()) {
+            String term = cursors.peek().value();
+            writer.startTerm(term);
+            // polled in segment order, so the renumbered docs ascend
+            while (!cursors.isEmpty() && cursors.peek().value().equals(term)) {
+                Cursor cursor = cursors.poll();
+                ContentSegment segment = window.get(cursor.segment());
+                ContentSegment.Postings postings = segment.postings(cursor.term());
+                while (postings.next()) {
+                    int doc = renumbered[cursor.segment()][postings.doc()];
+                    if (doc >= 0) {
+                        writer.addPosting(doc, postings.frequency());
+                    }
+                }
+                int next = cursor.term() + 1;
+                if (next < segment.termCount()) {
+                    cursors.add(new Cursor(cursor.segment(), next, segment.term(next)));
+                }
+            }
+            writer.finishTerm();
+        }
+    }
+
+    // The manifest is replaced atomically before readers see the new segments
+    private void publish(List<ContentSegment> segments, Map<Long, DocRef> live) throws IOException {
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        Files.write(tmp, segments.stream().map(ContentSegment::name).toList(), StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        state = new State(List.copyOf(segments), live);
+    }
+
+    private static long generation(String name) {
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,235 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.dto.ContentSearchHitDTO;
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over the contents of the stored PDFs. Text is extracted in
+ * the background when a material is created or updated (and at startup for
+ * files the ContentIndex has not seen) and buffered; every
+ * app.search.flush-interval-seconds, or once app.search.flush-docs materials are
+ * buffered, the buffer is written as a new index segment and small segments are
+ * merged. All index writes run on the single "content-index" thread.
+ */
+@Service
+public class ContentSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentSearchService.class);
+
+    private final MaterialRepository materialRepository;
+    private final FileStorageService fileStorageService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentIndex index;
+    private final int flushDocs;
+    private final long flushIntervalSeconds;
+    private final int maxTextChars;
+    private final ScheduledExecutorService indexer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "content-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ContentSearchService(MaterialRepository materialRepository, FileStorageService fileStorageService,
+                                CatalogSnapshotService catalogSnapshotService, PlatformTransactionManager transactionManager,
+                                @Value("${app.search.index-dir:./search-index}") String indexDir,
+                                @Value("${app.search.flush-docs:50}") int flushDocs,
+                                @Value("${app.search.flush-interval-seconds:5}") long flushIntervalSeconds,
+                                @Value("${app.search.merge-factor:10}") int mergeFactor,
+                                @Value("${app.search.max-segment-mb:512}") long maxSegmentMb,
+                                @Value("${app.search.max-text-chars:2000000}") int maxTextChars) {
+        this.materialRepository = materialRepository;
+        this.fileStorageService = fileStorageService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.flushDocs = flushDocs;
+        this.flushIntervalSeconds = flushIntervalSeconds;
+        this.maxTextChars = maxTextChars;
+        this.index = openIndex(Paths.get(indexDir).toAbsolutePath().normalize(), mergeFactor, maxSegmentMb * 1024 * 1024);
+    }
+
+    // Indexes what changed while the application was down, then flushes periodically
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        indexer.execute(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                log.error("Reconciling the content index with the materials table failed", e);
+            }
+        });
+        indexer.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        Long materialId = event.materialId();
+        if (event.type() == MaterialChangedEvent.ChangeType.DELETED) {
+            indexer.execute(() -> index.delete(materialId));
+        } else if (event.material() != null && event.material().getFilename() != null) {
+            String filename = event.material().getFilename();
+            indexer.execute(() -> {
+                // metadata-only updates keep the file, and with it the indexed text
+                if (!filename.equals(index.source(materialId))) {
+                    extract(materialId, filename);
+                }
+            });
+        }
+    }
+
+    /**
+     * Materials whose text contains every word of the query, best match first,
+     * with the passage around the first match
+     */
+    public List<ContentSearchHitDTO> search(String query, int limit) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        List<ContentSearchHitDTO> hits = new ArrayList<>();
+        for (ContentIndex.Hit hit : index.search(query, limit)) {
+            int position = snapshot.indexOf(hit.materialId());
+            if (position >= 0) {
+                hits.add(new ContentSearchHitDTO(hit.materialId(), snapshot.title(position), hit.score(), hit.snippet()));
+            }
+        }
+        return hits;
+    }
+
+    private void reconcile() {
+        long started = System.nanoTime();
+        Map<Long, String> indexed = index.sources();
+        List<Material> materials = transactionTemplate.execute(status -> materialRepository.findAll());
+        int extracted = 0;
+        for (Material material : materials) {
+            String filename = material.getFilename();
+            if (filename != null && !filename.equals(indexed.remove(material.getId()))) {
+                extract(material.getId(), filename);
+                extracted++;
+            }
+        }
+        indexed.keySet().forEach(index::delete); // materials deleted while the application was down
+        flush();
+        log.info("Content index has {} materials; extracted {} and removed {} at startup in {} ms", index.size(),
+                extracted, indexed.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void extract(Long materialId, String filename) {
+        index.add(materialId, filename, extractText(fileStorageService.load(filename)));
+        if (index.pendingCount() >= flushDocs) {
+            flush();
+        }
+    }
+
+    /**
+     * Text of a PDF, at most app.search.max-text-chars characters; an unreadable
+     * file is indexed without text, so it is not retried until it is replaced
+     */
+    private String extractText(Path file) {
+        TextLimitWriter text = new TextLimitWriter(maxTextChars);
+        try (PDDocument document = Loader.loadPDF(file.toFile())) {
+            new PDFTextStripper().writeText(document, text);
+        } catch (TextLimitWriter.LimitReached e) {
+            log.debug("Indexing only the first {} characters of {}", maxTextChars, file.getFileName());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not extract text from {}: {}", file.getFileName(), e.toString());
+        }
+        return text.toString();
+    }
+
+    private void flush() {
+        try {
+            index.flush();
+            while (index.maybeMerge()) {
+                // merge until at most merge-factor segments remain
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Writing the content index failed; buffered changes are retried on the next flush", e);
+        }
+    }
+
+    // A corrupt index is rebuilt from the stored files by the startup reconcile
+    private static ContentIndex openIndex(Path dir, int mergeFactor, long maxSegmentBytes) {
+        try {
+            return ContentIndex.open(dir, mergeFactor, maxSegmentBytes);
+        } catch (IOException | RuntimeException e) {
+            log.error("Content index in {} is unreadable, rebuilding it", dir, e);
+            try {
+                FileSystemUtils.deleteRecursively(dir);
+                return ContentIndex.open(dir, mergeFactor, maxSegmentBytes);
+            } catch (IOException ex) {
+                throw new RuntimeException("Could not create content index in " + dir, ex);
+            }
+        }
+    }
+
+    // Collects extracted text, stopping the extraction once the limit is reached
+    private static final class TextLimitWriter extends Writer {
+
+        static final class LimitReached extends IOException {
+            LimitReached() {
+                super("Text limit reached");
+            }
+        }
+
+        private final StringBuilder text = new StringBuilder();
+        private final int limit;
+
+        TextLimitWriter(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int accepted = Math.min(length, limit - text.length());
+            text.append(chars, offset, accepted);
+            if (accepted < length) {
+                throw new LimitReached();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // unflushed changes are found again by the next startup's reconcile
+        indexer.shutdownNow();
+    }
+}
@@ -0,0 +1,408 @@
+package com.project.OnlineBookStore.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One immutable, memory-mapped segment of the content index. Layout (big endian):
+ * <pre>
+ * header   magic, version, docCount, termCount, offsets of the sections below, token total
+ * docs     per doc: material id, text offset, source length, text length, token count, flags
+ * terms    per term, sorted (plus an end sentinel): term bytes offset, doc frequency, postings offset
+ * bytes    UTF-8 of the terms
+ * postings per term: varint doc delta and varint term frequency per doc
+ * text     per doc: UTF-8 source tag (the stored filename) followed by the extracted text
+ * </pre>
+ * Nothing is copied to the heap when opening: lookups binary search the term
+ * table and read postings and text straight from the mapping.
+ */
+final class ContentSegment {
+
+    static final int FLAG_DELETED = 1;
+
+    private static final int MAGIC = 0x43494458; // "CIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int DOC_BYTES = 28;
+    private static final int TERM_BYTES = 16;
+
+    private final String name;
+    private final long generation;
+    private final MappedByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final int docsOffset;
+    private final int termsOffset;
+    private final int termBytesOffset;
+    private final int postingsOffset;
+    private final int textOffset;
+    private final long tokenCount;
+    private final long sizeBytes;
+
+    private ContentSegment(String name, long generation, MappedByteBuffer buffer, long sizeBytes) {
+        this.name = name;
+        this.generation = generation;
+        this.buffer = buffer;
+        this.sizeBytes = sizeBytes;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a content index segment: " + name);
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.docsOffset = buffer.getInt(16);
+        this.termsOffset = buffer.getInt(20);
+        this.termBytesOffset = buffer.getInt(24);
+        this.postingsOffset = buffer.getInt(28);
+        this.textOffset = buffer.getInt(32);
+        this.tokenCount = buffer.getLong(36);
+    }
+
+    static ContentSegment open(Path file, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // the mapping stays valid after the channel is closed
+            return new ContentSegment(file.getFileName().toString(), generation,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, size), size);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    long sizeBytes() {
+        return sizeBytes;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    long tokenCount() {
+        return tokenCount;
+    }
+
+    long materialId(int doc) {
+        return buffer.getLong(docsOffset + doc * DOC_BYTES);
+    }
+
+    boolean deleted(int doc) {
+        return (buffer.getInt(docsOffset + doc * DOC_BYTES + 24) & FLAG_DELETED) != 0;
+    }
+
+    int tokens(int doc) {
+        return buffer.getInt(docsOffset + doc * DOC_BYTES + 20);
+    }
+
+    String source(int doc) {
+        int entry = docsOffset + doc * DOC_BYTES;
+        return utf8(textOffset + buffer.getInt(entry + 8), buffer.getInt(entry + 12));
+    }
+
+    int textLength(int doc) {
+        return buffer.getInt(docsOffset + doc * DOC_BYTES + 16);
+    }
+
+    /**
+     * Part of a doc's text, decoded; from and length are byte offsets, moved back
+     * to the start of a UTF-8 character where they split one
+     */
+    String textRegion(int doc, int from, int length) {
+        int entry = docsOffset + doc * DOC_BYTES;
+        int start = textOffset + buffer.getInt(entry + 8) + buffer.getInt(entry + 12);
+        int textEnd = start + buffer.getInt(entry + 16);
+        int regionStart = characterStart(start + from, start);
+        int regionEnd = Math.min(textEnd, start + from + length);
+        if (regionEnd < textEnd) {
+            regionEnd = characterStart(regionEnd, regionStart);
+        }
+        return utf8(regionStart, regionEnd - regionStart);
+    }
+
+    // Raw source tag and text of a doc, for copying into a merged segment
+    byte[] storedBytes(int doc) {
+        int entry = docsOffset + doc * DOC_BYTES;
+        byte[] bytes = new byte[buffer.getInt(entry + 12) + buffer.getInt(entry + 16)];
+        buffer.get(textOffset + buffer.getInt(entry + 8), bytes);
+        return bytes;
+    }
+
+    int sourceLength(int doc) {
+        return buffer.getInt(docsOffset + doc * DOC_BYTES + 12);
+    }
+
+    String term(int index) {
+        int entry = termsOffset + index * TERM_BYTES;
+        int start = buffer.getInt(entry);
+        return utf8(termBytesOffset + start, buffer.getInt(entry + TERM_BYTES) - start);
+    }
+
+    int docFrequency(int index) {
+        return buffer.getInt(termsOffset + index * TERM_BYTES + 4);
+    }
+
+    // Index of the term, or -1; terms are sorted by String.compareTo
+    int findTerm(String term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = term(mid).compareTo(term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    Postings postings(int index) {
+        int entry = termsOffset + index * TERM_BYTES;
+        return new Postings(postingsOffset + (int) buffer.getLong(entry + 8), buffer.getInt(entry + 4));
+    }
+
+    private int characterStart(int offset, int min) {
+        while (offset > min && (buffer.get(offset) & 0xc0) == 0x80) {
+            offset--;
+        }
+        return offset;
+    }
+
+    private String utf8(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sequential reader of one posting list; doc() is -1 before the first next()
+     * and Integer.MAX_VALUE after the last
+     */
+    final class Postings {
+        private int position;
+        private int remaining;
+        private int doc = -1;
+        private int frequency;
+
+        private Postings(int position, int count) {
+            this.position = position;
+            this.remaining = count;
+        }
+
+        boolean next() {
+            if (remaining == 0) {
+                doc = Integer.MAX_VALUE;
+                return false;
+            }
+            remaining--;
+            doc = (doc < 0 ? 0 : doc) + readVarint();
+            frequency = readVarint();
+            return true;
+        }
+
+        // Moves to the first doc at or after target
+        boolean advance(int target) {
+            while (doc < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * Streams a new segment: docs first, then terms in ascending order. Text and
+     * postings go to temporary files next to the target, so a merge never holds
+     * more than one doc's text and one posting list in memory.
+     */
+    static final class Writer implements AutoCloseable {
+
+        private final Path target;
+        private final long maxBytes;
+        private final Path textFile;
+        private final Path postingsFile;
+        private final OutputStream text;
+        private final OutputStream postings;
+        private final ByteArrayOutputStream docTable = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream termTable = new ByteArrayOutputStream();
+        private final DataOutputStream docs = new DataOutputStream(docTable);
+        private final DataOutputStream terms = new DataOutputStream(termTable);
+        private final ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream postingList = new ByteArrayOutputStream();
+        private int docCount;
+        private int termCount;
+        private long textBytes;
+        private long postingsBytes;
+        private long tokenCount;
+        private String lastTerm;
+        private int lastDoc;
+        private int termDocFrequency;
+
+        Writer(Path target, long maxBytes) throws IOException {
+            this.target = target;
+            this.maxBytes = maxBytes;
+            this.textFile = target.resolveSibling(target.getFileName() + ".text.tmp");
+            this.postingsFile = target.resolveSibling(target.getFileName() + ".postings.tmp");
+            this.text = new BufferedOutputStream(Files.newOutputStream(textFile));
+            this.postings = new BufferedOutputStream(Files.newOutputStream(postingsFile));
+        }
+
+        // Appends a doc; docs are numbered in the order they are added
+        int addDoc(long materialId, byte[] stored, int sourceLength, int tokens, boolean deleted) throws IOException {
+            docs.writeLong(materialId);
+            docs.writeInt((int) textBytes);
+            docs.writeInt(sourceLength);
+            docs.writeInt(stored.length - sourceLength);
+            docs.writeInt(tokens);
+            docs.writeInt(deleted ? FLAG_DELETED : 0);
+            text.write(stored);
+            textBytes += stored.length;
+            tokenCount += tokens;
+            checkSize();
+            return docCount++;
+        }
+
+        void startTerm(String term) {
+            if (lastTerm != null && lastTerm.compareTo(term) >= 0) {
+                throw new IllegalArgumentException("Terms must be added in ascending order");
+            }
+            lastTerm = term;
+            lastDoc = 0;
+            termDocFrequency = 0;
+            postingList.reset();
+        }
+
+        // Docs of the current term, ascending
+        void addPosting(int doc, int frequency) {
+            writeVarint(postingList, termDocFrequency == 0 ? doc : doc - lastDoc);
+            writeVarint(postingList, frequency);
+            lastDoc = doc;
+            termDocFrequency++;
+        }
+
+        // Terms without postings are dropped
+        void finishTerm() throws IOException {
+            if (termDocFrequency == 0) {
+                return;
+            }
+            writeTermEntry(termDocFrequency);
+            termBytes.writeBytes(lastTerm.getBytes(StandardCharsets.UTF_8));
+            postingList.writeTo(postings);
+            postingsBytes += postingList.size();
+            termCount++;
+            checkSize();
+        }
+
+        // Writes the segment file and returns its size
+        long finish() throws IOException {
+            writeTermEntry(0); // end sentinel
+            text.close();
+            postings.close();
+            int docsOffset = HEADER_BYTES;
+            int termsOffset = docsOffset + docCount * DOC_BYTES;
+            int termBytesOffset = termsOffset + (termCount + 1) * TERM_BYTES;
+            int postingsOffset = termBytesOffset + termBytes.size();
+            int textOffset = Math.toIntExact(postingsOffset + postingsBytes);
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(docCount).putInt(termCount)
+                        .putInt(docsOffset).putInt(termsOffset).putInt(termBytesOffset).putInt(postingsOffset)
+                        .putInt(textOffset).putLong(tokenCount).rewind(); // padded to HEADER_BYTES
+                out.write(header);
+                out.write(ByteBuffer.wrap(docTable.toByteArray()));
+                out.write(ByteBuffer.wrap(termTable.toByteArray()));
+                out.write(ByteBuffer.wrap(termBytes.toByteArray()));
+                append(out, postingsFile);
+                append(out, textFile);
+                out.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            return Files.size(target);
+        }
+
+        @Override
+        public void close() throws IOException {
+            text.close();
+            postings.close();
+            Files.deleteIfExists(textFile);
+            Files.deleteIfExists(postingsFile);
+            Files.deleteIfExists(target.resolveSibling(target.getFileName() + ".tmp"));
+        }
+
+        private void writeTermEntry(int docFrequency) throws IOException {
+            terms.writeInt(termBytes.size());
+            terms.writeInt(docFrequency);
+            terms.writeLong(postingsBytes);
+        }
+
+        // A segment is mapped as one buffer, so it must stay below 2 GB
+        private void checkSize() {
+            if (HEADER_BYTES + (long) docCount * DOC_BYTES + (long) termCount * TERM_BYTES + termBytes.size()
+                    + postingsBytes + textBytes > maxBytes) {
+                throw new IllegalStateException("Content index segment would exceed " + maxBytes + " bytes");
+            }
+        }
+
+        private static void append(FileChannel out, Path file) throws IOException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = in.size();
+                for (long done = 0; done < size; ) {
+                    done += in.transferTo(done, size - done, out);
+                }
+            }
+        }
+
+        private static void writeVarint(ByteArrayOutputStream out, int value) {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+}
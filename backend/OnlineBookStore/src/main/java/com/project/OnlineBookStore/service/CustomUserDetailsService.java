@@ -9,7 +9,7 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository repo;
 
@@ -28,4 +28,16 @@ public class CustomUserDetailsService implements UserDetailsService {
                 List.of(new SimpleGrantedAuthority(u.getRole().name()))
         );
     }
+
+    // Called by Spring Security after a successful login when the stored hash is due for an upgrade
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User u = repo.findByEmail(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        u.setPassword(newPassword);
+        repo.save(u);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 }
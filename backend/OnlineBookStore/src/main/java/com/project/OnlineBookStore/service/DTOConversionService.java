@@ -12,6 +12,12 @@ import org.springframework.stereotype.Service;
 @Service
 public class DTOConversionService {
 
+    private final MaterialCounters materialCounters;
+
+    public DTOConversionService(MaterialCounters materialCounters) {
+        this.materialCounters = materialCounters;
+    }
+
     public MaterialDTO convertToMaterialDTO(Material material, boolean purchased) {
         MaterialDTO dto = new MaterialDTO();
         dto.setId(material.getId());
@@ -26,6 +32,16 @@ public class DTOConversionService {
         return dto;
     }
 
+    // Single material with its live download and view counts; listings leave them out
+    // so that counting does not change their ETags
+    public MaterialDTO convertToMaterialDetailDTO(Material material, boolean purchased) {
+        MaterialDTO dto = convertToMaterialDTO(material, purchased);
+        MaterialCounters.Counts counts = materialCounters.get(material.getId());
+        dto.setDownloads(counts.downloads());
+        dto.setViews(counts.views());
+        return dto;
+    }
+
     public UserDTO convUserDTO(User user) {
         UserDTO dto = new UserDTO();
         dto.setId(user.getId());
@@ -0,0 +1,147 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.project.OnlineBookStore.dto.PurchaseDTO;
+import com.project.OnlineBookStore.model.PurchaseStatus;
+import com.project.OnlineBookStore.model.User;
+import com.project.OnlineBookStore.repository.UserRepository;
+import com.project.OnlineBookStore.util.QueryStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Everything the user dashboard needs on load, gathered in one request:
+ * profile, owned library, a catalog page, purchase history and payment config.
+ * The independent lookups run in parallel on a bounded pool; when the pool is
+ * saturated the request thread runs the task itself instead of queueing
+ * without limit. The catalog page reuses the purchase history for ownership,
+ * so the whole response costs two queries.
+ */
+@Service
+public class DashboardBootstrapService {
+
+    private final UserRepository userRepository;
+    private final PurchaseService purchaseService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final DTOConversionService dtoConversionService;
+    private final String stripePublicKey;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    public DashboardBootstrapService(UserRepository userRepository, PurchaseService purchaseService,
+                                     CatalogSnapshotService catalogSnapshotService,
+                                     DTOConversionService dtoConversionService,
+                                     @Value("${stripe.public.key}") String stripePublicKey,
+                                     @Value("${app.bootstrap.threads:8}") int threads,
+                                     @Value("${app.bootstrap.queue-capacity:64}") int queueCapacity,
+                                     @Value("${app.bootstrap.timeout-ms:5000}") long timeoutMillis) {
+        this.userRepository = userRepository;
+        this.purchaseService = purchaseService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.dtoConversionService = dtoConversionService;
+        this.stripePublicKey = stripePublicKey;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "bootstrap-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param userId taken from the caller's JWT; tasks never read the security context
+     * @param page zero-based catalog page
+     * @param size catalog page size
+     * @throws TimeoutException when the parts are not ready within app.bootstrap.timeout-ms
+     */
+    public Map<String, Object> bootstrap(Long userId, int page, int size) throws TimeoutException {
+        CompletableFuture<Map<String, Object>> profile = async(() -> profile(userId));
+        // converted on the worker: the entity graph already loaded user and material, nothing is fetched lazily
+        CompletableFuture<List<PurchaseDTO>> purchases = async(() -> purchaseService.getUserPurchases(userId).stream()
+                .map(dtoConversionService::convertToPurchaseDTO)
+                .toList());
+        CompletableFuture<Map<String, Object>> catalog = purchases.thenApply(history -> catalogPage(history, page, size));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            CompletableFuture.allOf(profile, catalog).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            List<PurchaseDTO> history = purchases.join();
+            result.put("profile", profile.join());
+            result.put("library", history.stream().filter(p -> p.getStatus() == PurchaseStatus.DONE).toList());
+            result.put("catalog", catalog.join());
+            result.put("purchases", history);
+            result.put("payment", Map.of("publishableKey", stripePublicKey));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading dashboard", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e;
+            while ((cause instanceof ExecutionException || cause instanceof CompletionException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        } finally {
+            profile.cancel(false);
+            catalog.cancel(false);
+        }
+        return result;
+    }
+
+    private Map<String, Object> profile(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("email", user.getEmail());
+        profile.put("fullName", user.getFullName());
+        profile.put("role", user.getRole().name());
+        return profile;
+    }
+
+    // Ownership follows hasUserPurchased: only completed purchases count
+    private Map<String, Object> catalogPage(List<PurchaseDTO> history, int page, int size) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        BitSet owned = snapshot.ownership(history.stream()
+                .filter(p -> p.getStatus() == PurchaseStatus.DONE)
+                .map(p -> p.getMaterial().getId())
+                .toList());
+        int from = (int) Math.min((long) page * size, snapshot.size());
+        int to = Math.min(from + size, snapshot.size());
+        Map<String, Object> catalog = new LinkedHashMap<>();
+        catalog.put("page", page);
+        catalog.put("size", size);
+        catalog.put("total", snapshot.size());
+        catalog.put("items", new RawValue(new String(snapshot.render(owned, from, to), StandardCharsets.UTF_8)));
+        return catalog;
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(QueryStats.propagate(task), executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
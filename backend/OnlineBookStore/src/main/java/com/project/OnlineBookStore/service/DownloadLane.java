@@ -0,0 +1,260 @@
+package com.project.OnlineBookStore.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The lane bulk transfers (material downloads and bundles) are written on.
+ * Admitting a transfer moves the async processing of that request, and only
+ * that request, onto the lane's own "download" threads with the lane's timeout,
+ * so slow clients tie up the lane, never Tomcat's workers or the executor of
+ * other async endpoints. Transfers are admitted before the response starts: at
+ * most threads + queue-capacity in total (503 beyond that) and per-user per user
+ * (429). With bytes-per-second above 0 every transfer is paced to that rate.
+ */
+@Service
+public class DownloadLane {
+
+    private static final String TICKET_ATTRIBUTE = DownloadLane.class.getName() + ".TICKET";
+
+    // Every lane slot is taken; the client should retry shortly
+    public static class Full extends RuntimeException {
+        public Full() {
+            super("Too many downloads in progress, please retry shortly");
+        }
+    }
+
+    // The user already has per-user downloads running
+    public static class TooManyDownloads extends RuntimeException {
+        public TooManyDownloads() {
+            super("Too many downloads in progress for this account");
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Semaphore slots;
+    private final int perUser;
+    private final long bytesPerSecond;
+    private final long timeoutMillis;
+    private final Map<Long, Integer> transfersPerUser = new ConcurrentHashMap<>();
+    private final MetricsService metricsService;
+
+    public DownloadLane(MetricsService metricsService,
+                        @Value("${app.download.lane.threads:16}") int threads,
+                        @Value("${app.download.lane.queue-capacity:64}") int queueCapacity,
+                        @Value("${app.download.lane.per-user:2}") int perUser,
+                        @Value("${app.download.lane.bytes-per-second:0}") long bytesPerSecond,
+                        @Value("${app.download.lane.timeout-seconds:3600}") long timeoutSeconds) {
+        this.metricsService = metricsService;
+        this.perUser = perUser;
+        this.bytesPerSecond = bytesPerSecond;
+        this.timeoutMillis = timeoutSeconds * 1000;
+        int capacity = threads + queueCapacity;
+        this.slots = new Semaphore(capacity);
+        AtomicInteger threadIndex = new AtomicInteger();
+        // unbounded queue: admission (slots) keeps it at queue-capacity
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "download-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.taskExecutor = new TaskExecutorAdapter(executor);
+        metricsService.registerDownloadLane(slots, s -> capacity - s.availablePermits());
+    }
+
+    /**
+     * Admits a transfer; the ticket is released when the body finishes, or when
+     * the async request ends without the body having run. Called from a request,
+     * the request's streamed body is then written on the lane
+     * @throws TooManyDownloads if the user is at the per-user limit
+     * @throws Full if every lane slot is taken
+     */
+    public Ticket admit(Long userId) {
+        AtomicBoolean admitted = new AtomicBoolean();
+        transfersPerUser.compute(userId, (id, running) -> {
+            int count = running == null ? 0 : running;
+            if (count >= perUser) {
+                return running;
+            }
+            admitted.set(true);
+            return count + 1;
+        });
+        if (!admitted.get()) {
+            metricsService.recordDownloadRejected("user_limit");
+            throw new TooManyDownloads();
+        }
+        if (!slots.tryAcquire()) {
+            userDone(userId);
+            metricsService.recordDownloadRejected("lane_full");
+            throw new Full();
+        }
+        Ticket ticket = new Ticket(userId);
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request) {
+            request.setAttribute(TICKET_ATTRIBUTE, ticket, RequestAttributes.SCOPE_REQUEST);
+            onLane(WebAsyncUtils.getAsyncManager(request.getRequest()));
+        }
+        return ticket;
+    }
+
+    // The handler adapter set the application-wide executor and timeout before calling the
+    // handler; the body returned by the handler is started with whatever is set when it returns
+    private void onLane(WebAsyncManager asyncManager) {
+        asyncManager.setTaskExecutor(taskExecutor);
+        AsyncWebRequest asyncRequest = asyncManager.getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(timeoutMillis);
+        }
+        asyncManager.registerCallableInterceptor(TICKET_ATTRIBUTE, new TicketRelease());
+    }
+
+    // Paces writes to bytes-per-second, or returns out unchanged when unlimited
+    public OutputStream shape(OutputStream out) {
+        return bytesPerSecond > 0 ? new PacedOutputStream(out, bytesPerSecond) : out;
+    }
+
+    /**
+     * Releases the ticket of a request whose body never started: registered by admit()
+     * on the request's async processing (e.g. timed out while queued), and as a
+     * handler interceptor on the transfer paths for requests that failed before
+     * going async
+     */
+    public TicketRelease releaseOnCompletion() {
+        return new TicketRelease();
+    }
+
+    private void userDone(Long userId) {
+        transfersPerUser.computeIfPresent(userId, (id, running) -> running > 1 ? running - 1 : null);
+    }
+
+    public final class Ticket {
+        private static final int ADMITTED = 0;
+        private static final int STARTED = 1;
+        private static final int RELEASED = 2;
+
+        private final Long userId;
+        private final AtomicInteger state = new AtomicInteger(ADMITTED);
+
+        private Ticket(Long userId) {
+            this.userId = userId;
+        }
+
+        /**
+         * Called by the body before it writes anything
+         * @return false if the request already ended (e.g. timed out while the body was
+         * queued) and gave the slot back; the body must not write then
+         */
+        public boolean start() {
+            return state.compareAndSet(ADMITTED, STARTED);
+        }
+
+        // Called by the body once it is done, however it ended
+        public void release() {
+            if (state.getAndSet(RELEASED) != RELEASED) {
+                free();
+            }
+        }
+
+        // Called when the request ends: a started body still holds the slot and releases it itself
+        void abandon() {
+            if (state.compareAndSet(ADMITTED, RELEASED)) {
+                free();
+            }
+        }
+
+        private void free() {
+            slots.release();
+            userDone(userId);
+        }
+    }
+
+    public static final class TicketRelease implements CallableProcessingInterceptor, HandlerInterceptor {
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            if (request.getAttribute(TICKET_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Ticket ticket) {
+                ticket.abandon();
+            }
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            if (request.getAttribute(TICKET_ATTRIBUTE) instanceof Ticket ticket) {
+                ticket.abandon();
+            }
+        }
+    }
+
+    private static class PacedOutputStream extends FilterOutputStream {
+        private final long bytesPerSecond;
+        private final long startedAt = System.nanoTime();
+        private long written;
+
+        PacedOutputStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            paced(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            paced(len);
+        }
+
+        // sleeps until the bytes written so far are due at the configured rate
+        private void paced(int bytes) throws IOException {
+            written += bytes;
+            long due = startedAt + (long) (written * 1_000_000_000.0 / bytesPerSecond);
+            long waitNanos = due - System.nanoTime();
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Download interrupted");
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,301 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.model.Material;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds the responses for already authorized material downloads: single
+ * files and ZIP bundles. Both are written on the download lane (DownloadLane)
+ * when the JVM sends the bytes. For single files, with app.download.offload=none
+ * the JVM streams the file (single Range requests included). With
+ * x-accel-redirect (nginx) or x-sendfile (Apache, lighttpd) the response only
+ * carries headers: the fronting server intercepts the internal-redirect header
+ * and sends the file itself with sendfile.
+ */
+@Service
+public class DownloadService {
+
+    public static final String X_ACCEL_REDIRECT = "X-Accel-Redirect";
+    public static final String X_SENDFILE = "X-Sendfile";
+
+    public enum OffloadMode {
+        NONE, X_ACCEL_REDIRECT, X_SENDFILE
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadService.class);
+
+    // None of the materials asked for can be put in a bundle (none selected or owned, or no file present)
+    public static class EmptyBundle extends RuntimeException {
+        public EmptyBundle() {
+            super("None of the selected materials can be downloaded");
+        }
+    }
+    private static final int BUNDLE_BUFFER_SIZE = 64 * 1024;
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private final FileStorageService fileStorageService;
+    private final MetricsService metricsService;
+    private final DownloadLane downloadLane;
+    private final OffloadMode offloadMode;
+    private final String accelPrefix;
+
+    public DownloadService(FileStorageService fileStorageService, MetricsService metricsService,
+                           DownloadLane downloadLane,
+                           @Value("${app.download.offload:none}") String offloadMode,
+                           @Value("${app.download.accel-prefix:/protected-files/}") String accelPrefix) {
+        this.fileStorageService = fileStorageService;
+        this.metricsService = metricsService;
+        this.downloadLane = downloadLane;
+        this.offloadMode = parseMode(offloadMode);
+        this.accelPrefix = accelPrefix.endsWith("/") ? accelPrefix : accelPrefix + "/";
+    }
+
+    public OffloadMode getOffloadMode() {
+        return offloadMode;
+    }
+
+    /**
+     * @param filename stored filename (FileStorageService)
+     * @param cacheControl Cache-Control for the file, or null for the default
+     * @param range Range header of the request, or null
+     * @param userId the downloading user, for the download lane's per-user limit
+     * @param sample started by the caller before authorization; stopped here, or once the file is sent
+     */
+    public ResponseEntity<StreamingResponseBody> serve(String filename, CacheControl cacheControl, String range,
+                                                       Long userId, Timer.Sample sample) throws IOException {
+        Path path = fileStorageService.load(filename);
+        if (!Files.isRegularFile(path)) {
+            metricsService.recordDownload(sample, "not_found", 0);
+            return ResponseEntity.notFound().build();
+        }
+        long size = Files.size(path);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDisposition(ContentDisposition.attachment().filename(filename).build());
+        if (cacheControl != null) {
+            headers.setCacheControl(cacheControl);
+        }
+        switch (offloadMode) {
+            case X_ACCEL_REDIRECT -> headers.set(X_ACCEL_REDIRECT,
+                    accelPrefix + UriUtils.encodePathSegment(filename, StandardCharsets.UTF_8));
+            case X_SENDFILE -> headers.set(X_SENDFILE, path.toAbsolutePath().toString());
+            case NONE -> {
+                return stream(path, size, range, userId, headers, sample);
+            }
+        }
+        metricsService.recordDownload(sample, "offloaded", size);
+        return ResponseEntity.ok().headers(headers).build();
+    }
+
+    // The whole file, or the single byte range asked for, written on the download lane
+    private ResponseEntity<StreamingResponseBody> stream(Path path, long size, String range, Long userId,
+                                                         HttpHeaders headers, Timer.Sample sample) {
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        HttpStatus status = HttpStatus.OK;
+        long start = 0;
+        long length = size;
+        HttpRange requested = singleRange(range);
+        if (requested != null) {
+            start = requested.getRangeStart(size);
+            long end = requested.getRangeEnd(size);
+            if (start >= size || start > end) {
+                metricsService.recordDownload(sample, "range_not_satisfiable", 0);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            length = end - start + 1;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        headers.setContentLength(length);
+
+        DownloadLane.Ticket ticket = downloadLane.admit(userId);
+        long offset = start;
+        long count = length;
+        StreamingResponseBody body = out -> {
+            if (!ticket.start()) {
+                metricsService.recordDownload(sample, "abandoned", 0);
+                return;
+            }
+            long sent = 0;
+            try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+                channel.position(offset);
+                OutputStream shaped = downloadLane.shape(out);
+                ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+                while (sent < count) {
+                    buffer.clear().limit((int) Math.min(TRANSFER_BUFFER_SIZE, count - sent));
+                    int n = channel.read(buffer);
+                    if (n < 0) {
+                        throw new IOException("File shrank while downloading: " + path.getFileName());
+                    }
+                    shaped.write(buffer.array(), 0, n);
+                    sent += n;
+                }
+                shaped.flush();
+            } catch (IOException e) {
+                metricsService.recordDownload(sample, "aborted", sent);
+                throw e;
+            } finally {
+                ticket.release();
+            }
+            metricsService.recordDownload(sample, "success", sent);
+        };
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
+
+    // Malformed and multi-range headers are answered with the whole file
+    private static HttpRange singleRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Streams the materials as one ZIP without a temp file. Entries are STORED
+     * (PDFs are already compressed), which needs the CRC-32 before the data:
+     * each file is read once for the checksum and once for the copy, both
+     * sequentially through one fixed-size buffer, so memory stays constant
+     * whatever the bundle size. Files that no longer exist are left out.
+     * Written on the download lane and counted against the user's downloads.
+     * @param sample stopped once the last byte is written
+     * @throws EmptyBundle if no material is left to put in the bundle
+     */
+    public ResponseEntity<StreamingResponseBody> bundle(List<Material> materials, String bundleName, Long userId,
+                                                        Timer.Sample sample) {
+        List<BundleEntry> entries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Material material : materials) {
+            Path path = fileStorageService.load(material.getFilename());
+            if (Files.isRegularFile(path)) {
+                entries.add(new BundleEntry(uniqueEntryName(material, names), path));
+            } else {
+                log.warn("File {} of material {} is missing, leaving it out of the bundle", material.getFilename(), material.getId());
+            }
+        }
+        if (entries.isEmpty()) {
+            metricsService.recordDownload(sample, "not_found", 0);
+            throw new EmptyBundle();
+        }
+        DownloadLane.Ticket ticket = downloadLane.admit(userId);
+        StreamingResponseBody body = out -> {
+            if (!ticket.start()) {
+                metricsService.recordDownload(sample, "bundle_abandoned", 0);
+                return;
+            }
+            long total = 0;
+            try {
+                ZipOutputStream zip = new ZipOutputStream(downloadLane.shape(out));
+                zip.setMethod(ZipOutputStream.STORED);
+                byte[] buffer = new byte[BUNDLE_BUFFER_SIZE];
+                for (BundleEntry entry : entries) {
+                    total += writeStoredEntry(zip, entry, buffer);
+                }
+                // finish, not close: the servlet stream belongs to the container
+                zip.finish();
+                zip.flush();
+            } catch (IOException e) {
+                metricsService.recordDownload(sample, "bundle_aborted", total);
+                throw e;
+            } finally {
+                ticket.release();
+            }
+            metricsService.recordDownload(sample, "bundle", total);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(bundleName).build().toString())
+                .body(body);
+    }
+
+    private static long writeStoredEntry(ZipOutputStream zip, BundleEntry entry, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = Files.newInputStream(entry.path())) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                crc.update(buffer, 0, n);
+                size += n;
+            }
+        }
+        ZipEntry zipEntry = new ZipEntry(entry.name());
+        zipEntry.setMethod(ZipEntry.STORED);
+        zipEntry.setSize(size);
+        zipEntry.setCompressedSize(size);
+        zipEntry.setCrc(crc.getValue());
+        zipEntry.setLastModifiedTime(Files.getLastModifiedTime(entry.path()));
+        zip.putNextEntry(zipEntry);
+        long copied = 0;
+        try (InputStream in = Files.newInputStream(entry.path())) {
+            for (int n; (n = in.read(buffer)) > 0 && copied < size; ) {
+                int length = (int) Math.min(n, size - copied);
+                zip.write(buffer, 0, length);
+                copied += length;
+            }
+        }
+        if (copied != size) {
+            throw new IOException("File changed while bundling: " + entry.path().getFileName());
+        }
+        zip.closeEntry();
+        return size;
+    }
+
+    // "<title>.pdf", with characters that are unsafe in file names replaced; duplicates get the material id
+    private static String uniqueEntryName(Material material, Set<String> used) {
+        String base = material.getTitle() == null || material.getTitle().isBlank()
+                ? "material-" + material.getId()
+                : material.getTitle().replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        String name = base + ".pdf";
+        if (!used.add(name)) {
+            name = base + " (" + material.getId() + ").pdf";
+            used.add(name);
+        }
+        return name;
+    }
+
+    private record BundleEntry(String name, Path path) {
+    }
+
+    private static OffloadMode parseMode(String mode) {
+        try {
+            return OffloadMode.valueOf(mode.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("app.download.offload must be none, x-accel-redirect or x-sendfile, was: " + mode);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.MaterialDTO;
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.event.PurchaseStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Server-sent event hub for the dashboards. Events are serialized once and
+ * offered to a bounded queue per client; publishers only enqueue, they never
+ * write to a connection. Each queue is drained on a pool of writer threads,
+ * one drain at a time per client; heartbeats and the write deadline run on a
+ * separate timer thread that never writes either.
+ *
+ * A client is disconnected (it reconnects and refetches its lists) rather than
+ * silently missing events when its queue overflows, or when a single write
+ * takes longer than write-timeout-ms. A write blocked on a stalled connection
+ * cannot be cancelled: its writer thread stays busy until the container's
+ * write timeout fails it, but the evicted client gets no further events, so it
+ * never holds more than that one thread.
+ *
+ * Event names: "material" (CREATED/UPDATED/DELETED, to everyone) and
+ * "purchase" (status transitions, to the buyer and to admins).
+ */
+@Service
+public class EventStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventStreamService.class);
+
+    private final DTOConversionService dtoConversionService;
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+    private final int clientBuffer;
+    private final long writeTimeoutNanos;
+    private final Supplier<SseEmitter> emitters;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ScheduledExecutorService timer;
+    private final ThreadPoolExecutor writers;
+
+    @Autowired
+    public EventStreamService(DTOConversionService dtoConversionService, ObjectMapper objectMapper,
+                              MetricsService metricsService,
+                              @Value("${app.events.client-buffer:256}") int clientBuffer,
+                              @Value("${app.events.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${app.events.heartbeat-seconds:25}") long heartbeatSeconds,
+                              @Value("${app.events.writer-threads:8}") int writerThreads,
+                              @Value("${app.events.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        this(dtoConversionService, objectMapper, metricsService, clientBuffer, heartbeatSeconds, writerThreads,
+                writeTimeoutMillis, () -> new SseEmitter(timeoutMillis));
+    }
+
+    EventStreamService(DTOConversionService dtoConversionService, ObjectMapper objectMapper,
+                       MetricsService metricsService, int clientBuffer, long heartbeatSeconds, int writerThreads,
+                       long writeTimeoutMillis, Supplier<SseEmitter> emitters) {
+        this.dtoConversionService = dtoConversionService;
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+        this.clientBuffer = clientBuffer;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.emitters = emitters;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "sse-write-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.writers.allowCoreThreadTimeOut(true);
+        // heartbeats keep proxies from closing idle streams and reveal dead connections
+        timer.scheduleAtFixedRate(() -> fanOut(OutboundEvent.HEARTBEAT, client -> true),
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long sweepMillis = Math.max(1, Math.min(1000, writeTimeoutMillis / 2));
+        timer.scheduleWithFixedDelay(this::evictStalled, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        metricsService.registerEventStreamClients(clients);
+    }
+
+    public SseEmitter subscribe(Long userId, boolean admin) {
+        SseEmitter emitter = emitters.get();
+        Client client = new Client(userId, admin, emitter, new ArrayBlockingQueue<>(clientBuffer));
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(e -> clients.remove(client));
+        clients.add(client);
+        enqueue(client, OutboundEvent.CONNECTED);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", event.type());
+        payload.put("materialId", event.materialId());
+        if (event.material() != null) {
+            // ownership is per user; clients keep their own purchased flag
+            MaterialDTO dto = dtoConversionService.convertToMaterialDTO(event.material(), false);
+            dto.setPurchased(null);
+            payload.put("material", dto);
+        }
+        fanOut(event("material", payload), client -> true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseStatusChanged(PurchaseStatusChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("purchaseId", event.purchaseId());
+        payload.put("materialId", event.materialId());
+        payload.put("status", event.status());
+        fanOut(event("purchase", payload), client -> client.admin() || client.userId().equals(event.userId()));
+    }
+
+    private OutboundEvent event(String name, Object payload) {
+        try {
+            return new OutboundEvent(sequence.incrementAndGet(), name, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + name + " event", e);
+        }
+    }
+
+    private void fanOut(OutboundEvent event, Predicate<Client> recipients) {
+        for (Client client : clients) {
+            if (recipients.test(client)) {
+                enqueue(client, event);
+            }
+        }
+    }
+
+    private void enqueue(Client client, OutboundEvent event) {
+        if (!client.queue().offer(event)) {
+            log.debug("Event stream buffer full for user {}, disconnecting", client.userId());
+            evict(client, "buffer_full");
+            return;
+        }
+        if (client.draining().compareAndSet(false, true)) {
+            writers.execute(() -> drain(client));
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            OutboundEvent event;
+            while (!client.evicted().get() && (event = client.queue().poll()) != null) {
+                client.writingSince().set(System.nanoTime());
+                try {
+                    client.emitter().send(event.toSse());
+                } finally {
+                    client.writingSince().set(0);
+                }
+            }
+            if (client.evicted().get()) {
+                client.emitter().complete();
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // client went away or the emitter already completed
+            client.evicted().set(true);
+            clients.remove(client);
+            client.queue().clear();
+            return;
+        } finally {
+            client.draining().set(false);
+        }
+        // an event or an eviction may have come after the last check but before draining was reset
+        if ((client.evicted().get() || !client.queue().isEmpty()) && client.draining().compareAndSet(false, true)) {
+            writers.execute(() -> drain(client));
+        }
+    }
+
+    /**
+     * Stops sending to the client and completes its emitter. Completing takes the
+     * emitter's lock, which a stalled write holds, so it is left to the client's
+     * drain: the current one if a drain is running, otherwise a new one
+     */
+    private void evict(Client client, String reason) {
+        if (!client.evicted().compareAndSet(false, true)) {
+            return;
+        }
+        clients.remove(client);
+        client.queue().clear();
+        metricsService.recordEventStreamEviction(reason);
+        if (client.draining().compareAndSet(false, true)) {
+            writers.execute(() -> drain(client));
+        }
+    }
+
+    private void evictStalled() {
+        long now = System.nanoTime();
+        for (Client client : clients) {
+            long since = client.writingSince().get();
+            if (since != 0 && now - since > writeTimeoutNanos) {
+                log.debug("Event stream write stalled for user {}, disconnecting", client.userId());
+                evict(client, "write_timeout");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        writers.shutdownNow();
+        for (Client client : clients) {
+            clients.remove(client);
+            client.emitter().complete();
+        }
+    }
+
+    private record Client(Long userId, boolean admin, SseEmitter emitter, BlockingQueue<OutboundEvent> queue,
+                          AtomicBoolean draining, AtomicBoolean evicted, AtomicLong writingSince) {
+
+        Client(Long userId, boolean admin, SseEmitter emitter, BlockingQueue<OutboundEvent> queue) {
+            this(userId, admin, emitter, queue, new AtomicBoolean(), new AtomicBoolean(), new AtomicLong());
+        }
+
+        // identity semantics: two tabs of the same user are different clients
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    private record OutboundEvent(long id, String name, String json) {
+
+        static final OutboundEvent CONNECTED = new OutboundEvent(0, null, "connected");
+        static final OutboundEvent HEARTBEAT = new OutboundEvent(0, null, "heartbeat");
+
+        SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment(json);
+            }
+            return SseEmitter.event().id(Long.toString(id)).name(name).data(json, MediaType.APPLICATION_JSON);
+        }
+    }
+}
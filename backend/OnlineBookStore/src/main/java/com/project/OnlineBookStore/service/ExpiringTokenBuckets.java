@@ -0,0 +1,97 @@
+package com.project.OnlineBookStore.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed exactly, for limits where sharing a bucket would let one
+ * key lock out others (accounts). A bucket is dropped once it has refilled, so
+ * only keys with recent attempts take memory, and at most maxKeys are kept:
+ * beyond that the least recently used bucket is dropped, which only forgives
+ * that key's earlier attempts.
+ *
+ * Buckets hold up to burst tokens and refill continuously at perMinute tokens
+ * a minute, like StripedTokenBuckets.
+ */
+final class ExpiringTokenBuckets {
+
+    private static final class Bucket {
+        double tokens;
+        long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long refillNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    // access order: least recently updated first
+    private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+    ExpiringTokenBuckets(int maxKeys, int burst, double perMinute, LongSupplier nanoClock) {
+        this.capacity = burst;
+        this.tokensPerNano = perMinute / 60_000_000_000.0;
+        this.refillNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from the key's bucket
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    synchronized long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        expire(now);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket(capacity, now);
+            buckets.put(key, bucket);
+            if (buckets.size() > maxKeys) {
+                Iterator<Map.Entry<String, Bucket>> eldest = buckets.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        } else {
+            refill(bucket, now);
+        }
+        if (bucket.tokens >= 1) {
+            bucket.tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+    }
+
+    // Gives back a token taken by tryAcquire; a bucket that was dropped meanwhile is full already
+    synchronized void release(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            refill(bucket, nanoClock.getAsLong());
+            bucket.tokens = Math.min(capacity, bucket.tokens + 1);
+        }
+    }
+
+    synchronized int size() {
+        return buckets.size();
+    }
+
+    private void refill(Bucket bucket, long now) {
+        bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) * tokensPerNano);
+        bucket.updatedAt = now;
+    }
+
+    // Buckets untouched for a full refill period are full again and can be forgotten
+    private void expire(long now) {
+        Iterator<Bucket> oldestFirst = buckets.values().iterator();
+        while (oldestFirst.hasNext() && now - oldestFirst.next().updatedAt >= refillNanos) {
+            oldestFirst.remove();
+        }
+    }
+}
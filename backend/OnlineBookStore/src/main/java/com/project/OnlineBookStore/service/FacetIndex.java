@@ -0,0 +1,289 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.model.Material;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Immutable facet index over the catalog: every material gets a slot, and
+ * every value of university, faculty, student year and course module has a
+ * BitSet of the slots carrying it. Counts for a selection are BitSet
+ * intersections; values match ignoring case. Changes produce a new index
+ * that shares every BitSet the change does not touch; a batch of changes
+ * (with(Map)) costs one copy of the id maps, however many materials it holds.
+ */
+public final class FacetIndex {
+
+    public enum Facet {
+        UNIVERSITY("university", Material::getUniversity),
+        FACULTY("faculty", Material::getFaculty),
+        STUDENT_YEAR("studentYear", material -> material.getStudentYear() == null ? null : material.getStudentYear().toString()),
+        COURSE_MODULE("courseModule", Material::getCourseModule);
+
+        private final String parameter;
+        private final Function<Material, String> accessor;
+
+        Facet(String parameter, Function<Material, String> accessor) {
+            this.parameter = parameter;
+            this.accessor = accessor;
+        }
+
+        public String getParameter() {
+            return parameter;
+        }
+
+        public static Facet fromParameter(String parameter) {
+            for (Facet facet : values()) {
+                if (facet.parameter.equals(parameter)) {
+                    return facet;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record FacetValue(String label, BitSet slots) {
+    }
+
+    private final Map<Long, Integer> slots;          // material id -> slot
+    private long[] ids;                              // slot -> material id, 0 if free; grows on new slots only
+    private final BitSet live;
+    private final Map<Long, String[]> keys;          // material id -> normalized value per facet
+    private final EnumMap<Facet, Map<String, FacetValue>> values;
+    private Set<BitSet> copied;                      // while a copy is changed: BitSets it owns already
+
+    private FacetIndex(Map<Long, Integer> slots, long[] ids, BitSet live, Map<Long, String[]> keys,
+                       EnumMap<Facet, Map<String, FacetValue>> values) {
+        this.slots = slots;
+        this.ids = ids;
+        this.live = live;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public static FacetIndex empty() {
+        EnumMap<Facet, Map<String, FacetValue>> values = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            values.put(facet, new HashMap<>());
+        }
+        return new FacetIndex(new HashMap<>(), new long[0], new BitSet(), new HashMap<>(), values);
+    }
+
+    public static FacetIndex build(Collection<Material> materials) {
+        FacetIndex index = empty();
+        index.ids = new long[materials.size()];
+        for (Material material : materials) {
+            index.put(material);
+        }
+        return index;
+    }
+
+    public int size() {
+        return live.cardinality();
+    }
+
+    // Slots allocated, live or free
+    int capacity() {
+        return ids.length;
+    }
+
+    // New index with the material added, or its facet values replaced
+    public FacetIndex with(Material material) {
+        Map<Long, Material> change = new HashMap<>();
+        change.put(material.getId(), material);
+        return with(change);
+    }
+
+    public FacetIndex without(Long materialId) {
+        Map<Long, Material> change = new HashMap<>();
+        change.put(materialId, null);
+        return with(change);
+    }
+
+    /**
+     * New index with a batch of changes applied
+     * @param changes material by id, or null for a removed material
+     */
+    public FacetIndex with(Map<Long, Material> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        FacetIndex next = copy();
+        changes.forEach((id, material) -> {
+            if (material != null) {
+                next.put(material);
+            } else {
+                next.remove(id);
+            }
+        });
+        next.copied = null;
+        return next;
+    }
+
+    /**
+     * Counts per value of every facet for the selection. Values selected within
+     * one facet are alternatives (OR), facets are combined with AND; the counts
+     * of a facet apply the selections of all other facets, so they show what
+     * each value would add or switch to. Values without matches are left out
+     * unless selected.
+     * @param selected chosen values per facet; facets without an entry are not filtered
+     */
+    public Result count(Map<Facet, Set<String>> selected) {
+        EnumMap<Facet, BitSet> filters = filters(selected);
+        BitSet matching = intersect(filters, null);
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        for (Facet facet : Facet.values()) {
+            BitSet others = intersect(filters, facet);
+            Map<String, Integer> facetCounts = new TreeMap<>();
+            Set<String> chosen = selected.getOrDefault(facet, Set.of());
+            values.get(facet).forEach((key, value) -> {
+                BitSet hits = (BitSet) value.slots().clone();
+                hits.and(others);
+                int count = hits.cardinality();
+                if (count > 0 || chosen.stream().anyMatch(choice -> normalize(choice).equals(key))) {
+                    facetCounts.put(value.label(), count);
+                }
+            });
+            counts.put(facet.getParameter(), facetCounts);
+        }
+        return new Result(matching.cardinality(), counts);
+    }
+
+    // Ids of the materials matching the selection, ascending
+    public long[] matchingIds(Map<Facet, Set<String>> selected) {
+        BitSet matching = intersect(filters(selected), null);
+        long[] result = new long[matching.cardinality()];
+        int i = 0;
+        for (int slot = matching.nextSetBit(0); slot >= 0; slot = matching.nextSetBit(slot + 1)) {
+            result[i++] = ids[slot];
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    public record Result(int total, Map<String, Map<String, Integer>> facets) {
+    }
+
+    private EnumMap<Facet, BitSet> filters(Map<Facet, Set<String>> selected) {
+        EnumMap<Facet, BitSet> filters = new EnumMap<>(Facet.class);
+        selected.forEach((facet, chosen) -> {
+            if (chosen == null || chosen.isEmpty()) {
+                return;
+            }
+            BitSet union = new BitSet();
+            for (String value : chosen) {
+                FacetValue facetValue = values.get(facet).get(normalize(value));
+                if (facetValue != null) {
+                    union.or(facetValue.slots());
+                }
+            }
+            filters.put(facet, union);
+        });
+        return filters;
+    }
+
+    private BitSet intersect(EnumMap<Facet, BitSet> filters, Facet except) {
+        BitSet result = (BitSet) live.clone();
+        filters.forEach((facet, filter) -> {
+            if (facet != except) {
+                result.and(filter);
+            }
+        });
+        return result;
+    }
+
+    // Mutators below only run on a fresh build() or copy(), before the index is published
+
+    private FacetIndex copy() {
+        EnumMap<Facet, Map<String, FacetValue>> copiedValues = new EnumMap<>(Facet.class);
+        values.forEach((facet, byValue) -> copiedValues.put(facet, new HashMap<>(byValue)));
+        FacetIndex next = new FacetIndex(new HashMap<>(slots), ids.clone(), (BitSet) live.clone(),
+                new HashMap<>(keys), copiedValues);
+        next.copied = Collections.newSetFromMap(new IdentityHashMap<>());
+        return next;
+    }
+
+    // The BitSet to change in place: on a copy, shared ones are cloned the first time they change
+    private BitSet writable(BitSet bits) {
+        if (copied == null || copied.contains(bits)) {
+            return bits;
+        }
+        BitSet clone = (BitSet) bits.clone();
+        copied.add(clone);
+        return clone;
+    }
+
+    private void put(Material material) {
+        Long id = material.getId();
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            slot = live.nextClearBit(0); // slots of deleted materials are reused
+            if (slot >= ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(slot + 1, ids.length + (ids.length >> 1)));
+            }
+            slots.put(id, slot);
+            ids[slot] = id;
+        } else {
+            clear(id, slot);
+        }
+        String[] materialKeys = new String[Facet.values().length];
+        for (Facet facet : Facet.values()) {
+            String label = facet.accessor.apply(material);
+            if (label == null || label.isBlank()) {
+                continue;
+            }
+            String key = normalize(label);
+            materialKeys[facet.ordinal()] = key;
+            FacetValue value = values.get(facet).get(key);
+            BitSet bits = value == null ? writable(new BitSet()) : writable(value.slots());
+            bits.set(slot);
+            values.get(facet).put(key, new FacetValue(value == null ? label.trim() : value.label(), bits));
+        }
+        keys.put(id, materialKeys);
+        live.set(slot);
+    }
+
+    private void remove(Long id) {
+        Integer slot = slots.remove(id);
+        if (slot != null) {
+            clear(id, slot);
+            keys.remove(id);
+            ids[slot] = 0;
+        }
+    }
+
+    private void clear(Long id, int slot) {
+        String[] materialKeys = keys.get(id);
+        for (Facet facet : Facet.values()) {
+            String key = materialKeys == null ? null : materialKeys[facet.ordinal()];
+            FacetValue value = key == null ? null : values.get(facet).get(key);
+            if (value == null) {
+                continue;
+            }
+            BitSet bits = writable(value.slots());
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                values.get(facet).remove(key);
+            } else {
+                values.get(facet).put(key, new FacetValue(value.label(), bits));
+            }
+        }
+        live.clear(slot);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
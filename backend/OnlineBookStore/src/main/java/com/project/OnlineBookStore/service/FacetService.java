@@ -0,0 +1,143 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Facet counts over university, faculty, student year and course module. The
+ * FacetIndex is built from the materials table once, and material changes are
+ * then applied to it instead of reloading. Changes are collected (the last one
+ * per material wins) and applied as one batch by the next read, so a bulk import
+ * costs one index copy per read rather than one per row; past REBUILD_AFTER
+ * pending changes the index is dropped and reloaded by the next read instead.
+ * Applying a change is an upsert or removal by id, so a change the initial load
+ * already saw may safely be applied again.
+ */
+@Service
+public class FacetService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetService.class);
+    private static final int REBUILD_AFTER = 1000;
+
+    private final MaterialRepository materialRepository;
+    private final PurchaseService purchaseService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final TransactionTemplate transactionTemplate;
+    private volatile FacetIndex index;
+    private final Map<Long, Material> pending = new HashMap<>(); // guarded by this; null value = removed
+    private volatile boolean changed;
+
+    public FacetService(MaterialRepository materialRepository, PurchaseService purchaseService,
+                        CatalogSnapshotService catalogSnapshotService, PlatformTransactionManager transactionManager) {
+        this.materialRepository = materialRepository;
+        this.purchaseService = purchaseService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        // read-write on purpose: the index must be loaded from the primary, not a lagging replica
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMaterialChanged(MaterialChangedEvent event) {
+        if (index == null) {
+            return; // the next current() loads the change from the table
+        }
+        if (pending.size() >= REBUILD_AFTER && !pending.containsKey(event.materialId())) {
+            // cheaper to reload once than to copy the index for this many changes
+            index = null;
+            pending.clear();
+            changed = false;
+            return;
+        }
+        pending.put(event.materialId(),
+                event.type() == MaterialChangedEvent.ChangeType.DELETED ? null : event.material());
+        changed = true;
+    }
+
+    public FacetIndex.Result counts(Map<FacetIndex.Facet, Set<String>> selected) {
+        return current().count(selected);
+    }
+
+    // Materials matching the selection as a JSON array of MaterialDTO with the user's purchase flags
+    public byte[] listing(Map<FacetIndex.Facet, Set<String>> selected, Long userId) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        // ids ascend like the snapshot, so positions come out in catalog order
+        int[] positions = Arrays.stream(current().matchingIds(selected))
+                .mapToInt(snapshot::indexOf)
+                .filter(position -> position >= 0)
+                .toArray();
+        BitSet owned = snapshot.ownership(purchaseService.getOwnedMaterialIds(userId));
+        return snapshot.render(positions, owned);
+    }
+
+    /**
+     * Selected values per facet from request parameters named like the facets;
+     * other parameters are ignored
+     */
+    public static Map<FacetIndex.Facet, Set<String>> selection(Map<String, List<String>> parameters) {
+        Map<FacetIndex.Facet, Set<String>> selected = new EnumMap<>(FacetIndex.Facet.class);
+        parameters.forEach((name, values) -> {
+            FacetIndex.Facet facet = FacetIndex.Facet.fromParameter(name);
+            if (facet == null) {
+                return;
+            }
+            Set<String> chosen = new HashSet<>();
+            values.stream().filter(value -> value != null && !value.isBlank()).forEach(chosen::add);
+            if (!chosen.isEmpty()) {
+                selected.put(facet, chosen);
+            }
+        });
+        return selected;
+    }
+
+    private FacetIndex current() {
+        FacetIndex current = index;
+        if (current == null || changed) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = load();
+                } else if (changed) {
+                    current = current.with(pending);
+                    index = current;
+                    pending.clear();
+                    changed = false;
+                }
+            }
+        }
+        return current;
+    }
+
+    private FacetIndex load() {
+        long started = System.nanoTime();
+        FacetIndex built = transactionTemplate.execute(status -> {
+            List<Material> materials = materialRepository.findAll();
+            return FacetIndex.build(materials);
+        });
+        index = built;
+        log.info("Built facet index of {} materials in {} ms", built.size(), (System.nanoTime() - started) / 1_000_000);
+        return built;
+    }
+}
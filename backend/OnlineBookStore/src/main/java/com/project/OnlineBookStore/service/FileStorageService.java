@@ -1,5 +1,6 @@
 package com.project.OnlineBookStore.service;
 
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -14,8 +15,10 @@ import java.util.UUID;
 public class FileStorageService {
 
     private final Path uploadDir;
+    private final MetricsService metricsService;
 
-    public FileStorageService(@Value("${file.upload-dir}") String uploadDir) {
+    public FileStorageService(@Value("${file.upload-dir}") String uploadDir, MetricsService metricsService) {
+        this.metricsService = metricsService;
         this.uploadDir = Paths.get(uploadDir).toAbsolutePath().normalize();
         try {
             Files.createDirectories(this.uploadDir);
@@ -25,26 +28,72 @@ public class FileStorageService {
     }
 
     public String storeFile(MultipartFile file) {
-        String original = StringUtils.cleanPath(file.getOriginalFilename());
-        // basic validation
-        if (original.contains("..")) {
-            throw new RuntimeException("Invalid file name: " + original);
-        }
-        // Ensure it's a pdf
-        if (!original.toLowerCase().endsWith(".pdf")) {
-            throw new RuntimeException("Only PDF uploads are allowed");
+        try (InputStream in = file.getInputStream()) {
+            return store(file.getOriginalFilename(), in);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file", e);
         }
+    }
 
-        String filename = UUID.randomUUID().toString() + "-" + original;
+    /**
+     * Store a PDF from a stream under a new unique filename
+     * @param originalFilename client-side name, used as suffix of the stored name
+     * @return stored filename
+     */
+    public String store(String originalFilename, InputStream in) {
+        String filename = UUID.randomUUID().toString() + "-" + validatedName(originalFilename);
         Path target = uploadDir.resolve(filename);
-        try (InputStream in = file.getInputStream()) {
-            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        Timer.Sample sample = metricsService.startTimer();
+        try {
+            long bytes = Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            metricsService.recordUpload(sample, "success", bytes);
             return filename;
         } catch (IOException e) {
+            metricsService.recordUpload(sample, "failure", 0);
             throw new RuntimeException("Failed to store file", e);
         }
     }
 
+    /**
+     * Move a completely received file (e.g. a finished chunked upload in partialDir)
+     * into the store under a new unique filename, as one atomic rename
+     * @return stored filename
+     */
+    public String adopt(Path source, String originalFilename) {
+        String filename = UUID.randomUUID().toString() + "-" + validatedName(originalFilename);
+        try {
+            Files.move(source, uploadDir.resolve(filename), StandardCopyOption.ATOMIC_MOVE);
+            return filename;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file", e);
+        }
+    }
+
+    // In-progress chunked uploads; inside the upload dir so finished files can be renamed atomically
+    public Path partialDir() {
+        Path partial = uploadDir.resolve(".partial");
+        try {
+            Files.createDirectories(partial);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create partial upload directory", e);
+        }
+        return partial;
+    }
+
+    // Validates a client-side PDF file name and returns it cleaned
+    public String validatedName(String originalFilename) {
+        String original = StringUtils.cleanPath(originalFilename);
+        // basic validation
+        if (original.contains("..") || original.contains("/")) {
+            throw new RuntimeException("Invalid file name: " + original);
+        }
+        // Ensure it's a pdf
+        if (!original.toLowerCase().endsWith(".pdf")) {
+            throw new RuntimeException("Only PDF uploads are allowed");
+        }
+        return original;
+    }
+
     public Path load(String filename) {
         return uploadDir.resolve(filename).normalize();
     }
@@ -0,0 +1,97 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.util.ClientAddressResolver;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket limits on sign-in attempts, checked before any password is
+ * hashed: one set of buckets per client address (logins and registrations) and
+ * one per account (logins). A successful login gives its account token back, so
+ * the account limit only counts failed attempts. Addresses come from
+ * ClientAddressResolver (the forwarded client behind a trusted proxy) and
+ * share striped buckets (StripedTokenBuckets); accounts are keyed exactly by
+ * normalized email (ExpiringTokenBuckets), so failures on one account never
+ * lock out another. Buckets are in memory and per instance.
+ */
+@Service
+public class LoginThrottle {
+
+    // The client or account used up its attempts; retry after retryAfterSeconds
+    public static class Throttled extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public Throttled(long retryAfterSeconds) {
+            super("Too many sign-in attempts, please retry later");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private final ExpiringTokenBuckets accounts;
+    private final StripedTokenBuckets addresses;
+    private final ClientAddressResolver clientAddressResolver;
+    private final MetricsService metricsService;
+
+    @Autowired
+    public LoginThrottle(MetricsService metricsService,
+                         ClientAddressResolver clientAddressResolver,
+                         @Value("${app.login.stripes:4096}") int stripes,
+                         @Value("${app.login.max-accounts:100000}") int maxAccounts,
+                         @Value("${app.login.account-burst:5}") int accountBurst,
+                         @Value("${app.login.account-per-minute:5}") double accountPerMinute,
+                         @Value("${app.login.ip-burst:20}") int ipBurst,
+                         @Value("${app.login.ip-per-minute:30}") double ipPerMinute) {
+        this(metricsService, clientAddressResolver, stripes, maxAccounts, accountBurst, accountPerMinute,
+                ipBurst, ipPerMinute, System::nanoTime, ThreadLocalRandom.current().nextInt());
+    }
+
+    LoginThrottle(MetricsService metricsService, ClientAddressResolver clientAddressResolver,
+                  int stripes, int maxAccounts, int accountBurst, double accountPerMinute,
+                  int ipBurst, double ipPerMinute, LongSupplier nanoClock, int seed) {
+        this.metricsService = metricsService;
+        this.clientAddressResolver = clientAddressResolver;
+        this.accounts = new ExpiringTokenBuckets(maxAccounts, accountBurst, accountPerMinute, nanoClock);
+        this.addresses = new StripedTokenBuckets(stripes, ipBurst, ipPerMinute, nanoClock, seed);
+    }
+
+    /**
+     * Counts a sign-in attempt
+     * @param account email of a login, or null for a registration
+     * @throws Throttled if the address or the account has no attempts left
+     */
+    public void acquire(HttpServletRequest request, String account) {
+        long wait = addresses.tryAcquire(clientAddressResolver.resolve(request));
+        if (wait > 0) {
+            throw throttled("ip", wait);
+        }
+        if (account != null) {
+            wait = accounts.tryAcquire(accountKey(account));
+            if (wait > 0) {
+                throw throttled("account", wait);
+            }
+        }
+    }
+
+    public void loginSucceeded(String account) {
+        accounts.release(accountKey(account));
+    }
+
+    private Throttled throttled(String limit, long waitNanos) {
+        metricsService.recordLoginThrottled(limit);
+        return new Throttled(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000));
+    }
+
+    private static String accountKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,143 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.dto.MaterialPopularityDTO;
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for MaterialCounters. Every app.counters.flush-interval-seconds
+ * the pending hits are written to material_counters as batched additive upserts
+ * (so several instances can flush into the same rows), then the totals are read
+ * back. A failed flush keeps the hits in memory for the next one; hits since the
+ * last flush are lost only if the process dies without a clean shutdown.
+ *
+ * Counts are served only where they are read live (the material detail and the
+ * popularity report), never in the version-keyed listings or the catalog
+ * snapshot, so a flush changes no ETag and triggers no rebuild. They include
+ * this instance's hits right away and other instances' as of the last flush,
+ * i.e. up to flush-interval-seconds behind.
+ */
+@Service
+public class MaterialCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialCounterService.class);
+    private static final String UPSERT = "INSERT INTO material_counters (material_id, downloads, views) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE downloads = downloads + VALUES(downloads), views = views + VALUES(views)";
+
+    private final MaterialCounters counters;
+    private final JdbcTemplate jdbcTemplate;
+    private final MaterialRepository materialRepository;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MaterialCounterService(MaterialCounters counters, JdbcTemplate jdbcTemplate,
+                                  MaterialRepository materialRepository,
+                                  @Value("${app.counters.flush-interval-seconds:60}") long flushIntervalSeconds,
+                                  @Value("${app.counters.batch-size:500}") int batchSize) {
+        this.counters = counters;
+        this.jdbcTemplate = jdbcTemplate;
+        this.materialRepository = materialRepository;
+        this.batchSize = batchSize;
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPersistedCounts() {
+        int[] loaded = {0};
+        jdbcTemplate.query("SELECT material_id, downloads, views FROM material_counters", rs -> {
+            counters.setPersisted(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+            loaded[0]++;
+        });
+        log.info("Loaded download and view counts of {} materials", loaded[0]);
+    }
+
+    /**
+     * Write the pending hits now
+     * @return number of materials whose counts were written
+     */
+    public synchronized int flush() {
+        Map<Long, MaterialCounters.Counts> drained = counters.drain();
+        if (drained.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(drained.size());
+        drained.forEach((materialId, delta) -> rows.add(new Object[]{materialId, delta.downloads(), delta.views()}));
+        try {
+            jdbcTemplate.batchUpdate(UPSERT, rows, batchSize, (ps, row) -> {
+                ps.setLong(1, (Long) row[0]);
+                ps.setLong(2, (Long) row[1]);
+                ps.setLong(3, (Long) row[2]);
+            });
+        } catch (RuntimeException e) {
+            counters.restore(drained);
+            throw e;
+        }
+        // other instances add to the same rows; take over their hits as well
+        jdbcTemplate.query("SELECT material_id, downloads, views FROM material_counters", rs -> {
+            counters.setPersisted(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+        });
+        return drained.size();
+    }
+
+    // Popularity report for admins, most downloaded (or viewed) first; counts include unflushed hits
+    @Transactional(readOnly = true)
+    public List<MaterialPopularityDTO> report(boolean byViews, int limit) {
+        Comparator<MaterialPopularityDTO> order = byViews
+                ? Comparator.comparing(MaterialPopularityDTO::getViews)
+                : Comparator.comparing(MaterialPopularityDTO::getDownloads);
+        return materialRepository.findAll().stream()
+                .map(material -> {
+                    MaterialCounters.Counts counts = counters.get(material.getId());
+                    return new MaterialPopularityDTO(material.getId(), material.getTitle(), material.getUniversity(),
+                            counts.downloads(), counts.views());
+                })
+                .sorted(order.reversed().thenComparing(MaterialPopularityDTO::getMaterialId))
+                .limit(limit)
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        if (event.type() == MaterialChangedEvent.ChangeType.DELETED) {
+            counters.remove(event.materialId());
+            jdbcTemplate.update("DELETE FROM material_counters WHERE material_id = ?", event.materialId());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Flushing material counters failed, retrying with the next flush", e);
+        }
+    }
+
+    // Last flush on a clean shutdown, so the hits since the previous one are not lost
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+}
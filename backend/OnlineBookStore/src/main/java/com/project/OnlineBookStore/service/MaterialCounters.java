@@ -0,0 +1,96 @@
+package com.project.OnlineBookStore.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory download and view counts per material. Hits go to striped
+ * LongAdders, so counting costs no database write and no contended CAS;
+ * MaterialCounterService drains the pending hits periodically and writes them
+ * in one batch. A count is the persisted total plus the hits not flushed yet.
+ */
+@Component
+public class MaterialCounters {
+
+    public record Counts(long downloads, long views) {
+        public static final Counts ZERO = new Counts(0, 0);
+
+        boolean isZero() {
+            return downloads == 0 && views == 0;
+        }
+    }
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public void recordDownload(Long materialId) {
+        counter(materialId).pendingDownloads.increment();
+    }
+
+    public void recordView(Long materialId) {
+        counter(materialId).pendingViews.increment();
+    }
+
+    public Counts get(Long materialId) {
+        Counter counter = counters.get(materialId);
+        if (counter == null) {
+            return Counts.ZERO;
+        }
+        return new Counts(counter.downloads.get() + counter.pendingDownloads.sum(),
+                counter.views.get() + counter.pendingViews.sum());
+    }
+
+    // Persisted totals, e.g. read back after a flush; pending hits are kept
+    public void setPersisted(Long materialId, long downloads, long views) {
+        Counter counter = counter(materialId);
+        counter.downloads.set(downloads);
+        counter.views.set(views);
+    }
+
+    /**
+     * Takes the hits recorded since the last drain. They count as persisted
+     * from here on; hand them back with restore() if writing them fails.
+     */
+    public Map<Long, Counts> drain() {
+        Map<Long, Counts> drained = new HashMap<>();
+        counters.forEach((materialId, counter) -> {
+            // sumThenReset does not lose concurrent increments: they land in this drain or the next
+            Counts delta = new Counts(counter.pendingDownloads.sumThenReset(), counter.pendingViews.sumThenReset());
+            if (!delta.isZero()) {
+                counter.downloads.addAndGet(delta.downloads());
+                counter.views.addAndGet(delta.views());
+                drained.put(materialId, delta);
+            }
+        });
+        return drained;
+    }
+
+    public void restore(Map<Long, Counts> drained) {
+        drained.forEach((materialId, delta) -> {
+            Counter counter = counter(materialId);
+            counter.downloads.addAndGet(-delta.downloads());
+            counter.views.addAndGet(-delta.views());
+            counter.pendingDownloads.add(delta.downloads());
+            counter.pendingViews.add(delta.views());
+        });
+    }
+
+    public void remove(Long materialId) {
+        counters.remove(materialId);
+    }
+
+    private Counter counter(Long materialId) {
+        return counters.computeIfAbsent(materialId, id -> new Counter());
+    }
+
+    private static final class Counter {
+        final LongAdder pendingDownloads = new LongAdder();
+        final LongAdder pendingViews = new LongAdder();
+        final AtomicLong downloads = new AtomicLong();
+        final AtomicLong views = new AtomicLong();
+    }
+}
@@ -0,0 +1,78 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.model.Material;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The "materials" row of the id_generators table behind Material ids. Hibernate's
+ * pooled optimizer reads a value T, stores T + 50 and hands out T - 48 .. T + 1;
+ * reserve() claims whole blocks the same way, so rows inserted with plain JDBC
+ * (the seeder) get ids that never collide with the ones Hibernate assigns.
+ */
+@Component
+public class MaterialIdSequence {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialIdSequence.class);
+    private static final String SEQUENCE = "materials";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // the entity manager factory creates or updates the id_generators table first
+    public MaterialIdSequence(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Moves the sequence past the existing materials, e.g. after switching from
+     * auto-increment ids or after rows were inserted without the sequence
+     */
+    @PostConstruct
+    public void align() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM materials", Long.class);
+            long floor = (max != null ? max : 0L) + Material.ID_BLOCK_SIZE;
+            Long current = lockedValue();
+            if (current == null) {
+                jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)", SEQUENCE, floor);
+            } else if (current < floor) {
+                jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE sequence_name = ?", floor, SEQUENCE);
+                log.info("Moved the material id sequence from {} to {}", current, floor);
+            }
+        });
+    }
+
+    /**
+     * Claims at least count consecutive ids in its own transaction
+     * @return the first id; ids first .. first + count - 1 are reserved
+     */
+    public long reserve(int count) {
+        int blocks = Math.max(1, (count + Material.ID_BLOCK_SIZE - 1) / Material.ID_BLOCK_SIZE);
+        Long first = transactionTemplate.execute(status -> {
+            Long current = lockedValue();
+            if (current == null) {
+                throw new IllegalStateException("Material id sequence is missing");
+            }
+            jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE sequence_name = ?",
+                    current + (long) blocks * Material.ID_BLOCK_SIZE, SEQUENCE);
+            return current - Material.ID_BLOCK_SIZE + 2;
+        });
+        return first;
+    }
+
+    private Long lockedValue() {
+        return jdbcTemplate.query("SELECT next_val FROM id_generators WHERE sequence_name = ? FOR UPDATE",
+                rs -> rs.next() ? rs.getLong(1) : null, SEQUENCE);
+    }
+}
@@ -0,0 +1,420 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.MaterialImportResultDTO;
+import com.project.OnlineBookStore.dto.MaterialImportRowDTO;
+import com.project.OnlineBookStore.model.Material;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Bulk import of materials from a ZIP of PDFs and a manifest (CSV with a header
+ * row, or a JSON array of objects) with one row per material: file, title,
+ * university, faculty, studentYear, courseModule, price. The manifest is a
+ * separate part or manifest.csv / manifest.json at the top of the ZIP.
+ *
+ * Files are stored in parallel on the "material-import" threads, then the rows
+ * are inserted app.import.batch-size at a time. A failing batch is retried row by
+ * row, so one bad row only rejects itself; every row gets its own result.
+ */
+@Service
+public class MaterialImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialImportService.class);
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final List<String> MANIFEST_NAMES = List.of("manifest.csv", "manifest.json");
+
+    private final MaterialService materialService;
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxRows;
+    private final long maxFileBytes;
+    private final ExecutorService storagePool;
+
+    public MaterialImportService(MaterialService materialService, FileStorageService fileStorageService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.import.parallelism:4}") int parallelism,
+                                 @Value("${app.import.batch-size:50}") int batchSize,
+                                 @Value("${app.import.max-rows:5000}") int maxRows,
+                                 @Value("${app.import.max-file-size-bytes:104857600}") long maxFileBytes) {
+        this.materialService = materialService;
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+        this.maxFileBytes = maxFileBytes;
+        AtomicInteger threads = new AtomicInteger();
+        this.storagePool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "material-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // One manifest row on its way to becoming a material
+    private static final class ImportRow {
+        final int number;
+        final String file;
+        Material material;
+        ZipEntry entry;
+        String stored;
+        String error;
+
+        ImportRow(int number, String file) {
+            this.number = number;
+            this.file = file;
+        }
+
+        boolean pending() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Imports every row of the manifest
+     * @param manifest separate manifest part, or null to read it from the archive
+     */
+    public MaterialImportResultDTO importArchive(MultipartFile archive, MultipartFile manifest) {
+        if (archive == null || archive.isEmpty()) {
+            throw new IllegalArgumentException("A ZIP archive is required");
+        }
+        long started = System.nanoTime();
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("material-import-", ".zip");
+            archive.transferTo(spooled);
+            try (ZipFile zip = new ZipFile(spooled.toFile())) {
+                MaterialImportResultDTO result = importRows(zip, readManifest(zip, manifest));
+                log.info("Imported {} of {} materials in {} ms", result.getCreated(), result.getTotal(),
+                        (System.nanoTime() - started) / 1_000_000);
+                return result;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the import archive: " + e.getMessage(), e);
+        } finally {
+            if (spooled != null) {
+                try {
+                    Files.deleteIfExists(spooled);
+                } catch (IOException e) {
+                    log.warn("Could not delete spooled import archive {}", spooled, e);
+                }
+            }
+        }
+    }
+
+    private MaterialImportResultDTO importRows(ZipFile zip, List<Map<String, String>> manifest) {
+        if (manifest.isEmpty()) {
+            throw new IllegalArgumentException("The manifest has no rows");
+        }
+        if (manifest.size() > maxRows) {
+            throw new IllegalArgumentException("The manifest has " + manifest.size() + " rows, at most " + maxRows + " are allowed");
+        }
+        Map<String, ZipEntry> entries = entriesByName(zip);
+        List<ImportRow> rows = new ArrayList<>(manifest.size());
+        for (Map<String, String> fields : manifest) {
+            ImportRow row = new ImportRow(rows.size() + 1, fields.get("file"));
+            rows.add(row);
+            try {
+                row.material = material(fields);
+                row.entry = entry(entries, row.file);
+            } catch (RuntimeException e) {
+                row.error = e.getMessage();
+            }
+        }
+
+        CompletableFuture.allOf(rows.stream().filter(ImportRow::pending)
+                .map(row -> CompletableFuture.runAsync(() -> store(zip, row), storagePool))
+                .toArray(CompletableFuture[]::new)).join();
+
+        List<ImportRow> stored = rows.stream().filter(ImportRow::pending).toList();
+        for (int from = 0; from < stored.size(); from += batchSize) {
+            insert(stored.subList(from, Math.min(from + batchSize, stored.size())));
+        }
+
+        List<MaterialImportRowDTO> results = rows.stream().map(row -> new MaterialImportRowDTO(row.number, row.file,
+                row.pending() ? row.material.getId() : null, row.error)).toList();
+        int created = (int) rows.stream().filter(ImportRow::pending).count();
+        return new MaterialImportResultDTO(rows.size(), created, rows.size() - created, results);
+    }
+
+    private void store(ZipFile zip, ImportRow row) {
+        try (InputStream in = zip.getInputStream(row.entry)) {
+            byte[] head = in.readNBytes(PDF_MAGIC.length);
+            if (!Arrays.equals(head, PDF_MAGIC)) {
+                row.error = "Not a PDF file: " + row.file;
+                return;
+            }
+            String name = row.entry.getName().substring(row.entry.getName().lastIndexOf('/') + 1);
+            row.stored = fileStorageService.store(name, new SequenceInputStream(new ByteArrayInputStream(head), in));
+            row.material.setFilename(row.stored);
+        } catch (IOException | RuntimeException e) {
+            row.error = "Could not store " + row.file + ": " + e.getMessage();
+        }
+    }
+
+    // Inserts a batch in one transaction, or row by row if the batch fails
+    private void insert(List<ImportRow> batch) {
+        try {
+            materialService.createAll(batch.stream().map(row -> row.material).toList());
+            return;
+        } catch (RuntimeException e) {
+            log.debug("Import batch of {} rows failed, inserting them one by one", batch.size(), e);
+        }
+        for (ImportRow row : batch) {
+            row.material.setId(null); // assigned by the rolled back batch
+            try {
+                materialService.createAll(List.of(row.material));
+            } catch (RuntimeException e) {
+                row.error = "Could not save row " + row.number + ": " + rootMessage(e);
+                try {
+                    fileStorageService.delete(row.stored);
+                } catch (RuntimeException ex) {
+                    log.warn("Could not delete stored file {} of rejected import row", row.stored, ex);
+                }
+            }
+        }
+    }
+
+    private Material material(Map<String, String> fields) {
+        if (blank(fields.get("file"))) {
+            throw new IllegalArgumentException("file is required");
+        }
+        if (blank(fields.get("title"))) {
+            throw new IllegalArgumentException("title is required");
+        }
+        Material material = new Material();
+        material.setTitle(fields.get("title").trim());
+        material.setUniversity(trimmed(fields.get("university")));
+        material.setFaculty(trimmed(fields.get("faculty")));
+        material.setCourseModule(trimmed(fields.get("coursemodule")));
+        String year = fields.get("studentyear");
+        if (!blank(year)) {
+            try {
+                material.setStudentYear(Integer.valueOf(year.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("studentYear is not a number: " + year);
+            }
+        }
+        String price = fields.get("price");
+        if (blank(price)) {
+            throw new IllegalArgumentException("price is required");
+        }
+        try {
+            material.setPrice(Double.valueOf(price.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number: " + price);
+        }
+        if (!(material.getPrice() >= 0)) {
+            throw new IllegalArgumentException("price must not be negative");
+        }
+        material.setUploadedAt(Instant.now());
+        return material;
+    }
+
+    private ZipEntry entry(Map<String, ZipEntry> entries, String file) {
+        ZipEntry entry = entries.get(file.trim());
+        if (entry == null) {
+            throw new IllegalArgumentException("No file " + file + " in the archive");
+        }
+        fileStorageService.validatedName(entry.getName().substring(entry.getName().lastIndexOf('/') + 1));
+        if (entry.getSize() > maxFileBytes) {
+            throw new IllegalArgumentException(file + " is larger than " + maxFileBytes + " bytes");
+        }
+        return entry;
+    }
+
+    // Files by their path in the archive, and by their bare name where that is unambiguous
+    private static Map<String, ZipEntry> entriesByName(ZipFile zip) {
+        Map<String, ZipEntry> byPath = new HashMap<>();
+        Map<String, List<ZipEntry>> byName = new HashMap<>();
+        zip.stream().filter(entry -> !entry.isDirectory()).forEach(entry -> {
+            byPath.put(entry.getName(), entry);
+            String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+            byName.computeIfAbsent(name, key -> new ArrayList<>()).add(entry);
+        });
+        Map<String, ZipEntry> entries = new HashMap<>(byPath);
+        byName.forEach((name, matches) -> {
+            if (matches.size() == 1) {
+                entries.putIfAbsent(name, matches.get(0));
+            }
+        });
+        return entries;
+    }
+
+    private List<Map<String, String>> readManifest(ZipFile zip, MultipartFile manifest) throws IOException {
+        if (manifest != null && !manifest.isEmpty()) {
+            try (InputStream in = manifest.getInputStream()) {
+                return parseManifest(manifest.getOriginalFilename(), manifest.getContentType(), in);
+            }
+        }
+        for (String name : MANIFEST_NAMES) {
+            ZipEntry entry = zip.getEntry(name);
+            if (entry != null) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    return parseManifest(name, null, in);
+                }
+            }
+        }
+        throw new IllegalArgumentException("No manifest: send a manifest part or put manifest.csv or manifest.json in the archive");
+    }
+
+    /**
+     * Manifest rows as field maps; field names are matched ignoring case,
+     * underscores, dashes and spaces (studentYear, student_year)
+     */
+    List<Map<String, String>> parseManifest(String filename, String contentType, InputStream in) throws IOException {
+        boolean json = (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".json"))
+                || (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json"));
+        List<Map<String, String>> rows = new ArrayList<>();
+        if (json) {
+            JsonNode root = objectMapper.readTree(in);
+            if (root == null || !root.isArray()) {
+                throw new IllegalArgumentException("A JSON manifest must be an array of objects");
+            }
+            for (JsonNode node : root) {
+                if (!node.isObject()) {
+                    throw new IllegalArgumentException("A JSON manifest must be an array of objects");
+                }
+                Map<String, String> fields = new HashMap<>();
+                node.fields().forEachRemaining(field -> {
+                    if (!field.getValue().isNull()) {
+                        fields.put(fieldName(field.getKey()), field.getValue().asText());
+                    }
+                });
+                rows.add(fields);
+            }
+            return rows;
+        }
+        List<List<String>> records = parseCsv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        if (records.isEmpty()) {
+            return rows;
+        }
+        List<String> header = records.get(0).stream().map(MaterialImportService::fieldName).toList();
+        for (List<String> record : records.subList(1, records.size())) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < Math.min(header.size(), record.size()); i++) {
+                fields.put(header.get(i), record.get(i));
+            }
+            rows.add(fields);
+        }
+        return rows;
+    }
+
+    // RFC 4180: comma separated, fields in double quotes may contain commas, line breaks and "" for a quote
+    static List<List<String>> parseCsv(Reader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        int c = reader.read();
+        if (c == '\uFEFF') {
+            c = reader.read(); // byte order mark
+        }
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    field.append('"');
+                } else {
+                    reader.reset();
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                endRecord(records, record, field, fieldStarted);
+                record = new ArrayList<>();
+                fieldStarted = false;
+            } else {
+                field.append((char) c);
+                fieldStarted = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field in the CSV manifest");
+        }
+        endRecord(records, record, field, fieldStarted);
+        return records;
+    }
+
+    // Blank lines are skipped
+    private static void endRecord(List<List<String>> records, List<String> record, StringBuilder field, boolean fieldStarted) {
+        if (fieldStarted || !field.isEmpty()) {
+            record.add(field.toString());
+            records.add(record);
+        }
+        field.setLength(0);
+    }
+
+    private static String fieldName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replaceAll("[\\s_-]", "");
+    }
+
+    private static boolean blank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String trimmed(String value) {
+        return blank(value) ? null : value.trim();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        storagePool.shutdownNow();
+    }
+}
@@ -1,8 +1,17 @@
 package com.project.OnlineBookStore.service;
 
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
 import com.project.OnlineBookStore.model.Material;
 import com.project.OnlineBookStore.repository.MaterialRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.file.Path;
@@ -12,18 +21,52 @@ import java.util.Optional;
 @Service
 public class MaterialService {
 
+    private static final Logger log = LoggerFactory.getLogger(MaterialService.class);
+
     private final MaterialRepository materialRepository;
     private final FileStorageService fileStorageService;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
-    public MaterialService(MaterialRepository materialRepository, FileStorageService fileStorageService) {
+    public MaterialService(MaterialRepository materialRepository, FileStorageService fileStorageService,
+                           CatalogVersionService catalogVersionService, ApplicationEventPublisher eventPublisher,
+                           EntityManager entityManager) {
         this.materialRepository = materialRepository;
         this.fileStorageService = fileStorageService;
+        this.catalogVersionService = catalogVersionService;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
     }
 
     public Material create(MultipartFile file, Material details) {
         String stored = fileStorageService.storeFile(file);
         details.setFilename(stored);
-        return materialRepository.save(details);
+        Material saved = materialRepository.save(details);
+        catalogChanged(saved.getId(), MaterialChangedEvent.ChangeType.CREATED, saved);
+        return saved;
+    }
+
+    /**
+     * Insert materials whose files are already in the store, in one transaction;
+     * ids come in blocks from the table generator, so the rows go out as one JDBC batch
+     */
+    @Transactional
+    public List<Material> createAll(List<Material> materials) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer batchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(Math.max(1, materials.size()));
+        List<Material> saved;
+        try {
+            saved = materialRepository.saveAll(materials);
+            materialRepository.flush();
+        } finally {
+            session.setJdbcBatchSize(batchSize);
+        }
+        for (Material material : saved) {
+            catalogChanged(material.getId(), MaterialChangedEvent.ChangeType.CREATED, material);
+        }
+        return saved;
     }
 
     public Material update(Long id, Material update, MultipartFile file) {
@@ -39,18 +82,68 @@ public class MaterialService {
         if (file != null && !file.isEmpty()) {
             // remove old file
             if (existing.getFilename() != null) {
-                fileStorageService.delete(existing.getFilename());
+                deleteFileUnlessShared(existing.getFilename(), id);
             }
             String stored = fileStorageService.storeFile(file);
             existing.setFilename(stored);
         }
-        return materialRepository.save(existing);
+        Material saved = materialRepository.save(existing);
+        catalogChanged(saved.getId(), MaterialChangedEvent.ChangeType.UPDATED, saved);
+        return saved;
+    }
+
+    /**
+     * Attach a file that is already in the store (a finished chunked upload), in one
+     * transaction: if this throws, nothing was saved
+     * @param id existing material whose file is replaced, or null to create one from details
+     */
+    @Transactional
+    public Material attachStoredFile(Long id, Material details, String storedFilename) {
+        if (id == null) {
+            if (details == null) {
+                throw new IllegalArgumentException("Material details are required for a new material");
+            }
+            details.setFilename(storedFilename);
+            Material saved = materialRepository.save(details);
+            catalogChanged(saved.getId(), MaterialChangedEvent.ChangeType.CREATED, saved);
+            return saved;
+        }
+        Material existing = materialRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Material not found: " + id));
+        if (details != null) {
+            existing.setTitle(details.getTitle());
+            existing.setUniversity(details.getUniversity());
+            existing.setFaculty(details.getFaculty());
+            existing.setStudentYear(details.getStudentYear());
+            existing.setCourseModule(details.getCourseModule());
+            existing.setPrice(details.getPrice());
+        }
+        String previous = existing.getFilename();
+        existing.setFilename(storedFilename);
+        Material saved = materialRepository.save(existing);
+        // the old file goes only once the committed material points at the new one
+        if (previous != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        deleteFileUnlessShared(previous, id);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not delete replaced file {} of material {}", previous, id, e);
+                    }
+                }
+            });
+        }
+        catalogChanged(saved.getId(), MaterialChangedEvent.ChangeType.UPDATED, saved);
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public Optional<Material> findById(Long id) {
         return materialRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Material> listAll() {
         return materialRepository.findAll();
     }
@@ -59,9 +152,24 @@ public class MaterialService {
         Material m = materialRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Material not found: " + id));
         if (m.getFilename() != null) {
-            fileStorageService.delete(m.getFilename());
+            deleteFileUnlessShared(m.getFilename(), id);
         }
         materialRepository.deleteById(id);
+        catalogChanged(id, MaterialChangedEvent.ChangeType.DELETED, null);
+    }
+
+    // Seeded materials share one placeholder file (SyntheticDataSeeder); it stays while another row uses it
+    private void deleteFileUnlessShared(String filename, Long materialId) {
+        if (materialRepository.existsByFilenameAndIdNot(filename, materialId)) {
+            log.debug("Keeping file {} of material {}, other materials still use it", filename, materialId);
+            return;
+        }
+        fileStorageService.delete(filename);
+    }
+
+    private void catalogChanged(Long materialId, MaterialChangedEvent.ChangeType type, Material material) {
+        catalogVersionService.bumpCatalog();
+        eventPublisher.publishEvent(new MaterialChangedEvent(materialId, type, material));
     }
 
     public Path getFilePath(String filename) {
@@ -69,6 +177,8 @@ public class MaterialService {
     }
 
     // Add convenience search methods as needed; call repository directly or expose them here
+    @Transactional(readOnly = true)
     public List<Material> findByUniversity(String uni) { return materialRepository.findByUniversityIgnoreCase(uni); }
+    @Transactional(readOnly = true)
     public List<Material> findByFaculty(String faculty) { return materialRepository.findByFacultyIgnoreCase(faculty); }
 }
@@ -0,0 +1,189 @@
+package com.project.OnlineBookStore.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Central place for the bookstore's custom Micrometer meters so that
+ * meter names and tags stay consistent across controllers and services.
+ * HTTP, JVM and HikariCP pool metrics are registered by Actuator itself.
+ */
+@Service
+public class MetricsService {
+
+    private final MeterRegistry registry;
+
+    public MetricsService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Catalog listing/search served to a user
+     * @param view which listing was served (all, university, faculty)
+     * @param items number of materials returned
+     */
+    public void recordCatalogBrowse(Timer.Sample sample, String view, int items) {
+        sample.stop(Timer.builder("bookstore.catalog.browse")
+                .description("Time to assemble a catalog listing including ownership flags")
+                .tag("view", view)
+                .register(registry));
+        DistributionSummary.builder("bookstore.catalog.items")
+                .description("Number of materials returned per catalog listing")
+                .tag("view", view)
+                .register(registry)
+                .record(items);
+    }
+
+    public <T> T timeOwnershipCheck(Supplier<T> check) {
+        return Timer.builder("bookstore.ownership.check")
+                .description("Time to decide whether a user owns a material")
+                .register(registry)
+                .record(check);
+    }
+
+    /**
+     * JWT parsing/validation in the authentication filter
+     * @param stage parse or validate
+     * @param outcome success or failure
+     */
+    public void recordJwtVerification(Timer.Sample sample, String stage, String outcome) {
+        sample.stop(Timer.builder("bookstore.jwt.verification")
+                .description("Time spent verifying JWT bearer tokens")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    public void recordDownload(Timer.Sample sample, String outcome, long bytes) {
+        sample.stop(Timer.builder("bookstore.download")
+                .description("Time to authorize and serve a material download")
+                .tag("outcome", outcome)
+                .register(registry));
+        if (bytes > 0) {
+            DistributionSummary.builder("bookstore.download.bytes")
+                    .description("Size of served material downloads")
+                    .baseUnit("bytes")
+                    .register(registry)
+                    .record(bytes);
+        }
+    }
+
+    public void recordUpload(Timer.Sample sample, String outcome, long bytes) {
+        sample.stop(Timer.builder("bookstore.upload")
+                .description("Time to store an uploaded material file")
+                .tag("outcome", outcome)
+                .register(registry));
+        if (bytes > 0) {
+            DistributionSummary.builder("bookstore.upload.bytes")
+                    .description("Size of uploaded material files")
+                    .baseUnit("bytes")
+                    .register(registry)
+                    .record(bytes);
+        }
+    }
+
+    /**
+     * Outbound Stripe API call
+     * @param operation Stripe operation (e.g. create_payment_intent)
+     * @param outcome success, or the Stripe error code / exception type on failure
+     */
+    public void recordStripeCall(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder("bookstore.stripe.calls")
+                .description("Latency of Stripe API calls by outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    /**
+     * SQL statements executed while serving one request
+     * @param endpoint MVC handler pattern of the request
+     */
+    public void recordRequestQueries(String endpoint, int queries) {
+        DistributionSummary.builder("bookstore.sql.queries")
+                .description("SQL statements executed per request")
+                .tag("endpoint", endpoint)
+                .register(registry)
+                .record(queries);
+    }
+
+    public void registerEventStreamClients(Collection<?> clients) {
+        Gauge.builder("bookstore.events.clients", clients, Collection::size)
+                .description("Connected server-sent event clients")
+                .register(registry);
+    }
+
+    public void recordEventStreamEviction(String reason) {
+        Counter.builder("bookstore.events.evictions")
+                .description("Event stream clients disconnected because their buffer was full or a write stalled")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Sign-in attempt rejected by the login throttle
+     * @param limit the limit that was hit: ip or account
+     */
+    public void recordLoginThrottled(String limit) {
+        Counter.builder("bookstore.auth.throttled")
+                .description("Sign-in attempts rejected by the login throttle")
+                .tag("limit", limit)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Current adaptive concurrency limit and requests in flight of a route class
+     * @param routeClass catalog, download, checkout or admin
+     */
+    public <T> void registerConcurrencyLimit(String routeClass, T limiter, ToDoubleFunction<T> limit,
+                                             ToDoubleFunction<T> inFlight) {
+        Gauge.builder("bookstore.concurrency.limit", limiter, limit)
+                .description("Adaptive concurrency limit per route class")
+                .tag("route", routeClass)
+                .register(registry);
+        Gauge.builder("bookstore.concurrency.inflight", limiter, inFlight)
+                .description("Requests in flight per route class")
+                .tag("route", routeClass)
+                .register(registry);
+    }
+
+    public void recordConcurrencyLimitRejection(String routeClass) {
+        Counter.builder("bookstore.concurrency.rejections")
+                .description("Requests rejected with 503 because their route class was at its concurrency limit")
+                .tag("route", routeClass)
+                .register(registry)
+                .increment();
+    }
+
+    public <T> void registerDownloadLane(T lane, ToDoubleFunction<T> admitted) {
+        Gauge.builder("bookstore.download.lane.active", lane, admitted)
+                .description("Downloads admitted to the download lane (running or queued)")
+                .register(registry);
+    }
+
+    /**
+     * Download refused before it started
+     * @param reason lane_full or user_limit
+     */
+    public void recordDownloadRejected(String reason) {
+        Counter.builder("bookstore.download.rejections")
+                .description("Downloads refused because the download lane or the user's limit was full")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+}
@@ -1,5 +1,6 @@
 package com.project.OnlineBookStore.service;
 
+import com.project.OnlineBookStore.event.PurchaseStatusChangedEvent;
 import com.project.OnlineBookStore.model.Material;
 import com.project.OnlineBookStore.model.Purchase;
 import com.project.OnlineBookStore.model.PurchaseStatus;
@@ -9,8 +10,16 @@ import com.project.OnlineBookStore.repository.PurchaseRepository;
 import com.project.OnlineBookStore.repository.UserRepository;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,26 +28,43 @@ import java.util.Optional;
 @Transactional
 public class PurchaseService {
 
+    private static final Logger log = LoggerFactory.getLogger(PurchaseService.class);
+
     private final PurchaseRepository purchaseRepository;
     private final MaterialRepository materialRepository;
     private final UserRepository userRepository;
     private final StripeService stripeService;
+    private final MetricsService metricsService;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int conflictRetries;
 
     public PurchaseService(PurchaseRepository purchaseRepository, 
                           MaterialRepository materialRepository,
                           UserRepository userRepository,
-                          StripeService stripeService) {
+                          StripeService stripeService,
+                          MetricsService metricsService,
+                          CatalogVersionService catalogVersionService,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.purchases.conflict-retries:3}") int conflictRetries) {
         this.purchaseRepository = purchaseRepository;
         this.materialRepository = materialRepository;
         this.userRepository = userRepository;
         this.stripeService = stripeService;
+        this.metricsService = metricsService;
+        this.catalogVersionService = catalogVersionService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.conflictRetries = conflictRetries;
     }
 
     /**
      * Create a payment intent for purchasing material
      */
     public Purchase createPaymentIntent(Long userId, Long materialId) throws StripeException {
-        System.out.println("Creating payment intent for user: " + userId + ", material: " + materialId);
+        log.debug("Creating payment intent for user: {}, material: {}", userId, materialId);
         
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
@@ -46,7 +72,7 @@ public class PurchaseService {
         Material material = materialRepository.findById(materialId)
                 .orElseThrow(() -> new RuntimeException("Material not found: " + materialId));
 
-        System.out.println("Found material: " + material.getTitle() + ", price: " + material.getPrice());
+        log.debug("Found material: {}, price: {}", material.getTitle(), material.getPrice());
 
         // Check if user already purchased this material
         if (purchaseRepository.existsByUserAndMaterialId(user, materialId)) {
@@ -54,13 +80,12 @@ public class PurchaseService {
         }
 
         // Create Stripe payment intent
-        System.out.println("Creating Stripe payment intent...");
         Long amountInCents = stripeService.convertToSmallestUnit(material.getPrice());
         String description = "Purchase of " + material.getTitle();
-        System.out.println("Amount in cents: " + amountInCents + ", description: " + description);
+        log.debug("Creating Stripe payment intent, amount in cents: {}, description: {}", amountInCents, description);
         
         PaymentIntent paymentIntent = stripeService.createPaymentIntent(amountInCents, "usd", description);
-        System.out.println("Created payment intent: " + paymentIntent.getId());
+        log.info("Created payment intent {} for user {}, material {}", paymentIntent.getId(), userId, materialId);
 
         // Create purchase record with payment intent info
         Purchase purchase = new Purchase();
@@ -71,45 +96,128 @@ public class PurchaseService {
         purchase.setStripePaymentIntentId(paymentIntent.getId());
         purchase.setStripeClientSecret(paymentIntent.getClientSecret());
 
-        return purchaseRepository.save(purchase);
+        Purchase saved = purchaseRepository.save(purchase);
+        catalogVersionService.bumpOwnership(userId);
+        publishStatus(saved);
+        return saved;
     }
 
     /**
-     * Complete the purchase after successful payment
+     * Complete the purchase after successful payment. The purchase moves
+     * NEW -> PROC before Stripe is asked and PROC -> DONE/FAIL afterwards; each
+     * step is a versioned write, so concurrent confirmations of the same payment
+     * never overwrite each other and no row lock is held during the Stripe call.
+     * Confirming a completed purchase again returns it unchanged.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Purchase completePurchase(String paymentIntentId) throws StripeException {
-        Purchase purchase = purchaseRepository.findByStripePaymentIntentId(paymentIntentId)
-                .orElseThrow(() -> new RuntimeException("Purchase not found for payment intent: " + paymentIntentId));
+        Purchase purchase = transition(paymentIntentId, PurchaseStatus.PROC, PurchaseStatus.DONE);
+        if (purchase.getStatus() == PurchaseStatus.DONE) {
+            return purchase;
+        }
 
         // Verify payment with Stripe
         PaymentIntent paymentIntent = stripeService.retrievePaymentIntent(paymentIntentId);
-        
+
         if ("succeeded".equals(paymentIntent.getStatus())) {
-            purchase.setStatus(PurchaseStatus.DONE);
-        } else {
-            purchase.setStatus(PurchaseStatus.FAIL);
-            throw new RuntimeException("Payment failed or incomplete");
+            return transition(paymentIntentId, PurchaseStatus.DONE, null);
         }
-
-        return purchaseRepository.save(purchase);
+        log.warn("Payment intent {} not completed, Stripe status: {}", paymentIntentId, paymentIntent.getStatus());
+        if ("processing".equals(paymentIntent.getStatus())) {
+            throw new RuntimeException("Payment is still processing");
+        }
+        transition(paymentIntentId, PurchaseStatus.FAIL, PurchaseStatus.DONE);
+        throw new RuntimeException("Payment failed or incomplete");
     }
 
+    /**
+     * Moves the purchase of a payment intent to target in its own transaction,
+     * re-reading and retrying it when a concurrent change wins the version check
+     * @param settled status in which the purchase is left as it is, or null
+     * @return the purchase after the change, or unchanged if it was already in target or settled
+     */
+    private Purchase transition(String paymentIntentId, PurchaseStatus target, PurchaseStatus settled) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Purchase purchase = purchaseRepository.findByStripePaymentIntentId(paymentIntentId)
+                            .orElseThrow(() -> new RuntimeException("Purchase not found for payment intent: " + paymentIntentId));
+                    PurchaseStatus current = purchase.getStatus();
+                    if (current == target || current == settled) {
+                        return purchase;
+                    }
+                    if (!current.canTransitionTo(target)) {
+                        throw new IllegalStateException("Purchase " + purchase.getId() + " cannot change from " + current + " to " + target);
+                    }
+                    purchase.setStatus(target);
+                    Purchase saved = purchaseRepository.saveAndFlush(purchase);
+                    if (target == PurchaseStatus.DONE) {
+                        catalogVersionService.bumpOwnership(saved.getUser().getId());
+                    }
+                    publishStatus(saved);
+                    return saved;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                // the rollback clears the persistence context, so the next attempt reads the winner's change
+                if (attempt >= conflictRetries) {
+                    throw new RuntimeException("Purchase for payment intent " + paymentIntentId + " is being changed concurrently, try again");
+                }
+                log.debug("Status change of payment intent {} to {} conflicted, retrying", paymentIntentId, target);
+            }
+        }
+    }
 
+    private void publishStatus(Purchase purchase) {
+        eventPublisher.publishEvent(new PurchaseStatusChangedEvent(purchase.getId(), purchase.getUser().getId(),
+                purchase.getMaterial().getId(), purchase.getStatus()));
+    }
 
+    // Ownership reads below are read-write on purpose: they must come from the primary, not a
+    // lagging replica. Right after completePurchase a replica would still deny access, and a
+    // listing built from it would be cached under the ETag bumpOwnership already advanced.
+    @Transactional
     public List<Purchase> getUserPurchases(Long userId) {
         return purchaseRepository.findByUserId(userId);
     }
 
+    /**
+     * Whether the user owns the material: only a completed (DONE) purchase counts,
+     * not one still awaiting payment, failed or refunded
+     */
+    @Transactional
     public boolean hasUserPurchased(Long userId, Long materialId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
-        return purchaseRepository.existsByUserAndMaterialId(user, materialId);
+        return metricsService.timeOwnershipCheck(() -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+            return purchaseRepository.existsByUserAndMaterialIdAndStatus(user, materialId, PurchaseStatus.DONE);
+        });
+    }
+
+    /**
+     * Ids of all materials the user owns, in one query (same rule as hasUserPurchased)
+     */
+    @Transactional
+    public List<Long> getOwnedMaterialIds(Long userId) {
+        return purchaseRepository.findMaterialIdsByUserId(userId, PurchaseStatus.DONE);
+    }
+
+    /**
+     * Materials the user owns (same rule as hasUserPurchased), in purchase order
+     */
+    @Transactional
+    public List<Material> getOwnedMaterials(Long userId) {
+        return purchaseRepository.findByUserIdAndStatus(userId, PurchaseStatus.DONE).stream()
+                .map(Purchase::getMaterial)
+                .distinct()
+                .toList();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Purchase> findById(Long id) {
         return purchaseRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Purchase> findAll() {
         return purchaseRepository.findAll();
     }
@@ -0,0 +1,178 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.event.PurchaseStatusChangedEvent;
+import com.project.OnlineBookStore.model.PurchaseStatus;
+import com.project.OnlineBookStore.repository.PurchaseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * "Students who bought this also bought": keeps a CoPurchaseMatrix of all
+ * completed purchases. It is built from the purchases table at startup (and on
+ * demand), and every purchase completed afterwards is added as it happens, so
+ * serving recommendations never queries the purchases of other users.
+ * Purchases completed while a rebuild runs are applied again to the new matrix.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    private final PurchaseRepository purchaseRepository;
+    private final PurchaseService purchaseService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBasket;
+    private final int topK;
+    private final int parallelism;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recommendations-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<long[]> addedDuringRebuild = new ConcurrentLinkedQueue<>();
+    private volatile CoPurchaseMatrix matrix;
+
+    public RecommendationService(PurchaseRepository purchaseRepository, PurchaseService purchaseService,
+                                 CatalogSnapshotService catalogSnapshotService, PlatformTransactionManager transactionManager,
+                                 @Value("${app.recommendations.max-basket:100}") int maxBasket,
+                                 @Value("${app.recommendations.top-k:20}") int topK,
+                                 @Value("${app.recommendations.rebuild-parallelism:0}") int parallelism) {
+        this.purchaseRepository = purchaseRepository;
+        this.purchaseService = purchaseService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        // read-write on purpose: a lagging replica would miss purchases completed just before the rebuild
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBasket = maxBasket;
+        this.topK = topK;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.matrix = new CoPurchaseMatrix(maxBasket, topK);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Building the co-purchase matrix failed; recommendations stay empty until a rebuild", e);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseStatusChanged(PurchaseStatusChangedEvent event) {
+        if (event.status() != PurchaseStatus.DONE) {
+            return;
+        }
+        if (rebuilding.get()) {
+            addedDuringRebuild.add(new long[]{event.userId(), event.materialId()});
+        }
+        matrix.add(event.userId(), event.materialId());
+    }
+
+    /**
+     * Rebuild the matrix from all completed purchases; pairs are counted in parallel
+     * @return number of materials with at least one co-purchase
+     */
+    public synchronized int rebuild() {
+        long started = System.nanoTime();
+        rebuilding.set(true);
+        try {
+            Map<Long, long[]> baskets = transactionTemplate.execute(status -> loadBaskets());
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            CoPurchaseMatrix built;
+            try {
+                built = pool.submit(() -> CoPurchaseMatrix.build(baskets, maxBasket, topK)).join();
+            } finally {
+                pool.shutdown();
+            }
+            matrix = built;
+            log.info("Built co-purchase matrix of {} users and {} materials in {} ms", baskets.size(), built.materials(),
+                    (System.nanoTime() - started) / 1_000_000);
+            return built.materials();
+        } finally {
+            rebuilding.set(false);
+            // adding is idempotent, so purchases the load already saw are not counted twice
+            for (long[] purchase; (purchase = addedDuringRebuild.poll()) != null; ) {
+                matrix.add(purchase[0], purchase[1]);
+            }
+        }
+    }
+
+    /**
+     * Materials most often bought together with materialId that the user does not own
+     * yet, as a JSON array of MaterialDTO rendered from the catalog snapshot
+     */
+    public byte[] relatedListing(Long materialId, Long userId, int limit) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        Set<Long> owned = new HashSet<>(purchaseService.getOwnedMaterialIds(userId));
+        int[] positions = Arrays.stream(matrix.related(materialId, topK))
+                .filter(id -> !owned.contains(id))
+                .mapToInt(snapshot::indexOf)
+                .filter(position -> position >= 0)
+                .limit(limit)
+                .toArray();
+        return snapshot.render(positions);
+    }
+
+    private Map<Long, long[]> loadBaskets() {
+        Map<Long, long[]> baskets = new HashMap<>();
+        long currentUser = 0;
+        long[] buffer = new long[64];
+        int size = 0;
+        try (Stream<Object[]> pairs = purchaseRepository.streamUserMaterialPairs(PurchaseStatus.DONE)) {
+            for (Object[] pair : (Iterable<Object[]>) pairs::iterator) {
+                long userId = (Long) pair[0];
+                long materialId = (Long) pair[1];
+                if (userId != currentUser) {
+                    if (size > 0) {
+                        baskets.put(currentUser, distinct(buffer, size));
+                    }
+                    currentUser = userId;
+                    size = 0;
+                }
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size * 2);
+                }
+                buffer[size++] = materialId;
+            }
+        }
+        if (size > 0) {
+            baskets.put(currentUser, distinct(buffer, size));
+        }
+        return baskets;
+    }
+
+    // Repeat purchases of a material count once, at the first purchase
+    private static long[] distinct(long[] buffer, int size) {
+        return Arrays.stream(buffer, 0, size).distinct().toArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -4,11 +4,18 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.PaymentIntentConfirmParams;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 @Service
 public class StripeService {
 
+    private final MetricsService metricsService;
+
+    public StripeService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
     /**
      * Create a payment intent for the purchase
      * @param amount Amount in the smallest currency unit (e.g., cents for USD, but LKR doesn't have smaller units)
@@ -29,7 +36,7 @@ public class StripeService {
                 )
                 .build();
 
-        return PaymentIntent.create(params);
+        return timed("create_payment_intent", () -> PaymentIntent.create(params));
     }
 
     /**
@@ -39,9 +46,9 @@ public class StripeService {
      * @throws StripeException if Stripe API call fails
      */
     public PaymentIntent confirmPaymentIntent(String paymentIntentId) throws StripeException {
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
+        PaymentIntent paymentIntent = timed("retrieve_payment_intent", () -> PaymentIntent.retrieve(paymentIntentId));
         PaymentIntentConfirmParams params = PaymentIntentConfirmParams.builder().build();
-        return paymentIntent.confirm(params);
+        return timed("confirm_payment_intent", () -> paymentIntent.confirm(params));
     }
 
     /**
@@ -51,7 +58,7 @@ public class StripeService {
      * @throws StripeException if Stripe API call fails
      */
     public PaymentIntent retrievePaymentIntent(String paymentIntentId) throws StripeException {
-        return PaymentIntent.retrieve(paymentIntentId);
+        return timed("retrieve_payment_intent", () -> PaymentIntent.retrieve(paymentIntentId));
     }
 
     /**
@@ -63,4 +70,26 @@ public class StripeService {
     public Long convertToSmallestUnit(Double price) {
         return Math.round(price * 100);
     }
+
+    // Runs a Stripe call and records its latency tagged with the outcome
+    private <T> T timed(String operation, StripeCall<T> call) throws StripeException {
+        Timer.Sample sample = metricsService.startTimer();
+        try {
+            T result = call.execute();
+            metricsService.recordStripeCall(sample, operation, "success");
+            return result;
+        } catch (StripeException e) {
+            String code = e.getCode() != null ? e.getCode() : e.getClass().getSimpleName();
+            metricsService.recordStripeCall(sample, operation, code);
+            throw e;
+        } catch (RuntimeException e) {
+            metricsService.recordStripeCall(sample, operation, e.getClass().getSimpleName());
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StripeCall<T> {
+        T execute() throws StripeException;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.project.OnlineBookStore.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed number of token buckets shared by hashing keys onto them, so memory
+ * stays the same however many distinct keys show up.
+ * Keys that land on the same stripe share its tokens, which only makes the
+ * limit stricter for them; the hash is seeded per instance, so which keys share
+ * a stripe cannot be predicted from outside. Because of that sharing it suits
+ * coarse limits (client addresses), not limits whose exhaustion would lock
+ * someone else out (accounts, see ExpiringTokenBuckets).
+ *
+ * Buckets hold up to burst tokens and refill continuously at perMinute tokens
+ * a minute. Each lock guards every locks.length-th stripe.
+ */
+final class StripedTokenBuckets {
+
+    private static final int LOCKS = 64;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final double[] tokens;
+    private final long[] updatedAt;
+    private final Object[] locks = new Object[LOCKS];
+    private final int mask;
+    private final int seed;
+    private final LongSupplier nanoClock;
+
+    StripedTokenBuckets(int stripes, int burst, double perMinute, LongSupplier nanoClock) {
+        this(stripes, burst, perMinute, nanoClock, ThreadLocalRandom.current().nextInt());
+    }
+
+    StripedTokenBuckets(int stripes, int burst, double perMinute, LongSupplier nanoClock, int seed) {
+        int size = LOCKS;
+        while (size < stripes) {
+            size <<= 1; // a power of two, so the hash is masked onto a stripe
+        }
+        this.capacity = burst;
+        this.tokensPerNano = perMinute / 60_000_000_000.0;
+        this.tokens = new double[size];
+        this.updatedAt = new long[size];
+        this.mask = size - 1;
+        this.nanoClock = nanoClock;
+        this.seed = seed;
+        long now = nanoClock.getAsLong();
+        Arrays.fill(tokens, capacity);
+        Arrays.fill(updatedAt, now);
+        for (int i = 0; i < LOCKS; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Takes a token from the key's bucket
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(String key) {
+        int stripe = stripe(key);
+        synchronized (locks[stripe & (LOCKS - 1)]) {
+            double available = refill(stripe);
+            if (available >= 1) {
+                tokens[stripe] = available - 1;
+                return 0;
+            }
+            tokens[stripe] = available;
+            return (long) Math.ceil((1 - available) / tokensPerNano);
+        }
+    }
+
+    // Gives back a token taken by tryAcquire, e.g. for an attempt that turned out to be legitimate
+    void release(String key) {
+        int stripe = stripe(key);
+        synchronized (locks[stripe & (LOCKS - 1)]) {
+            tokens[stripe] = Math.min(capacity, refill(stripe) + 1);
+        }
+    }
+
+    private double refill(int stripe) {
+        long now = nanoClock.getAsLong();
+        double available = Math.min(capacity, tokens[stripe] + (now - updatedAt[stripe]) * tokensPerNano);
+        updatedAt[stripe] = now;
+        return available;
+    }
+
+    private int stripe(String key) {
+        int hash = seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash & mask;
+    }
+}
@@ -0,0 +1,225 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Typeahead suggestions for material titles, course modules, universities and
+ * faculties. Each field has a SuggestionTrie holding every distinct value under
+ * its normalized form and under each later word, so "struct" finds "Data
+ * Structures". Values rank by the number of materials carrying them. The tries
+ * are loaded once and then updated from material changes; a lookup only walks
+ * the typed prefix.
+ */
+@Service
+public class SuggestionService {
+
+    public enum Field {
+        TITLE("title", Material::getTitle),
+        COURSE_MODULE("courseModule", Material::getCourseModule),
+        UNIVERSITY("university", Material::getUniversity),
+        FACULTY("faculty", Material::getFaculty);
+
+        private final String parameter;
+        private final Function<Material, String> accessor;
+
+        Field(String parameter, Function<Material, String> accessor) {
+            this.parameter = parameter;
+            this.accessor = accessor;
+        }
+
+        public static Field fromParameter(String parameter) {
+            for (Field field : values()) {
+                if (field.parameter.equals(parameter)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("type must be one of title, courseModule, university, faculty");
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionService.class);
+
+    private record Term(Field field, String key) {
+    }
+
+    private static final class TermCount {
+        final String label;
+        int count;
+
+        TermCount(String label) {
+            this.label = label;
+        }
+    }
+
+    private final MaterialRepository materialRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int topK;
+    // guarded by this
+    private final Map<Long, Set<Term>> termsByMaterial = new HashMap<>();
+    private final Map<Term, TermCount> counts = new HashMap<>();
+    private final EnumMap<Field, SuggestionTrie> working = new EnumMap<>(Field.class);
+    private boolean loaded;
+    private volatile Map<Field, SuggestionTrie> tries;
+
+    public SuggestionService(MaterialRepository materialRepository, PlatformTransactionManager transactionManager,
+                             @Value("${app.suggestions.top-k:10}") int topK) {
+        this.materialRepository = materialRepository;
+        // read-write on purpose: the values must be loaded from the primary, not a lagging replica
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.topK = topK;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMaterialChanged(MaterialChangedEvent event) {
+        if (!loaded) {
+            return; // the first lookup loads the change from the table
+        }
+        apply(event.materialId(), event.type() == MaterialChangedEvent.ChangeType.DELETED ? null : event.material());
+        publish();
+    }
+
+    /**
+     * Best suggestions for the typed prefix, ignoring case and repeated spaces
+     * @param field only values of this field, or null for all fields
+     */
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, Field field, int limit) {
+        String key = normalize(prefix);
+        int capped = Math.min(limit, topK);
+        if (key.isEmpty() || capped <= 0) {
+            return List.of();
+        }
+        Map<Field, SuggestionTrie> current = current();
+        if (field != null) {
+            return current.get(field).complete(key, capped);
+        }
+        List<SuggestionTrie.Suggestion> merged = new ArrayList<>();
+        current.values().forEach(trie -> merged.addAll(trie.complete(key, capped)));
+        merged.sort(SuggestionTrie.RANKING);
+        return merged.subList(0, Math.min(capped, merged.size()));
+    }
+
+    private Map<Field, SuggestionTrie> current() {
+        Map<Field, SuggestionTrie> current = tries;
+        if (current == null) {
+            synchronized (this) {
+                current = tries;
+                if (current == null) {
+                    load();
+                    current = tries;
+                }
+            }
+        }
+        return current;
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        for (Field field : Field.values()) {
+            working.put(field, new SuggestionTrie(topK));
+        }
+        List<Material> materials = transactionTemplate.execute(status -> materialRepository.findAll());
+        materials.forEach(material -> apply(material.getId(), material));
+        loaded = true;
+        publish();
+        log.info("Built suggestion tries of {} values from {} materials in {} ms", counts.size(), materials.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Replaces the terms of one material (null material: removes them), updating only the values whose count changed
+    private void apply(Long materialId, Material material) {
+        Set<Term> before = termsByMaterial.getOrDefault(materialId, Set.of());
+        Set<Term> after = new HashSet<>();
+        Map<Term, String> labels = new HashMap<>();
+        if (material != null) {
+            for (Field field : Field.values()) {
+                String value = field.accessor.apply(material);
+                String key = value == null ? "" : normalize(value);
+                if (!key.isEmpty()) {
+                    Term term = new Term(field, key);
+                    after.add(term);
+                    labels.put(term, value.trim().replaceAll("\\s+", " "));
+                }
+            }
+        }
+        for (Term term : before) {
+            if (!after.contains(term)) {
+                TermCount count = counts.get(term);
+                count.count--;
+                if (count.count == 0) {
+                    counts.remove(term);
+                }
+                store(term, count);
+            }
+        }
+        for (Term term : after) {
+            if (!before.contains(term)) {
+                TermCount count = counts.computeIfAbsent(term, t -> new TermCount(labels.get(t)));
+                count.count++;
+                store(term, count);
+            }
+        }
+        if (after.isEmpty()) {
+            termsByMaterial.remove(materialId);
+        } else {
+            termsByMaterial.put(materialId, after);
+        }
+    }
+
+    private void store(Term term, TermCount count) {
+        SuggestionTrie trie = working.get(term.field());
+        String type = term.field().parameter;
+        for (String key : wordKeys(term.key())) {
+            trie = count.count > 0
+                    ? trie.with(key, new SuggestionTrie.Suggestion(count.label, type, count.count))
+                    : trie.without(key, count.label, type);
+        }
+        working.put(term.field(), trie);
+    }
+
+    private void publish() {
+        tries = new EnumMap<>(working);
+    }
+
+    // The whole value and its tail from each later word on
+    private static Set<String> wordKeys(String key) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(key);
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            if (i + 1 < key.length()) {
+                keys.add(key.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
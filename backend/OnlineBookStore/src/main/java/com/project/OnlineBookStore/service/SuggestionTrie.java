@@ -0,0 +1,226 @@
+package com.project.OnlineBookStore.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable radix trie (edges labelled with strings, chains of single-child
+ * nodes collapsed) from normalized keys to suggestions. Every node keeps the
+ * best topK suggestions of its subtree, so a lookup walks the prefix and
+ * returns that precomputed list without visiting the subtree.
+ *
+ * Changes copy only the nodes on the path to the changed key; the top lists of
+ * those nodes are recomputed from their children's lists. Readers of an older
+ * trie are unaffected.
+ */
+public final class SuggestionTrie {
+
+    public record Suggestion(String text, String type, int count) {
+
+        boolean sameTerm(Suggestion other) {
+            return text.equals(other.text) && type.equals(other.type);
+        }
+    }
+
+    // Higher count first, then alphabetically
+    static final Comparator<Suggestion> RANKING = Comparator.comparingInt(Suggestion::count).reversed()
+            .thenComparing(Suggestion::text, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Suggestion::type);
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+    private static final Node[] LEAF = new Node[0];
+
+    private record Node(String edge, Node[] children, Suggestion[] own, Suggestion[] top) {
+    }
+
+    private final Node root;
+    private final int topK;
+
+    public SuggestionTrie(int topK) {
+        this(new Node("", LEAF, NONE, NONE), topK);
+    }
+
+    private SuggestionTrie(Node root, int topK) {
+        this.root = root;
+        this.topK = topK;
+    }
+
+    /**
+     * New trie with the suggestion stored under key, replacing a suggestion for
+     * the same text and type
+     */
+    public SuggestionTrie with(String key, Suggestion suggestion) {
+        return update(key, own -> {
+            Suggestion[] next = Arrays.stream(own).filter(existing -> !existing.sameTerm(suggestion))
+                    .toArray(size -> new Suggestion[size + 1]);
+            next[next.length - 1] = suggestion;
+            return next;
+        });
+    }
+
+    // New trie without the suggestion for text and type under key
+    public SuggestionTrie without(String key, String text, String type) {
+        Suggestion removed = new Suggestion(text, type, 0);
+        return update(key, own -> Arrays.stream(own).filter(existing -> !existing.sameTerm(removed))
+                .toArray(Suggestion[]::new));
+    }
+
+    /**
+     * Best suggestions whose key starts with prefix, at most topK
+     * @param prefix normalized like the keys
+     */
+    public List<Suggestion> complete(String prefix, int limit) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            Node child = child(node, prefix.charAt(pos));
+            if (child == null) {
+                return List.of();
+            }
+            String edge = child.edge();
+            int common = commonPrefix(edge, prefix, pos);
+            if (common < edge.length() && pos + common < prefix.length()) {
+                return List.of(); // diverges inside the edge
+            }
+            pos += common;
+            node = child;
+        }
+        Suggestion[] top = node.top();
+        return List.of(Arrays.copyOf(top, Math.min(limit, top.length)));
+    }
+
+    private SuggestionTrie update(String key, UnaryOperator<Suggestion[]> change) {
+        Node updated = update(root, key, 0, change);
+        return updated == root ? this : new SuggestionTrie(updated, topK); // the root is never collapsed
+    }
+
+    // node is reached with key[0, pos); returns the replacement, null if it became empty
+    private Node update(Node node, String key, int pos, UnaryOperator<Suggestion[]> change) {
+        if (pos == key.length()) {
+            return node(node.edge(), node.children(), change.apply(node.own()), node == root);
+        }
+        int index = childIndex(node, key.charAt(pos));
+        if (index < 0) {
+            Suggestion[] own = change.apply(NONE);
+            if (own.length == 0) {
+                return node;
+            }
+            Node leaf = node(key.substring(pos), LEAF, own, false);
+            return node(node.edge(), insert(node.children(), -index - 1, leaf), node.own(), node == root);
+        }
+        Node child = node.children()[index];
+        int common = commonPrefix(child.edge(), key, pos);
+        Node replacement;
+        if (common == child.edge().length()) {
+            replacement = update(child, key, pos + common, change);
+        } else {
+            if (change.apply(NONE).length == 0) {
+                return node; // removing a key that is not stored
+            }
+            Node tail = new Node(child.edge().substring(common), child.children(), child.own(), child.top());
+            Node split = new Node(child.edge().substring(0, common), new Node[]{tail}, NONE, tail.top());
+            replacement = update(split, key, pos + common, change);
+        }
+        if (replacement == child) {
+            return node;
+        }
+        Node[] children;
+        if (replacement == null) {
+            children = new Node[node.children().length - 1];
+            System.arraycopy(node.children(), 0, children, 0, index);
+            System.arraycopy(node.children(), index + 1, children, index, children.length - index);
+        } else {
+            children = node.children().clone();
+            children[index] = replacement;
+        }
+        return node(node.edge(), children, node.own(), node == root);
+    }
+
+    // Builds a node, collapsing it away if it holds nothing or only forwards to one child
+    private Node node(String edge, Node[] children, Suggestion[] own, boolean isRoot) {
+        if (!isRoot && own.length == 0) {
+            if (children.length == 0) {
+                return null;
+            }
+            if (children.length == 1) {
+                Node only = children[0];
+                return new Node(edge + only.edge(), only.children(), only.own(), only.top());
+            }
+        }
+        return new Node(edge, children, own, top(own, children));
+    }
+
+    // Merges the (ranked) top lists of the children with the node's own suggestions
+    private Suggestion[] top(Suggestion[] own, Node[] children) {
+        Suggestion[][] sources = new Suggestion[children.length + 1][];
+        sources[0] = own.clone();
+        Arrays.sort(sources[0], RANKING);
+        for (int i = 0; i < children.length; i++) {
+            sources[i + 1] = children[i].top();
+        }
+        int[] heads = new int[sources.length];
+        List<Suggestion> top = new ArrayList<>(topK);
+        while (top.size() < topK) {
+            int best = -1;
+            for (int i = 0; i < sources.length; i++) {
+                if (heads[i] < sources[i].length && (best < 0
+                        || RANKING.compare(sources[i][heads[i]], sources[best][heads[best]]) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            Suggestion candidate = sources[best][heads[best]++];
+            // a term stored under several keys (one per word) appears once
+            if (top.stream().noneMatch(candidate::sameTerm)) {
+                top.add(candidate);
+            }
+        }
+        return top.toArray(NONE);
+    }
+
+    private static Node child(Node node, char first) {
+        int index = childIndex(node, first);
+        return index >= 0 ? node.children()[index] : null;
+    }
+
+    // Children are sorted by their first character; binary search like Arrays.binarySearch
+    private static int childIndex(Node node, char first) {
+        Node[] children = node.children();
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = children[mid].edge().charAt(0);
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static Node[] insert(Node[] children, int index, Node child) {
+        Node[] result = new Node[children.length + 1];
+        System.arraycopy(children, 0, result, 0, index);
+        result[index] = child;
+        System.arraycopy(children, index, result, index + 1, children.length - index);
+        return result;
+    }
+
+    private static int commonPrefix(String edge, String key, int pos) {
+        int max = Math.min(edge.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && edge.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+}
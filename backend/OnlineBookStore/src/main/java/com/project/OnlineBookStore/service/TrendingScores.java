@@ -0,0 +1,85 @@
+package com.project.OnlineBookStore.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Exponentially time-decayed scores per material, updated without locks.
+ * Uses forward decay: an event at time t adds weight * e^(lambda (t - landmark))
+ * to a DoubleAdder, and the score at time now is that sum times
+ * e^(-lambda (now - landmark)). Stored sums never need to be decayed in place,
+ * so an update is a single add, and events may arrive with past timestamps
+ * (e.g. purchases loaded at startup).
+ *
+ * The stored sums grow with e^(lambda (t - landmark)); the landmark is moved
+ * forward after RENORMALIZE_AFTER half-lives, rescaling the sums into a new
+ * generation. Adds racing with that swap may be lost, once per that period.
+ */
+public final class TrendingScores {
+
+    private static final int RENORMALIZE_AFTER = 32; // half-lives; e^(lambda t) stays below 2^32
+
+    private final double lambdaPerSecond;
+    private final long renormalizeAfterSeconds;
+    private final Clock clock;
+    private volatile Generation generation;
+
+    public TrendingScores(Duration halfLife, Clock clock) {
+        this.lambdaPerSecond = Math.log(2) / halfLife.toSeconds();
+        this.renormalizeAfterSeconds = halfLife.toSeconds() * RENORMALIZE_AFTER;
+        this.clock = clock;
+        this.generation = new Generation(clock.instant().getEpochSecond(), new ConcurrentHashMap<>());
+    }
+
+    public void add(long materialId, double weight, Instant at) {
+        Generation current = generation;
+        current.sums().computeIfAbsent(materialId, id -> new DoubleAdder())
+                .add(weight * Math.exp(lambdaPerSecond * (at.getEpochSecond() - current.landmark())));
+    }
+
+    public double score(long materialId) {
+        Generation current = generation;
+        DoubleAdder sum = current.sums().get(materialId);
+        return sum == null ? 0 : sum.sum() * decayFactor(current);
+    }
+
+    // Current scores of all materials with events
+    public Map<Long, Double> scores() {
+        renormalizeIfDue();
+        Generation current = generation;
+        double factor = decayFactor(current);
+        Map<Long, Double> scores = new HashMap<>(current.sums().size() * 4 / 3 + 1);
+        current.sums().forEach((materialId, sum) -> scores.put(materialId, sum.sum() * factor));
+        return scores;
+    }
+
+    public void remove(long materialId) {
+        generation.sums().remove(materialId);
+    }
+
+    private double decayFactor(Generation current) {
+        return Math.exp(-lambdaPerSecond * (clock.instant().getEpochSecond() - current.landmark()));
+    }
+
+    private synchronized void renormalizeIfDue() {
+        Generation old = generation;
+        long now = clock.instant().getEpochSecond();
+        if (now - old.landmark() < renormalizeAfterSeconds) {
+            return;
+        }
+        Map<Long, DoubleAdder> sums = new ConcurrentHashMap<>();
+        Generation next = new Generation(now, sums);
+        generation = next;
+        double factor = Math.exp(-lambdaPerSecond * (now - old.landmark()));
+        old.sums().forEach((materialId, sum) ->
+                sums.computeIfAbsent(materialId, id -> new DoubleAdder()).add(sum.sumThenReset() * factor));
+    }
+
+    private record Generation(long landmark, Map<Long, DoubleAdder> sums) {
+    }
+}
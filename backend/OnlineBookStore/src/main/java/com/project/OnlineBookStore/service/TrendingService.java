@@ -0,0 +1,197 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.event.PurchaseStatusChangedEvent;
+import com.project.OnlineBookStore.model.PurchaseStatus;
+import com.project.OnlineBookStore.repository.PurchaseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trending (time-decayed purchases and views) and best-selling (all-time
+ * purchases) rankings. Purchases and views update in-memory counters without
+ * locks; every app.trending.ranking-interval-seconds the counters are sorted
+ * into a ranking snapshot. Listings filter that snapshot by university and
+ * faculty against the catalog snapshot, so they run no SQL aggregation: the
+ * only query per request is the user's owned ids.
+ */
+@Service
+public class TrendingService {
+
+    public enum Sort {
+        TRENDING, BEST_SELLING
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private final PurchaseRepository purchaseRepository;
+    private final PurchaseService purchaseService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final TransactionTemplate transactionTemplate;
+    private final TrendingScores scores;
+    private final Map<Long, LongAdder> sales = new ConcurrentHashMap<>();
+    private final double purchaseWeight;
+    private final double viewWeight;
+    private final Duration history;
+    private final long rankingIntervalSeconds;
+    private final ScheduledExecutorService ranker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trending-ranking");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Ranking ranking = new Ranking(new long[0], new long[0]);
+
+    public TrendingService(PurchaseRepository purchaseRepository, PurchaseService purchaseService,
+                           CatalogSnapshotService catalogSnapshotService, PlatformTransactionManager transactionManager,
+                           @Value("${app.trending.half-life-hours:24}") long halfLifeHours,
+                           @Value("${app.trending.purchase-weight:5}") double purchaseWeight,
+                           @Value("${app.trending.view-weight:1}") double viewWeight,
+                           @Value("${app.trending.history-days:14}") long historyDays,
+                           @Value("${app.trending.ranking-interval-seconds:30}") long rankingIntervalSeconds) {
+        this.purchaseRepository = purchaseRepository;
+        this.purchaseService = purchaseService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.scores = new TrendingScores(Duration.ofHours(halfLifeHours), Clock.systemUTC());
+        this.purchaseWeight = purchaseWeight;
+        this.viewWeight = viewWeight;
+        this.history = Duration.ofDays(historyDays);
+        this.rankingIntervalSeconds = rankingIntervalSeconds;
+    }
+
+    // Seeds the counters from the purchases table (views are not stored with a time), then ranks periodically
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ranker.execute(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.error("Loading purchases for the trending ranking failed; ranking only new events", e);
+            }
+            refreshRanking();
+        });
+        ranker.scheduleWithFixedDelay(this::refreshRanking, rankingIntervalSeconds, rankingIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void recordView(Long materialId) {
+        scores.add(materialId, viewWeight, Instant.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseStatusChanged(PurchaseStatusChangedEvent event) {
+        if (event.status() == PurchaseStatus.DONE) {
+            scores.add(event.materialId(), purchaseWeight, Instant.now());
+            sales.computeIfAbsent(event.materialId(), id -> new LongAdder()).increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        if (event.type() == MaterialChangedEvent.ChangeType.DELETED) {
+            scores.remove(event.materialId());
+            sales.remove(event.materialId());
+        }
+    }
+
+    /**
+     * Ranked materials as a JSON array of MaterialDTO with the user's purchase flags
+     * @param university only materials of this university (ignoring case), or null
+     * @param faculty only materials of this faculty (ignoring case), or null
+     */
+    public byte[] listing(Sort sort, String university, String faculty, int limit, Long userId) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        long[] ranked = sort == Sort.TRENDING ? ranking.trending() : ranking.bestSelling();
+        int[] positions = new int[Math.min(limit, ranked.length)];
+        int found = 0;
+        for (int i = 0; i < ranked.length && found < positions.length; i++) {
+            int position = snapshot.indexOf(ranked[i]);
+            if (position >= 0 && matches(university, snapshot.university(position))
+                    && matches(faculty, snapshot.faculty(position))) {
+                positions[found++] = position;
+            }
+        }
+        BitSet owned = snapshot.ownership(purchaseService.getOwnedMaterialIds(userId));
+        return snapshot.render(Arrays.copyOf(positions, found), owned);
+    }
+
+    public static Sort parseSort(String sort) {
+        try {
+            return Sort.valueOf(sort.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("sort must be trending or best-selling");
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        LocalDateTime since = LocalDateTime.now().minus(history);
+        ZoneId zone = ZoneId.systemDefault();
+        int[] loaded = transactionTemplate.execute(status -> {
+            List<Object[]> recent = purchaseRepository.findMaterialPurchaseDates(PurchaseStatus.DONE, since);
+            recent.forEach(row -> scores.add((Long) row[0], purchaseWeight, ((LocalDateTime) row[1]).atZone(zone).toInstant()));
+            List<Object[]> totals = purchaseRepository.countByMaterial(PurchaseStatus.DONE);
+            totals.forEach(row -> sales.computeIfAbsent((Long) row[0], id -> new LongAdder()).add((Long) row[1]));
+            return new int[]{recent.size(), totals.size()};
+        });
+        log.info("Loaded {} recent purchases and sales of {} materials for trending in {} ms", loaded[0], loaded[1],
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void refreshRanking() {
+        try {
+            Map<Long, Double> trending = scores.scores();
+            long[] byScore = trending.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .mapToLong(Map.Entry::getKey)
+                    .toArray();
+            long[] bySales = sales.entrySet().stream()
+                    .map(entry -> new long[]{entry.getKey(), entry.getValue().sum()})
+                    .filter(entry -> entry[1] > 0)
+                    .sorted(Comparator.<long[]>comparingLong(entry -> -entry[1]).thenComparingLong(entry -> entry[0]))
+                    .mapToLong(entry -> entry[0])
+                    .toArray();
+            ranking = new Ranking(byScore, bySales);
+        } catch (RuntimeException e) {
+            log.warn("Refreshing the trending ranking failed, keeping the previous one", e);
+        }
+    }
+
+    private static boolean matches(String filter, String value) {
+        return filter == null || filter.isBlank() || filter.equalsIgnoreCase(value);
+    }
+
+    // Material ids, best first
+    private record Ranking(long[] trending, long[] bestSelling) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ranker.shutdownNow();
+    }
+}
@@ -0,0 +1,48 @@
+package com.project.OnlineBookStore.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The address of the client behind a request. X-Forwarded-For is only
+ * believed when the request comes from one of the trusted proxies (e.g. the
+ * nginx front, see ../nginx/bookstore.conf): the header is walked from the
+ * right, skipping trusted hops, and the first other address is the client.
+ * Anyone else could put any address in the header, so for them the socket
+ * address is used.
+ */
+@Component
+public class ClientAddressResolver {
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final Set<String> trustedProxies;
+
+    public ClientAddressResolver(@Value("${app.trusted-proxies:127.0.0.1,0:0:0:0:0:0:0:1}") List<String> trustedProxies) {
+        this.trustedProxies = Set.copyOf(trustedProxies.stream().map(String::trim).filter(s -> !s.isEmpty()).toList());
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String forwarded = request.getHeader(X_FORWARDED_FOR);
+        if (forwarded == null || !trustedProxies.contains(address)) {
+            return address;
+        }
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            if (!trustedProxies.contains(hop)) {
+                return hop;
+            }
+            address = hop;
+        }
+        return address;
+    }
+}
@@ -0,0 +1,86 @@
+package com.project.OnlineBookStore.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+
+/**
+ * Signs and verifies short-lived download URLs. The HMAC-SHA256 signature
+ * covers material id, user id, stored filename and expiry, so the download
+ * path needs neither the JWT filter nor a database lookup.
+ */
+@Component
+public class DownloadUrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Mac prototype;
+    private final long ttlSeconds;
+    private final Clock clock;
+
+    @Autowired
+    public DownloadUrlSigner(@Value("${app.download.signing-secret:${jwt.secret}}") String secret,
+                             @Value("${app.download.url-ttl-seconds:300}") long ttlSeconds) {
+        this(secret, ttlSeconds, Clock.systemUTC());
+    }
+
+    DownloadUrlSigner(String secret, long ttlSeconds, Clock clock) {
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Relative URL of the signed download, valid for app.download.url-ttl-seconds
+     */
+    public String sign(Long materialId, Long userId, String filename) {
+        long expiresAt = clock.instant().getEpochSecond() + ttlSeconds;
+        return UriComponentsBuilder.fromPath("/api/files/{materialId}")
+                .queryParam("u", userId)
+                .queryParam("f", "{filename}")
+                .queryParam("e", expiresAt)
+                .queryParam("s", signature(materialId, userId, filename, expiresAt))
+                .encode()
+                .buildAndExpand(materialId, filename)
+                .toUriString();
+    }
+
+    public boolean isExpired(long expiresAt) {
+        return clock.instant().getEpochSecond() > expiresAt;
+    }
+
+    // Constant-time comparison; expiry is checked separately with isExpired
+    public boolean isValid(Long materialId, Long userId, String filename, long expiresAt, String signature) {
+        byte[] expected = signature(materialId, userId, filename, expiresAt).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public long secondsUntil(long expiresAt) {
+        return Math.max(0, expiresAt - clock.instant().getEpochSecond());
+    }
+
+    private String signature(Long materialId, Long userId, String filename, long expiresAt) {
+        Mac mac;
+        try {
+            mac = (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC instance cannot be cloned", e);
+        }
+        String payload = "download|" + materialId + "|" + userId + "|" + filename + "|" + expiresAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}
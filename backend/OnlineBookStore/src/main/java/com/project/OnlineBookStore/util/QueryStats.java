@@ -0,0 +1,76 @@
+package com.project.OnlineBookStore.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-request SQL statistics (statement count and time spent in JDBC).
+ * Bound to the request thread by SqlBudgetFilter and fed by the Hibernate
+ * StatementInspector / SessionEventListener registered in SqlBudgetConfig.
+ * Work on other threads is only tracked when it is wrapped with {@link #propagate};
+ * schedulers and other background work are not tracked.
+ */
+public class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private final AtomicLong dbNanos = new AtomicLong();
+
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    // Runs the task with the caller's statistics, for work fanned out to other threads
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        QueryStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            QueryStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    public void recordStatement() {
+        queryCount.incrementAndGet();
+    }
+
+    public void recordDbTime(long nanos) {
+        dbNanos.addAndGet(nanos);
+    }
+
+    public int getQueryCount() {
+        return queryCount.get();
+    }
+
+    public double getDbMillis() {
+        return dbNanos.get() / 1_000_000.0;
+    }
+
+    public double getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.project.OnlineBookStore.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTests {
+
+    private BoundedPasswordEncoder encoder;
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        encoder.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blocking(hashing, release), 1, 1, 5_000);
+
+        callers.submit(() -> encoder.encode("first"));
+        hashing.await();
+        callers.submit(() -> encoder.encode("queued"));
+        while (encoder.upgradeEncoding("hash")) {
+            Thread.sleep(5); // until the second hash is queued
+        }
+
+        assertThrows(BoundedPasswordEncoder.Saturated.class, () -> encoder.encode("rejected"));
+        release.countDown();
+    }
+
+    @Test
+    void timesOutSlowHashes() {
+        encoder = new BoundedPasswordEncoder(blocking(new CountDownLatch(1), new CountDownLatch(1)), 1, 1, 50);
+
+        assertThrows(BoundedPasswordEncoder.Saturated.class, () -> encoder.encode("slow"));
+    }
+
+    @Test
+    void weakerHashesAreUpgradedOnLogin() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 4, 5_000);
+        String weak = new BCryptPasswordEncoder(4).encode("secret");
+        AtomicReference<String> upgraded = new AtomicReference<>();
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(encoder);
+        provider.setUserDetailsService(email -> User.withUsername(email).password(weak).roles("USER").build());
+        provider.setUserDetailsPasswordService((user, newPassword) -> {
+            upgraded.set(newPassword);
+            return User.withUserDetails(user).password(newPassword).build();
+        });
+        provider.authenticate(new UsernamePasswordAuthenticationToken("a@example.com", "secret"));
+
+        assertTrue(upgraded.get().startsWith("$2a$05$"), upgraded.get());
+        assertTrue(encoder.matches("secret", upgraded.get()));
+        assertFalse(encoder.upgradeEncoding(upgraded.get()));
+    }
+
+    // Signals hashing when a hash starts, then holds it until release
+    private static PasswordEncoder blocking(CountDownLatch hashing, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return true;
+            }
+        };
+    }
+}
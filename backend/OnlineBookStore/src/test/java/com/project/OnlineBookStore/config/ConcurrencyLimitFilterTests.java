@@ -0,0 +1,93 @@
+package com.project.OnlineBookStore.config;
+
+import com.project.OnlineBookStore.service.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTests {
+
+    @Test
+    void classifiesRoutes() {
+        assertEquals(ConcurrencyLimitFilter.CATALOG, ConcurrencyLimitFilter.routeClass("/api/user/materials"));
+        assertEquals(ConcurrencyLimitFilter.CATALOG, ConcurrencyLimitFilter.routeClass("/api/materials/7"));
+        assertEquals(ConcurrencyLimitFilter.CATALOG, ConcurrencyLimitFilter.routeClass("/api/materials/7/download-url"));
+        assertEquals(ConcurrencyLimitFilter.CHECKOUT, ConcurrencyLimitFilter.routeClass("/api/materials/7/purchased"));
+        assertEquals(ConcurrencyLimitFilter.CHECKOUT, ConcurrencyLimitFilter.routeClass("/api/payment/confirm-payment"));
+        assertEquals(ConcurrencyLimitFilter.ADMIN, ConcurrencyLimitFilter.routeClass("/api/admin/purchases"));
+        assertEquals(ConcurrencyLimitFilter.ADMIN, ConcurrencyLimitFilter.routeClass("/actuator/prometheus"));
+        assertEquals(ConcurrencyLimitFilter.ADMIN, ConcurrencyLimitFilter.routeClass("/api/admin/materials"));
+        assertEquals(ConcurrencyLimitFilter.ADMIN, ConcurrencyLimitFilter.routeClass("/api/admin/uploadsx"));
+        // bulk transfers: their time is the client's bandwidth, not server latency
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/materials/7/download"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/files/7"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/user/materials/bundle"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/admin/uploads"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/admin/uploads/3f2a"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/admin/materials/import"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/user/events"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/api/auth/login"));
+        assertNull(ConcurrencyLimitFilter.routeClass("/actuator/health"));
+    }
+
+    @Test
+    void rejectsRequestsOverTheLimit() throws Exception {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.getRoutes().put(ConcurrencyLimitFilter.CHECKOUT, new ConcurrencyLimitProperties.Route(1, 1, 1));
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new MetricsService(new SimpleMeterRegistry()));
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/purchases"), new MockHttpServletResponse(), (req, res) ->
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/purchases"), inner, (r, s) -> {
+                    throw new AssertionError("admitted over the limit");
+                }));
+
+        assertEquals(503, inner.getStatus());
+        assertEquals("1", inner.getHeader("Retry-After"));
+        assertTrue(inner.getContentAsString().contains("busy"));
+
+        MockHttpServletResponse after = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/purchases"), after, (req, res) -> { });
+        assertEquals(200, after.getStatus());
+    }
+
+    @Test
+    void limitGrowsUnderLoadAndShrinksWhenLatencyRises() {
+        GradientLimiter limiter = new GradientLimiter(20, 4, 100, 1.5, 0.2);
+
+        for (int i = 0; i < 200; i++) {
+            busy(limiter, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(100, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            busy(limiter, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        assertTrue(limiter.getLimit() < 30, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void idleRouteDoesNotGrow() {
+        GradientLimiter limiter = new GradientLimiter(20, 4, 100, 1.5, 0.2);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.release(limiter.tryAcquire(), TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    // one request completing while the route is at its limit
+    private static void busy(GradientLimiter limiter, long rttNanos) {
+        limiter.tryAcquire();
+        limiter.release(limiter.getLimit(), rttNanos);
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.OnlineBookStore.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Two in-memory databases stand in for a primary and a replica
+class ReplicaDataSourceTests {
+
+    private final DataSource primary = database("primary");
+    private final DataSource replica = database("replica");
+
+    @BeforeEach
+    void setUp() {
+        for (DataSource db : List.of(primary, replica)) {
+            JdbcTemplate jdbc = new JdbcTemplate(db);
+            jdbc.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+            jdbc.execute("DELETE FROM node");
+        }
+        new JdbcTemplate(primary).update("INSERT INTO node VALUES ('primary')");
+        new JdbcTemplate(replica).update("INSERT INTO node VALUES ('replica')");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        DataSource routing = routing(replica);
+        assertEquals("replica", nodeName(routing, true));
+        assertEquals("primary", nodeName(routing, false));
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaIsDown() {
+        DataSource down = new DriverManagerDataSource() {
+            @Override
+            public java.sql.Connection getConnection() throws SQLException {
+                throw new SQLException("Connection refused");
+            }
+        };
+        assertEquals("primary", nodeName(routing(down), true));
+    }
+
+    @Test
+    void passesCredentialsToTheReplica() throws SQLException {
+        ReplicaDataSource replicas = new ReplicaDataSource(List.of(replica), primary, 5000);
+        try (java.sql.Connection connection = replicas.getConnection("sa", "")) {
+            assertEquals("replica", new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("SELECT name FROM node", String.class));
+        }
+    }
+
+    private DataSource routing(DataSource replicaTarget) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(new ReplicaDataSource(List.of(replicaTarget), primary, 5000));
+        return routing;
+    }
+
+    private static String nodeName(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,65 @@
+package com.project.OnlineBookStore.config;
+
+import com.project.OnlineBookStore.service.MetricsService;
+import com.project.OnlineBookStore.support.SqlBudgetAssertions;
+import com.project.OnlineBookStore.util.QueryStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqlBudgetFilterTests {
+
+    private final SqlBudgetProperties properties = new SqlBudgetProperties();
+    private final SqlBudgetFilter filter = new SqlBudgetFilter(properties, new MetricsService(new SimpleMeterRegistry()));
+
+    @Test
+    void writesServerTimingBeforeBodyIsCommitted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/materials");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            SqlStatementCounter counter = new SqlStatementCounter();
+            counter.inspect("select 1");
+            counter.inspect("select 2");
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/user/materials");
+            res.getOutputStream().write("[]".getBytes());
+            res.flushBuffer();
+        });
+
+        assertEquals(2, SqlBudgetAssertions.queryCount(resultOf(request, response)));
+        assertNull(QueryStats.current());
+    }
+
+    @Test
+    void configuredBudgetFailsAssertion() throws Exception {
+        properties.getEndpoints().put("/api/purchases", 1);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/purchases");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            new SqlStatementCounter().inspect("select 1");
+            new SqlStatementCounter().inspect("select 2");
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/purchases");
+        });
+
+        MvcResult result = resultOf(request, response);
+        SqlBudgetAssertions.queriesAtMost(2).match(result);
+        assertThrows(AssertionError.class, () -> SqlBudgetAssertions.withinConfiguredBudget(properties).match(result));
+    }
+
+    private static MvcResult resultOf(MockHttpServletRequest request, MockHttpServletResponse response) {
+        MvcResult result = mock(MvcResult.class);
+        when(result.getRequest()).thenReturn(request);
+        when(result.getResponse()).thenReturn(response);
+        return result;
+    }
+}
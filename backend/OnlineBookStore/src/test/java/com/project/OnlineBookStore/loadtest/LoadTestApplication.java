@@ -0,0 +1,36 @@
+package com.project.OnlineBookStore.loadtest;
+
+import com.project.OnlineBookStore.OnlineBookStoreApplication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Arrays;
+
+/**
+ * Starts the full application against the embedded H2 database and the local
+ * Stripe stub (profile "loadtest"). Run from backend/OnlineBookStore with:
+ *
+ * mvn spring-boot:test-run -Dspring-boot.run.main-class=com.project.OnlineBookStore.loadtest.LoadTestApplication
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        String[] withProfile = Arrays.copyOf(args, args.length + 1);
+        withProfile[args.length] = "--spring.profiles.include=loadtest";
+        SpringApplication.from(OnlineBookStoreApplication::main)
+                .with(StripeStubConfiguration.class)
+                .run(withProfile);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class StripeStubConfiguration {
+
+        @Bean(initMethod = "start", destroyMethod = "stop")
+        StripeStubServer stripeStubServer(@Value("${stripe.stub.port}") int port,
+                                          @Value("${stripe.stub.latency-ms:0}") long latencyMillis) {
+            return new StripeStubServer(port, latencyMillis);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.project.OnlineBookStore.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal local stand-in for the Stripe PaymentIntents API, used through
+ * Stripe.overrideApiBase (stripe.api-base). Every payment intent succeeds once
+ * it is retrieved or confirmed. An optional fixed latency emulates the network
+ * round trip to Stripe.
+ */
+public class StripeStubServer {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeStubServer.class);
+    private static final String PREFIX = "/v1/payment_intents";
+
+    private final int port;
+    private final long latencyMillis;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> amounts = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StripeStubServer(int port, long latencyMillis) {
+        this.port = port;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 512);
+        executor = Executors.newFixedThreadPool(64);
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        server.start();
+        log.info("Stripe stub listening on http://localhost:{} (latency {} ms)", port, latencyMillis);
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals(PREFIX) && method.equals("POST")) {
+                Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                String id = "pi_stub_" + sequence.incrementAndGet();
+                long amount = Long.parseLong(form.getOrDefault("amount", "0"));
+                amounts.put(id, amount);
+                respond(exchange, 200, paymentIntent(id, amount, form.getOrDefault("currency", "usd"), "requires_payment_method"));
+                return;
+            }
+            String id = path.substring(PREFIX.length() + 1).replace("/confirm", "");
+            Long amount = amounts.get(id);
+            if (amount == null) {
+                respond(exchange, 404, "{\"error\":{\"type\":\"invalid_request_error\",\"code\":\"resource_missing\","
+                        + "\"message\":\"No such payment_intent: " + id + "\"}}");
+                return;
+            }
+            respond(exchange, 200, paymentIntent(id, amount, "usd", "succeeded"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            respond(exchange, 500, "{\"error\":{\"type\":\"api_error\",\"message\":\"" + e.getMessage() + "\"}}");
+        }
+    }
+
+    private static String paymentIntent(String id, long amount, String currency, String status) {
+        return "{\"id\":\"" + id + "\",\"object\":\"payment_intent\",\"amount\":" + amount
+                + ",\"currency\":\"" + currency + "\",\"status\":\"" + status + "\""
+                + ",\"client_secret\":\"" + id + "_secret_stub\",\"created\":" + Instant.now().getEpochSecond()
+                + ",\"livemode\":false}";
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Request-Id", "req_stub");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.project.OnlineBookStore.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Scripted workload against a running instance (normally LoadTestApplication).
+ * Creates materials and users, then runs a weighted mix of browse, search,
+ * checkout and download operations from concurrent virtual users and prints
+ * throughput, p50/p99 latency and error rate per operation.
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.project.OnlineBookStore.loadtest.WorkloadGenerator \
+ *     -Dexec.args="--users=50 --materials=200 --concurrency=32 --duration=60 --mix=browse:60,search:20,checkout:10,download:10"
+ */
+public class WorkloadGenerator {
+
+    private static final String[] UNIVERSITIES = {
+            "University of Colombo", "University of Moratuwa", "University of Peradeniya", "University of Kelaniya"
+    };
+    private static final String[] FACULTIES = {"Science", "Engineering", "Medicine", "Management", "Arts"};
+    private static final byte[] PLACEHOLDER_PDF = ("%PDF-1.4\n1 0 obj<<>>endobj\ntrailer<<>>\n%%EOF\n")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<String, String> options;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Long> catalog = new CopyOnWriteArrayList<>();
+    private final List<VirtualUser> users = new CopyOnWriteArrayList<>();
+    private final NavigableMap<Integer, String> mix = new TreeMap<>();
+    private int mixTotal;
+
+    public WorkloadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = option("base-url", "http://localhost:8080");
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(intOption("concurrency", 32)))
+                .build();
+        for (String entry : option("mix", "browse:60,search:20,checkout:10,download:10").split(",")) {
+            String[] parts = entry.split(":");
+            mixTotal += Integer.parseInt(parts[1].trim());
+            mix.put(mixTotal, parts[0].trim());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(parts[0], parts.length > 1 ? parts[1] : "true");
+        }
+        WorkloadGenerator generator = new WorkloadGenerator(options);
+        generator.setUp();
+        Map<String, Recorder> results = generator.run();
+        generator.report(results);
+        System.exit(0);
+    }
+
+    // Catalog and user accounts used by the run
+    void setUp() throws Exception {
+        String adminToken = login(option("admin-email", "admin@example.com"), option("admin-password", "admin123"));
+        int materials = intOption("materials", 200);
+        int userCount = intOption("users", 50);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        ExecutorService setup = Executors.newFixedThreadPool(16);
+
+        List<Future<?>> pending = new ArrayList<>();
+        for (int i = 0; i < materials; i++) {
+            int n = i;
+            pending.add(setup.submit(() -> {
+                catalog.add(createMaterial(adminToken, n, runId));
+                return null;
+            }));
+        }
+        for (int i = 0; i < userCount; i++) {
+            int n = i;
+            pending.add(setup.submit(() -> {
+                String email = "loadtest-" + runId + "-" + n + "@example.com";
+                send(post("/api/auth/register", null, Map.of("fullName", "Load Test " + n,
+                        "email", email, "password", "password123")));
+                users.add(new VirtualUser(login(email, "password123")));
+                return null;
+            }));
+        }
+        for (Future<?> f : pending) {
+            f.get();
+        }
+        setup.shutdown();
+        System.out.printf("Setup complete: %d materials, %d users%n", catalog.size(), users.size());
+    }
+
+    Map<String, Recorder> run() throws Exception {
+        int concurrency = intOption("concurrency", 32);
+        long warmupNanos = TimeUnit.SECONDS.toNanos(intOption("warmup", 10));
+        long durationNanos = TimeUnit.SECONDS.toNanos(intOption("duration", 60));
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long deadline = measureFrom + durationNanos;
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Map<String, Recorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            VirtualUser user = users.get(i % users.size());
+            futures.add(workers.submit(() -> worker(user, measureFrom, deadline)));
+        }
+        Map<String, Recorder> merged = new TreeMap<>();
+        for (Future<Map<String, Recorder>> future : futures) {
+            future.get().forEach((op, recorder) -> merged.computeIfAbsent(op, Recorder::new).merge(recorder));
+        }
+        workers.shutdown();
+        return merged;
+    }
+
+    private Map<String, Recorder> worker(VirtualUser user, long measureFrom, long deadline) {
+        Map<String, Recorder> recorders = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            String op = mix.higherEntry(random.nextInt(mixTotal)).getValue();
+            long begin = System.nanoTime();
+            boolean ok;
+            try {
+                ok = switch (op) {
+                    case "browse" -> ok(send(get("/api/user/materials", user.token)));
+                    case "search" -> search(user, random);
+                    case "checkout" -> checkout(user, random);
+                    case "download" -> download(user, random);
+                    default -> throw new IllegalArgumentException("Unknown operation " + op);
+                };
+            } catch (Exception e) {
+                ok = false;
+            }
+            long end = System.nanoTime();
+            if (begin >= measureFrom) {
+                recorders.computeIfAbsent(op, Recorder::new).record(end - begin, ok);
+            }
+        }
+        return recorders;
+    }
+
+    private boolean search(VirtualUser user, ThreadLocalRandom random) throws Exception {
+        String path = random.nextBoolean()
+                ? "/api/user/materials/search/university/" + encode(UNIVERSITIES[random.nextInt(UNIVERSITIES.length)])
+                : "/api/user/materials/search/faculty/" + encode(FACULTIES[random.nextInt(FACULTIES.length)]);
+        return ok(send(get(path, user.token)));
+    }
+
+    private boolean checkout(VirtualUser user, ThreadLocalRandom random) throws Exception {
+        Long materialId = null;
+        for (int attempt = 0; attempt < 10 && materialId == null; attempt++) {
+            Long candidate = catalog.get(random.nextInt(catalog.size()));
+            if (!user.owned.contains(candidate)) {
+                materialId = candidate;
+            }
+        }
+        if (materialId == null) {
+            return ok(send(get("/api/purchases", user.token)));
+        }
+        HttpResponse<byte[]> intent = send(post("/api/payment/create-payment-intent", user.token,
+                Map.of("materialId", materialId)));
+        if (!ok(intent)) {
+            return false;
+        }
+        String paymentIntentId = mapper.readTree(intent.body()).path("paymentIntentId").asText();
+        boolean confirmed = ok(send(post("/api/payment/confirm-payment", user.token,
+                Map.of("paymentIntentId", paymentIntentId))));
+        if (confirmed) {
+            user.owned.add(materialId);
+        }
+        return confirmed;
+    }
+
+    private boolean download(VirtualUser user, ThreadLocalRandom random) throws Exception {
+        if (user.owned.isEmpty()) {
+            return checkout(user, random);
+        }
+        List<Long> owned = new ArrayList<>(user.owned);
+        Long materialId = owned.get(random.nextInt(owned.size()));
+        return ok(send(get("/api/materials/" + materialId + "/download", user.token)));
+    }
+
+    private Long createMaterial(String adminToken, int n, String runId) throws Exception {
+        String metadata = mapper.writeValueAsString(Map.of(
+                "title", "Load test notes " + runId + " #" + n,
+                "university", UNIVERSITIES[n % UNIVERSITIES.length],
+                "faculty", FACULTIES[n % FACULTIES.length],
+                "studentYear", n % 4 + 1,
+                "courseModule", "LT" + (1000 + n % 300),
+                "price", 500.0 + n % 10 * 100));
+        String boundary = "----loadtest" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"metadata\"\r\n"
+                + "Content-Type: application/json\r\n\r\n" + metadata + "\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"notes-" + n
+                + ".pdf\"\r\nContent-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(PLACEHOLDER_PDF);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/admin/materials"))
+                .header("Authorization", "Bearer " + adminToken)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build());
+        if (!ok(response)) {
+            throw new IllegalStateException("Material creation failed: " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return mapper.readTree(response.body()).path("id").asLong();
+    }
+
+    private String login(String email, String password) throws Exception {
+        HttpResponse<byte[]> response = send(post("/api/auth/login", null, Map.of("email", email, "password", password)));
+        JsonNode json = mapper.readTree(response.body());
+        if (!ok(response)) {
+            throw new IllegalStateException("Login failed for " + email + ": " + json);
+        }
+        return json.path("token").asText();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String token, Object json) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(json)));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static boolean ok(HttpResponse<?> response) {
+        return response.statusCode() / 100 == 2;
+    }
+
+    private static String encode(String segment) {
+        return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, Integer.toString(defaultValue)));
+    }
+
+    void report(Map<String, Recorder> results) {
+        double seconds = intOption("duration", 60);
+        Recorder total = new Recorder("TOTAL");
+        System.out.printf("%n%-10s %9s %8s %7s %10s %9s %9s %9s%n",
+                "operation", "requests", "errors", "err%", "req/s", "p50 ms", "p99 ms", "max ms");
+        for (Recorder recorder : results.values()) {
+            recorder.print(seconds);
+            total.merge(recorder);
+        }
+        total.print(seconds);
+    }
+
+    private static class VirtualUser {
+        final String token;
+        final Set<Long> owned = ConcurrentHashMap.newKeySet();
+
+        VirtualUser(String token) {
+            this.token = token;
+        }
+    }
+
+    // Exact latency samples of one operation; one instance per worker, merged at the end
+    static class Recorder {
+        private final String name;
+        private long[] samples = new long[1024];
+        private int size;
+        private long errors;
+
+        Recorder(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, boolean ok) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.samples[i], true);
+            }
+            errors += other.errors;
+        }
+
+        void print(double seconds) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            System.out.printf("%-10s %9d %8d %6.2f%% %10.1f %9.2f %9.2f %9.2f%n",
+                    name, size, errors, size == 0 ? 0.0 : errors * 100.0 / size, size / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    size == 0 ? 0.0 : sorted[size - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.MaterialDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CatalogSnapshotTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void renderMatchesSerializedDtos() throws Exception {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(7, materials(false, Set.of()), objectMapper);
+        Set<Long> owned = Set.of(2L, 5L, 6L);
+
+        byte[] rendered = snapshot.render(snapshot.ownership(List.of(2L, 5L, 6L, 99L)));
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(materials(true, owned)), rendered);
+        assertEquals(7, snapshot.getVersion());
+    }
+
+    @Test
+    void renderPageMatchesSerializedSubList() throws Exception {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1, materials(false, Set.of()), objectMapper);
+        Set<Long> owned = Set.of(1L, 3L, 5L);
+
+        byte[] page = snapshot.render(snapshot.ownership(owned), 2, 5);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(materials(true, owned).subList(2, 5)), page);
+        assertArrayEquals("[]".getBytes(), snapshot.render(snapshot.ownership(owned), 6, 6));
+    }
+
+    @Test
+    void renderPositionsKeepsTheGivenOrder() throws Exception {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1, materials(false, Set.of()), objectMapper);
+        List<MaterialDTO> expected = materials(true, Set.of(4L));
+
+        byte[] ranked = snapshot.render(new int[]{snapshot.indexOf(4), snapshot.indexOf(2)}, snapshot.ownership(List.of(4L, 6L)));
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(expected.get(3), expected.get(1))), ranked);
+        assertEquals(-1, snapshot.indexOf(99));
+    }
+
+    @Test
+    void gzippedJsonIsTheListingWithNothingOwned() throws Exception {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1, materials(false, Set.of()), objectMapper);
+
+        byte[] unzipped = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzippedJson())).readAllBytes();
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(materials(true, Set.of())), unzipped);
+    }
+
+    @Test
+    void rejectsUnsortedCatalog() {
+        List<MaterialDTO> unsorted = List.of(material(2, false), material(1, false));
+        assertThrows(IllegalArgumentException.class, () -> CatalogSnapshot.build(1, unsorted, objectMapper));
+    }
+
+    private static List<MaterialDTO> materials(boolean withOwnership, Set<Long> owned) {
+        return LongStream.rangeClosed(1, 6)
+                .mapToObj(id -> material(id, withOwnership && owned.contains(id)))
+                .toList();
+    }
+
+    private static MaterialDTO material(long id, boolean purchased) {
+        return new MaterialDTO(id, "Notes \"" + id + "\" ü", "University of Colombo", "Science", 2, "MOD" + id,
+                id * 100.0, Instant.parse("2024-01-01T00:00:00Z").plusSeconds(id), id * 3, id * 7, purchased);
+    }
+}
@@ -0,0 +1,51 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CatalogVersionServiceTests {
+
+    private final CatalogVersionService versions = new CatalogVersionService();
+
+    @Test
+    void catalogChangeInvalidatesEveryListing() {
+        String anonymous = versions.catalogETag(null);
+        String user = versions.catalogETag(1L);
+
+        versions.bumpCatalog();
+
+        assertNotEquals(anonymous, versions.catalogETag(null));
+        assertNotEquals(user, versions.catalogETag(1L));
+    }
+
+    @Test
+    void ownershipChangeOnlyInvalidatesThatUser() {
+        String first = versions.catalogETag(1L);
+        String second = versions.catalogETag(2L);
+        String anonymous = versions.catalogETag(null);
+
+        versions.bumpOwnership(1L);
+
+        assertNotEquals(first, versions.catalogETag(1L));
+        assertEquals(second, versions.catalogETag(2L));
+        assertEquals(anonymous, versions.catalogETag(null));
+    }
+
+    @Test
+    void bumpInsideTransactionWaitsForCommit() {
+        String before = versions.catalogETag(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versions.bumpOwnership(1L);
+            assertEquals(before, versions.catalogETag(1L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNotEquals(before, versions.catalogETag(1L));
+    }
+}
@@ -0,0 +1,219 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.dto.MaterialDetailsRequest;
+import com.project.OnlineBookStore.dto.UploadStatusDTO;
+import com.project.OnlineBookStore.model.Material;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceTests {
+
+    private static final byte[] CONTENT = "%PDF-1.7 resumable upload test content".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path uploadDir;
+
+    private ChunkedUploadService service;
+    private FileStorageService fileStorageService;
+    private final MaterialService materialService = mock(MaterialService.class);
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void keepsBytesOfBrokenChunkAndResumesFromOffset() throws Exception {
+        service = service(32);
+        String id = service.create("large.pdf", (long) CONTENT.length).getUploadId();
+
+        // connection drops after 10 bytes of the first chunk
+        assertThrows(IOException.class, () -> service.writeChunk(id, 0, failingAfter(10)));
+        assertEquals(10, service.find(id).orElseThrow().getOffset());
+
+        // resending a few already received bytes is fine
+        service.writeChunk(id, 6, chunk(6, 16));
+        UploadStatusDTO status = service.writeChunk(id, 16, chunk(16, CONTENT.length));
+
+        assertTrue(status.getComplete());
+        assertArrayEquals(CONTENT, Files.readAllBytes(fileStorageService.partialDir().resolve(id + ".part")));
+    }
+
+    @Test
+    void rejectsChunkLeavingAGap() throws Exception {
+        service = service(16);
+        String id = service.create("large.pdf", (long) CONTENT.length).getUploadId();
+        service.writeChunk(id, 0, chunk(0, 8));
+
+        ChunkedUploadService.OffsetMismatchException e = assertThrows(ChunkedUploadService.OffsetMismatchException.class,
+                () -> service.writeChunk(id, 12, chunk(12, 16)));
+
+        assertEquals(8, e.getExpectedOffset());
+        assertEquals(8, service.find(id).orElseThrow().getOffset());
+    }
+
+    @Test
+    void rejectsChunksBeyondLimits() throws Exception {
+        service = service(16);
+        String id = service.create("large.pdf", (long) CONTENT.length).getUploadId();
+
+        assertThrows(IllegalArgumentException.class, () -> service.writeChunk(id, 0, chunk(0, CONTENT.length)));
+        assertThrows(IllegalArgumentException.class, () -> service.create("large.pdf", 2L << 30));
+        assertThrows(RuntimeException.class, () -> service.create("../large.pdf", 10L));
+    }
+
+    @Test
+    void finalizeRequiresCompletePdf() throws Exception {
+        service = service(64);
+        String id = service.create("large.pdf", (long) CONTENT.length).getUploadId();
+        service.writeChunk(id, 0, chunk(0, 20));
+
+        assertThrows(ChunkedUploadService.OffsetMismatchException.class, () -> service.finalizeUpload(id, null, null));
+        assertTrue(service.abort(id));
+        assertFalse(Files.exists(fileStorageService.partialDir().resolve(id + ".part")));
+    }
+
+    @Test
+    void finalizeAttachesTheDetailsAndEndsTheSession() throws Exception {
+        service = service(64);
+        String id = service.create("large.pdf", (long) CONTENT.length).getUploadId();
+        service.writeChunk(id, 0, chunk(0, CONTENT.length));
+        when(materialService.attachStoredFile(isNull(), any(), anyString()))
+                .thenAnswer(invocation -> {
+                    Material material = invocation.getArgument(1);
+                    material.setFilename(invocation.getArgument(2));
+                    return material;
+                });
+
+        Material saved = service.finalizeUpload(id,
+                new MaterialDetailsRequest("Contract Law", "UCL", "Law", 2, "LAW201", 4.5), null);
+
+        assertEquals("Contract Law", saved.getTitle());
+        assertNull(saved.getId());
+        assertTrue(service.find(id).isEmpty());
+        assertArrayEquals(CONTENT, Files.readAllBytes(fileStorageService.load(saved.getFilename())));
+    }
+
+    @Test
+    void failedSaveGivesTheFileBackToTheSession() throws Exception {
+        service = service(64);
+        String id = service.create("large.pdf", (long) CONTENT.length).getUploadId();
+        service.writeChunk(id, 0, chunk(0, CONTENT.length));
+        when(materialService.attachStoredFile(any(), any(), anyString()))
+                .thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> service.finalizeUpload(id,
+                new MaterialDetailsRequest("Contract Law", "UCL", "Law", 2, "LAW201", 4.5), null));
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(fileStorageService.partialDir().resolve(id + ".part")));
+        assertTrue(service.find(id).orElseThrow().getComplete());
+    }
+
+    @Test
+    void abortIsNotBlockedByAChunkStillArriving() throws Exception {
+        service = service(64);
+        String id = service.create("large.pdf", (long) CONTENT.length).getUploadId();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch aborted = new CountDownLatch(1);
+        // a slow client: the first bytes arrive, the rest only after the abort
+        InputStream slow = new SequenceInputStream(chunk(0, 10), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                reading.countDown();
+                try {
+                    aborted.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return -1;
+            }
+        });
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<UploadStatusDTO> write = writer.submit(() -> service.writeChunk(id, 0, slow));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            assertTrue(CompletableFuture.supplyAsync(() -> service.abort(id)).get(5, TimeUnit.SECONDS));
+            aborted.countDown();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> write.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ChunkedUploadService.UploadNotFoundException.class, e.getCause());
+        } finally {
+            writer.shutdownNow();
+        }
+        assertThrows(ChunkedUploadService.UploadNotFoundException.class, () -> service.writeChunk(id, 0, chunk(0, 4)));
+        try (Stream<Path> left = Files.list(fileStorageService.partialDir())) {
+            assertEquals(0, left.count());
+        }
+    }
+
+    private ChunkedUploadService service(long maxChunkSize) {
+        MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+        fileStorageService = new FileStorageService(uploadDir.toString(), metricsService);
+        return new ChunkedUploadService(fileStorageService, materialService, metricsService, 1L << 30, maxChunkSize,
+                60, 600);
+    }
+
+    private static InputStream chunk(int from, int to) {
+        return new ByteArrayInputStream(CONTENT, from, to - from);
+    }
+
+    // Delivers the first bytes of CONTENT, then fails like a dropped connection
+    private static InputStream failingAfter(int bytes) {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == bytes) {
+                    throw new IOException("Connection reset");
+                }
+                return CONTENT[position++];
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (position == bytes) {
+                    throw new IOException("Connection reset");
+                }
+                int n = Math.min(length, bytes - position);
+                System.arraycopy(CONTENT, position, buffer, offset, n);
+                position += n;
+                return n;
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoPurchaseMatrixTests {
+
+    @Test
+    void ranksByCoPurchasesThenById() {
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix(100, 20);
+        buy(matrix, 1, 10, 20, 30);
+        buy(matrix, 2, 10, 30);
+        buy(matrix, 3, 10, 40, 30);
+
+        assertArrayEquals(new long[]{30, 20, 40}, matrix.related(10, 5));
+        assertArrayEquals(new long[]{30}, matrix.related(10, 1));
+        assertEquals(3, matrix.count(30, 10));
+        assertArrayEquals(new long[0], matrix.related(99, 5));
+    }
+
+    @Test
+    void repeatedPurchaseIsIgnored() {
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix(100, 20);
+        buy(matrix, 1, 10, 20);
+
+        assertFalse(matrix.add(1, 20));
+        assertTrue(matrix.add(2, 20));
+        assertEquals(1, matrix.count(10, 20));
+    }
+
+    @Test
+    void pairsOnlyWithRecentPurchasesOfLargeBaskets() {
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix(3, 20);
+        buy(matrix, 1, 10, 20, 30, 40);
+
+        assertEquals(0, matrix.count(40, 10));
+        assertEquals(1, matrix.count(40, 20));
+        assertEquals(1, matrix.count(40, 30));
+    }
+
+    @Test
+    void parallelBuildMatchesIncrementalUpdates() {
+        SplittableRandom random = new SplittableRandom(7);
+        Map<Long, long[]> baskets = new HashMap<>();
+        CoPurchaseMatrix incremental = new CoPurchaseMatrix(25, 10);
+        for (long user = 1; user <= 500; user++) {
+            long[] basket = LongStream.generate(() -> random.nextLong(1, 200)).distinct()
+                    .limit(random.nextInt(1, 40)).toArray();
+            baskets.put(user, basket);
+            buy(incremental, user, basket);
+        }
+
+        CoPurchaseMatrix built = CoPurchaseMatrix.build(baskets, 25, 10);
+
+        assertEquals(incremental.materials(), built.materials());
+        for (long material = 1; material < 200; material++) {
+            assertArrayEquals(incremental.related(material, 10), built.related(material, 10), "material " + material);
+            assertEquals(incremental.count(material, material + 1), built.count(material, material + 1));
+        }
+        // the built matrix keeps the baskets, so later purchases pair as they would have
+        assertFalse(built.add(1, baskets.get(1L)[0]));
+    }
+
+    private static void buy(CoPurchaseMatrix matrix, long userId, long... materialIds) {
+        for (long materialId : materialIds) {
+            matrix.add(userId, materialId);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentIndexTests {
+
+    private static final long MAX_SEGMENT_BYTES = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsDocsContainingAllTermsWithSnippets() throws IOException {
+        ContentIndex index = ContentIndex.open(dir, 10, MAX_SEGMENT_BYTES);
+        index.add(1, "a.pdf", "Thermodynamics lecture. The second law of thermodynamics says entropy grows.");
+        index.add(2, "b.pdf", "Entropy in information theory, and entropy coding.");
+        index.add(3, "c.pdf", "Organic chemistry notes.");
+
+        assertEquals(List.of(), index.search("entropy", 10)); // not flushed yet
+        assertTrue(index.flush());
+
+        assertEquals(List.of(2L, 1L), ids(index.search("Entropy", 10)));
+        assertEquals(List.of(1L), ids(index.search("entropy LAW", 10)));
+        assertEquals(List.of(), ids(index.search("entropy chemistry", 10)));
+        assertEquals(List.of(), ids(index.search("?!", 10)));
+        assertEquals("Organic chemistry notes.", index.search("chemistry", 1).get(0).snippet());
+    }
+
+    @Test
+    void newerEntriesSupersedeOlderOnesAcrossMergesAndRestarts() throws IOException {
+        ContentIndex index = ContentIndex.open(dir, 2, MAX_SEGMENT_BYTES);
+        index.add(1, "v1.pdf", "linear algebra matrices");
+        index.add(2, "b.pdf", "calculus limits");
+        index.add(4, "d.pdf", "algebra groups");
+        index.flush();
+        index.add(1, "v2.pdf", "graph theory");
+        index.delete(2);
+        index.flush();
+        index.add(3, "c.pdf", "graph algorithms");
+        index.delete(99); // never indexed: nothing to write
+        index.flush();
+
+        assertEquals(List.of(4L), ids(index.search("algebra", 10)));
+        assertEquals(List.of(), ids(index.search("calculus", 10)));
+        assertEquals(3, index.segmentCount());
+
+        assertTrue(index.maybeMerge());
+        assertFalse(index.maybeMerge());
+        assertEquals(2, index.segmentCount());
+        assertEquals(List.of(4L), ids(index.search("algebra", 10)));
+        assertEquals(List.of(1L, 3L), ids(index.search("graph", 10)));
+        assertEquals(Map.of(1L, "v2.pdf", 3L, "c.pdf", 4L, "d.pdf"), index.sources());
+
+        ContentIndex reopened = ContentIndex.open(dir, 2, MAX_SEGMENT_BYTES);
+        assertEquals(3, reopened.size());
+        assertEquals(List.of(), ids(reopened.search("calculus", 10)));
+        assertEquals(List.of(1L, 3L), ids(reopened.search("graph", 10)));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(3, files.count()); // manifest and two segments, merged ones removed
+        }
+    }
+
+    @Test
+    void snippetShowsTheFirstMatchInLongText() throws IOException {
+        ContentIndex index = ContentIndex.open(dir, 10, MAX_SEGMENT_BYTES);
+        String filler = "lorem ipsum dolor sit amet ".repeat(4000);
+        index.add(1, "long.pdf", filler + "the Fourier transform of a Gaussian is a Gaussian " + filler);
+        index.flush();
+
+        String snippet = index.search("fourier", 1).get(0).snippet();
+
+        assertTrue(snippet.startsWith("…") && snippet.endsWith("…"), snippet);
+        assertTrue(snippet.contains("the Fourier transform of a Gaussian"), snippet);
+        assertTrue(snippet.length() < 260, snippet);
+    }
+
+    private static List<Long> ids(List<ContentIndex.Hit> hits) {
+        return hits.stream().map(ContentIndex.Hit::materialId).toList();
+    }
+}
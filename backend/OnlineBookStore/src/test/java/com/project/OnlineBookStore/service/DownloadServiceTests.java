@@ -0,0 +1,240 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.model.Material;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DownloadServiceTests {
+
+    @TempDir
+    Path uploadDir;
+
+    private final MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+
+    private final DownloadLane lane = new DownloadLane(metricsService, 1, 1, 1, 0, 60);
+
+    @AfterEach
+    void shutdown() {
+        lane.shutdown();
+    }
+
+    @Test
+    void streamsFileWithoutOffload() throws Exception {
+        DownloadService service = service("none");
+        String filename = store("notes.pdf");
+
+        ResponseEntity<StreamingResponseBody> response = service.serve(filename, null, null, 1L, metricsService.startTimer());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(8, response.getHeaders().getContentLength());
+        assertNull(response.getHeaders().getFirst(DownloadService.X_ACCEL_REDIRECT));
+        assertEquals("%PDF-1.4", written(response));
+    }
+
+    @Test
+    void streamsSingleRanges() throws Exception {
+        DownloadService service = service("none");
+        String filename = store("notes.pdf");
+
+        ResponseEntity<StreamingResponseBody> response = service.serve(filename, null, "bytes=5-", 1L, metricsService.startTimer());
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 5-7/8", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("1.4", written(response));
+
+        ResponseEntity<StreamingResponseBody> suffix = service.serve(filename, null, "bytes=-2", 1L, metricsService.startTimer());
+        assertEquals(".4", written(suffix));
+
+        ResponseEntity<StreamingResponseBody> beyond = service.serve(filename, null, "bytes=8-", 1L, metricsService.startTimer());
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, beyond.getStatusCode());
+        assertEquals("bytes */8", beyond.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+
+        ResponseEntity<StreamingResponseBody> multiple = service.serve(filename, null, "bytes=0-1,4-5", 1L, metricsService.startTimer());
+        assertEquals(HttpStatus.OK, multiple.getStatusCode());
+        assertEquals("%PDF-1.4", written(multiple));
+    }
+
+    @Test
+    void limitsConcurrentDownloadsPerUserAndLane() throws Exception {
+        DownloadService service = service("none");
+        String filename = store("notes.pdf");
+
+        ResponseEntity<StreamingResponseBody> first = service.serve(filename, null, null, 1L, metricsService.startTimer());
+        assertThrows(DownloadLane.TooManyDownloads.class,
+                () -> service.serve(filename, null, null, 1L, metricsService.startTimer()));
+        ResponseEntity<StreamingResponseBody> second = service.serve(filename, null, null, 2L, metricsService.startTimer());
+        assertThrows(DownloadLane.Full.class, () -> service.serve(filename, null, null, 3L, metricsService.startTimer()));
+
+        written(first);
+        written(second);
+        assertEquals("%PDF-1.4", written(service.serve(filename, null, null, 1L, metricsService.startTimer())));
+    }
+
+    @Test
+    void admittedRequestIsWrittenOnTheLane() throws Exception {
+        String filename = store("notes.pdf");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        // what the handler adapter sets up for every request before calling the handler
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, new MockHttpServletResponse()));
+        asyncManager.setTaskExecutor(new SimpleAsyncTaskExecutor("mvc-"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            service("none").serve(filename, null, null, 1L, metricsService.startTimer());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        asyncManager.startCallableProcessing(() -> Thread.currentThread().getName());
+
+        assertEquals(60_000, request.getAsyncContext().getTimeout());
+        for (int i = 0; i < 500 && !asyncManager.hasConcurrentResult(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("download-1", asyncManager.getConcurrentResult());
+    }
+
+    @Test
+    void queuedBodyOfAnEndedRequestDoesNotWrite() throws Exception {
+        DownloadService service = service("none");
+        String filename = store("notes.pdf");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        ResponseEntity<StreamingResponseBody> timedOut;
+        try {
+            timedOut = service.serve(filename, null, null, 1L, metricsService.startTimer());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        // the request ends (e.g. times out) while its body is still queued: the slot is freed at once
+        lane.releaseOnCompletion().afterCompletion(request, new MockHttpServletResponse(), null, null);
+        ResponseEntity<StreamingResponseBody> next = service.serve(filename, null, null, 1L, metricsService.startTimer());
+
+        assertEquals("", written(timedOut));
+        assertEquals("%PDF-1.4", written(next));
+    }
+
+    @Test
+    void accelRedirectPointsAtInternalLocation() throws Exception {
+        DownloadService service = service("x-accel-redirect");
+        String filename = store("my notes.pdf");
+
+        ResponseEntity<StreamingResponseBody> response = service.serve(filename, null, null, 1L, metricsService.startTimer());
+
+        assertNull(response.getBody());
+        assertEquals("/protected-files/" + filename.replace(" ", "%20"),
+                response.getHeaders().getFirst(DownloadService.X_ACCEL_REDIRECT));
+        assertEquals("application/pdf", response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    void sendfileCarriesAbsolutePath() throws Exception {
+        DownloadService service = service("X-Sendfile");
+        String filename = store("notes.pdf");
+
+        ResponseEntity<StreamingResponseBody> response = service.serve(filename, null, null, 1L, metricsService.startTimer());
+
+        assertNull(response.getBody());
+        assertEquals(uploadDir.toRealPath().resolve(filename).toString(), response.getHeaders().getFirst(DownloadService.X_SENDFILE));
+    }
+
+    @Test
+    void missingFileIsNotOffloaded() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = service("x-accel-redirect").serve("missing.pdf", null, null, 1L, metricsService.startTimer());
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(DownloadService.X_ACCEL_REDIRECT));
+    }
+
+    @Test
+    void bundleStreamsStoredEntries() throws Exception {
+        DownloadService service = service("x-accel-redirect");
+        Material first = material(1L, "Algebra: week 1", store("a.pdf"));
+        Material second = material(2L, "Algebra: week 1", store("b.pdf"));
+        Material missing = material(3L, "Gone", "missing.pdf");
+
+        ResponseEntity<StreamingResponseBody> response = service.bundle(List.of(first, second, missing), "materials.zip",
+                1L, metricsService.startTimer());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                assertEquals("%PDF-1.4", new String(zip.readAllBytes(), StandardCharsets.US_ASCII));
+                names.add(entry.getName());
+            }
+        }
+        assertEquals(List.of("Algebra_ week 1.pdf", "Algebra_ week 1 (2).pdf"), names);
+    }
+
+    @Test
+    void emptyBundleIsRejectedWithoutTakingALaneSlot() throws Exception {
+        DownloadService service = service("none");
+
+        assertThrows(DownloadService.EmptyBundle.class,
+                () -> service.bundle(List.of(), "materials.zip", 1L, metricsService.startTimer()));
+        assertThrows(DownloadService.EmptyBundle.class, () -> service.bundle(List.of(material(3L, "Gone", "missing.pdf")),
+                "materials.zip", 1L, metricsService.startTimer()));
+
+        assertEquals("%PDF-1.4", written(service.serve(store("notes.pdf"), null, null, 1L, metricsService.startTimer())));
+    }
+
+    @Test
+    void rejectsUnknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> service("proxy"));
+    }
+
+    private DownloadService service(String mode) {
+        return new DownloadService(new FileStorageService(uploadDir.toString(), metricsService), metricsService,
+                lane, mode, "/protected-files");
+    }
+
+    private static String written(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static Material material(Long id, String title, String filename) {
+        Material material = new Material();
+        material.setId(id);
+        material.setTitle(title);
+        material.setFilename(filename);
+        return material;
+    }
+
+    private String store(String name) {
+        FileStorageService storage = new FileStorageService(uploadDir.toString(), metricsService);
+        return storage.store(name, new ByteArrayInputStream("%PDF-1.4".getBytes(StandardCharsets.US_ASCII)));
+    }
+}
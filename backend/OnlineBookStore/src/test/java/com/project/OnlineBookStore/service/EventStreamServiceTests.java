@@ -0,0 +1,177 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.event.PurchaseStatusChangedEvent;
+import com.project.OnlineBookStore.model.PurchaseStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventStreamServiceTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EventStreamService events;
+
+    @AfterEach
+    void shutdown() {
+        events.shutdown();
+    }
+
+    private EventStreamService events(int clientBuffer, int writerThreads, long writeTimeoutMillis,
+                                      RecordingEmitter... emitters) {
+        List<RecordingEmitter> pending = new CopyOnWriteArrayList<>(List.of(emitters));
+        events = new EventStreamService(null, new ObjectMapper(), new MetricsService(registry), clientBuffer, 3600,
+                writerThreads, writeTimeoutMillis, () -> pending.remove(0));
+        return events;
+    }
+
+    @Test
+    void purchaseEventsGoOnlyToTheBuyerAndAdmins() {
+        RecordingEmitter buyer = new RecordingEmitter(null);
+        RecordingEmitter other = new RecordingEmitter(null);
+        RecordingEmitter admin = new RecordingEmitter(null);
+        events(16, 2, 10_000, buyer, other, admin);
+        events.subscribe(1L, false);
+        events.subscribe(2L, false);
+        events.subscribe(3L, true);
+
+        events.onPurchaseStatusChanged(new PurchaseStatusChangedEvent(10L, 1L, 5L, PurchaseStatus.DONE));
+        events.onMaterialChanged(new MaterialChangedEvent(5L, MaterialChangedEvent.ChangeType.DELETED, null));
+
+        // each client's events arrive in order, so after "material" nothing else is coming
+        for (RecordingEmitter emitter : List.of(buyer, other, admin)) {
+            await(() -> emitter.count("event:material") == 1);
+        }
+        assertEquals(1, buyer.count("event:purchase"));
+        assertEquals(1, admin.count("event:purchase"));
+        assertEquals(0, other.count("event:purchase"));
+    }
+
+    @Test
+    void clientWhoseBufferOverflowsIsDisconnected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        events(2, 1, 10_000, slow);
+        events.subscribe(1L, false);
+        await(() -> slow.writing);
+
+        for (int i = 0; i < 3; i++) {
+            events.onMaterialChanged(new MaterialChangedEvent((long) i, MaterialChangedEvent.ChangeType.DELETED, null));
+        }
+        release.countDown();
+
+        await(() -> slow.completed);
+        assertEquals(1.0, registry.counter("bookstore.events.evictions", "reason", "buffer_full").count());
+        assertEquals(0, slow.count("event:material"));
+    }
+
+    @Test
+    void stalledWriteIsEvictedWithoutHoldingUpOtherClients() {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        events(16, 2, 100, stalled, healthy);
+        events.subscribe(1L, false);
+        events.subscribe(2L, false);
+
+        await(() -> registry.counter("bookstore.events.evictions", "reason", "write_timeout").count() == 1.0);
+        events.onMaterialChanged(new MaterialChangedEvent(5L, MaterialChangedEvent.ChangeType.DELETED, null));
+        await(() -> healthy.count("event:material") == 1);
+        assertFalse(stalled.completed);
+
+        release.countDown();
+        await(() -> stalled.completed);
+        assertEquals(0, stalled.count("event:material"));
+    }
+
+    @Test
+    void eventsQueuedWhileADrainFinishesAreDelivered() throws Exception {
+        Semaphore written = new Semaphore(0);
+        RecordingEmitter client = new RecordingEmitter(null);
+        // after each write, let the next event be published while this drain is finishing
+        client.afterWrite = () -> {
+            written.release();
+            long until = System.nanoTime() + ThreadLocalRandom.current().nextInt(2_000);
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+        };
+        events(16, 1, 10_000, client);
+        events.subscribe(1L, false);
+
+        // some of these land between the drain's last poll and the reset of its draining flag;
+        // they must still be sent by a follow-up drain, or the next write never comes
+        for (int i = 1; i <= 100_000; i++) {
+            assertTrue(written.tryAcquire(10, TimeUnit.SECONDS), "event " + (i - 1) + " was not delivered");
+            events.onMaterialChanged(new MaterialChangedEvent((long) i, MaterialChangedEvent.ChangeType.DELETED, null));
+        }
+        assertTrue(written.tryAcquire(10, TimeUnit.SECONDS), "last event was not delivered");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 10s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Records what would be written; with a latch, the first write blocks until it is released
+    private static class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch release;
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private volatile boolean writing;
+        private volatile boolean completed;
+        private Runnable afterWrite = () -> { };
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) throws IOException {
+            if (completed) {
+                throw new IllegalStateException("completed");
+            }
+            writing = true;
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            sent.add(text.toString());
+            afterWrite.run();
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        // number of sent events containing the line, e.g. "event:purchase" or ":connected"
+        long count(String marker) {
+            return sent.stream().filter(text -> text.contains(marker + "\n")).count();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringTokenBucketsTests {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    void refilledBucketsAreForgotten() {
+        ExpiringTokenBuckets buckets = new ExpiringTokenBuckets(100, 2, 6, clock::get);
+
+        buckets.tryAcquire("alice@example.com");
+        buckets.tryAcquire("alice@example.com");
+        assertTrue(buckets.tryAcquire("alice@example.com") > 0);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(15));
+        buckets.tryAcquire("bob@example.com");
+        assertEquals(2, buckets.size());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, buckets.tryAcquire("carol@example.com"));
+        assertEquals(2, buckets.size());
+        assertEquals(0, buckets.tryAcquire("alice@example.com"));
+        assertEquals(0, buckets.tryAcquire("alice@example.com"));
+    }
+
+    @Test
+    void keepsAtMostMaxKeys() {
+        ExpiringTokenBuckets buckets = new ExpiringTokenBuckets(3, 1, 1, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, buckets.tryAcquire("user-" + i + "@example.com"));
+        }
+
+        assertEquals(3, buckets.size());
+        assertTrue(buckets.tryAcquire("user-9@example.com") > 0);
+    }
+}
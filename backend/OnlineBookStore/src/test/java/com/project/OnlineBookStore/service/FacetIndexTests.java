@@ -0,0 +1,100 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.model.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.project.OnlineBookStore.service.FacetIndex.Facet.FACULTY;
+import static com.project.OnlineBookStore.service.FacetIndex.Facet.STUDENT_YEAR;
+import static com.project.OnlineBookStore.service.FacetIndex.Facet.UNIVERSITY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FacetIndexTests {
+
+    private final FacetIndex index = FacetIndex.build(List.of(
+            material(1L, "UCL", "Law", 1),
+            material(2L, "UCL", "Medicine", 2),
+            material(3L, "ucl", "Law", 2),
+            material(4L, "KCL", "Law", 1)));
+
+    @Test
+    void countsOtherFacetsUnderTheSelection() {
+        FacetIndex.Result result = index.count(Map.of(UNIVERSITY, Set.of("UCL")));
+
+        assertEquals(3, result.total());
+        // a facet's own selection does not narrow its counts
+        assertEquals(Map.of("UCL", 3, "KCL", 1), result.facets().get("university"));
+        assertEquals(Map.of("Law", 2, "Medicine", 1), result.facets().get("faculty"));
+        assertEquals(Map.of("1", 1, "2", 2), result.facets().get("studentYear"));
+    }
+
+    @Test
+    void combinesValuesWithOrAndFacetsWithAnd() {
+        Map<FacetIndex.Facet, Set<String>> selected = Map.of(
+                UNIVERSITY, Set.of("ucl", "kcl"),
+                FACULTY, Set.of("law"),
+                STUDENT_YEAR, Set.of("1"));
+
+        assertEquals(2, index.count(selected).total());
+        assertArrayEquals(new long[]{1, 4}, index.matchingIds(selected));
+        assertArrayEquals(new long[0], index.matchingIds(Map.of(FACULTY, Set.of("Unknown"))));
+        // values without matches are only listed when selected
+        assertEquals(Map.of("Law", 2), index.count(selected).facets().get("faculty"));
+        assertEquals(Map.of("Law", 2, "Medicine", 0),
+                index.count(Map.of(STUDENT_YEAR, Set.of("1"), FACULTY, Set.of("medicine"))).facets().get("faculty"));
+    }
+
+    @Test
+    void appliesChangesWithoutTouchingTheOriginal() {
+        FacetIndex updated = index.with(material(2L, "KCL", "Law", 3)).without(4L).with(material(5L, "LSE", "Economics", 1));
+
+        assertEquals(4, updated.size());
+        assertEquals(Map.of("UCL", 2, "KCL", 1, "LSE", 1), updated.count(Map.of()).facets().get("university"));
+        assertEquals(Map.of("Law", 3, "Economics", 1), updated.count(Map.of()).facets().get("faculty"));
+        assertArrayEquals(new long[]{1, 2, 3}, updated.matchingIds(Map.of(FACULTY, Set.of("Law"))));
+        assertArrayEquals(new long[]{1, 3, 4}, index.matchingIds(Map.of(FACULTY, Set.of("Law"))));
+    }
+
+    @Test
+    void appliesABatchLikeSingleChanges() {
+        Map<Long, Material> changes = new HashMap<>();
+        changes.put(2L, material(2L, "KCL", "Law", 3));
+        changes.put(4L, null);
+        changes.put(5L, material(5L, "LSE", "Economics", 1));
+        FacetIndex batched = index.with(changes);
+        FacetIndex single = index.with(material(2L, "KCL", "Law", 3)).without(4L).with(material(5L, "LSE", "Economics", 1));
+
+        assertEquals(single.count(Map.of()), batched.count(Map.of()));
+        assertArrayEquals(single.matchingIds(Map.of(FACULTY, Set.of("Law"))), batched.matchingIds(Map.of(FACULTY, Set.of("Law"))));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void updatesAndReusedSlotsDoNotGrowTheIndex() {
+        FacetIndex updated = index;
+        for (int i = 0; i < 1000; i++) {
+            updated = updated.with(material(1L, "UCL", "Law " + i, 1));
+        }
+        updated = updated.without(2L).with(material(6L, "LSE", "Law", 1));
+
+        assertEquals(4, updated.size());
+        assertEquals(4, updated.capacity());
+        assertEquals(Map.of("Law 999", 1, "Law", 3), updated.count(Map.of()).facets().get("faculty"));
+    }
+
+    private static Material material(Long id, String university, String faculty, int year) {
+        Material material = new Material();
+        material.setId(id);
+        material.setUniversity(university);
+        material.setFaculty(faculty);
+        material.setStudentYear(year);
+        material.setCourseModule("Module " + id);
+        material.setPrice(1.0);
+        return material;
+    }
+}
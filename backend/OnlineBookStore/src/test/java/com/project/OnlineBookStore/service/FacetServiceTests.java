@@ -0,0 +1,71 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.event.MaterialChangedEvent;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FacetServiceTests {
+
+    private final MaterialRepository materialRepository = mock(MaterialRepository.class);
+    private final List<Material> table = new ArrayList<>(List.of(material(1L), material(2L)));
+    private final FacetService facets = new FacetService(materialRepository, mock(PurchaseService.class),
+            mock(CatalogSnapshotService.class), mock(PlatformTransactionManager.class));
+
+    @Test
+    void changesAreAppliedByTheNextRead() {
+        when(materialRepository.findAll()).thenAnswer(invocation -> List.copyOf(table));
+        assertEquals(2, facets.counts(Map.of()).total());
+
+        created(3L);
+        created(4L);
+        facets.onMaterialChanged(new MaterialChangedEvent(1L, MaterialChangedEvent.ChangeType.DELETED, null));
+        created(1L); // the last change of a material wins
+
+        assertEquals(4, facets.counts(Map.of()).total());
+        verify(materialRepository, times(1)).findAll();
+    }
+
+    @Test
+    void largeBatchesReloadOnce() {
+        when(materialRepository.findAll()).thenAnswer(invocation -> List.copyOf(table));
+        assertEquals(2, facets.counts(Map.of()).total());
+
+        for (long id = 3; id < 5_003; id++) {
+            created(id);
+        }
+
+        assertEquals(5_002, facets.counts(Map.of()).total());
+        verify(materialRepository, times(2)).findAll();
+    }
+
+    // a committed insert: in the table, then announced
+    private void created(Long id) {
+        Material material = material(id);
+        table.removeIf(row -> row.getId().equals(id));
+        table.add(material);
+        facets.onMaterialChanged(new MaterialChangedEvent(id, MaterialChangedEvent.ChangeType.CREATED, material));
+    }
+
+    private static Material material(Long id) {
+        Material material = new Material();
+        material.setId(id);
+        material.setUniversity("University " + (id % 7));
+        material.setFaculty("Faculty " + (id % 3));
+        material.setStudentYear((int) (id % 4) + 1);
+        material.setCourseModule("Module " + id);
+        material.setPrice(1.0);
+        return material;
+    }
+}
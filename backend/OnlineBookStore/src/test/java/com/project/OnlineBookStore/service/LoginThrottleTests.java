@@ -0,0 +1,69 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.util.ClientAddressResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginThrottleTests {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    // account burst 2 and the given ip burst, no refill within the test
+    private LoginThrottle throttle(int ipBurst) {
+        return new LoginThrottle(new MetricsService(new SimpleMeterRegistry()),
+                new ClientAddressResolver(List.of("127.0.0.1")), 4096, 100_000, 2, 1, ipBurst, 1, clock::get, 1);
+    }
+
+    private static MockHttpServletRequest from(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    @Test
+    void forwardedClientsBehindTheProxyGetSeparateBuckets() {
+        LoginThrottle throttle = throttle(2);
+
+        throttle.acquire(from("127.0.0.1", "203.0.113.7"), null);
+        throttle.acquire(from("127.0.0.1", "203.0.113.7"), null);
+        assertThrows(LoginThrottle.Throttled.class, () -> throttle.acquire(from("127.0.0.1", "203.0.113.7"), null));
+
+        assertDoesNotThrow(() -> throttle.acquire(from("127.0.0.1", "198.51.100.23"), null));
+    }
+
+    @Test
+    void forwardedForFromAnUntrustedAddressIsIgnored() {
+        LoginThrottle throttle = throttle(2);
+
+        throttle.acquire(from("192.0.2.10", "203.0.113.1"), null);
+        throttle.acquire(from("192.0.2.10", "203.0.113.2"), null);
+
+        assertThrows(LoginThrottle.Throttled.class, () -> throttle.acquire(from("192.0.2.10", "203.0.113.3"), null));
+    }
+
+    @Test
+    void failuresOnOneAccountDoNotThrottleOthers() {
+        LoginThrottle throttle = throttle(10_000);
+
+        throttle.acquire(from("127.0.0.1", "203.0.113.7"), "victim@example.com");
+        throttle.acquire(from("127.0.0.1", "203.0.113.8"), "Victim@Example.com ");
+        assertThrows(LoginThrottle.Throttled.class,
+                () -> throttle.acquire(from("127.0.0.1", "203.0.113.9"), "victim@example.com"));
+
+        // every other account keeps its own attempts, whatever its hash
+        for (int i = 0; i < 1000; i++) {
+            String account = "user-" + i + "@example.com";
+            assertDoesNotThrow(() -> throttle.acquire(from("127.0.0.1", "203.0.113.10"), account), account);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaterialCountersTests {
+
+    @Test
+    void drainHandsOverPendingHitsOnce() {
+        MaterialCounters counters = new MaterialCounters();
+        counters.setPersisted(1L, 10, 100);
+        counters.recordDownload(1L);
+        counters.recordView(1L);
+        counters.recordView(2L);
+
+        Map<Long, MaterialCounters.Counts> drained = counters.drain();
+
+        assertEquals(new MaterialCounters.Counts(1, 1), drained.get(1L));
+        assertEquals(new MaterialCounters.Counts(0, 1), drained.get(2L));
+        assertEquals(new MaterialCounters.Counts(11, 101), counters.get(1L));
+        assertTrue(counters.drain().isEmpty());
+    }
+
+    @Test
+    void restoreKeepsHitsForTheNextDrain() {
+        MaterialCounters counters = new MaterialCounters();
+        counters.recordDownload(1L);
+        Map<Long, MaterialCounters.Counts> drained = counters.drain();
+        counters.recordDownload(1L);
+
+        counters.restore(drained);
+
+        assertEquals(new MaterialCounters.Counts(2, 0), counters.get(1L));
+        assertEquals(new MaterialCounters.Counts(2, 0), counters.drain().get(1L));
+    }
+
+    @Test
+    void concurrentHitsAreNeitherLostNorDoubled() {
+        MaterialCounters counters = new MaterialCounters();
+        long[] flushed = {0};
+        CompletableFuture<Void> hits = CompletableFuture.runAsync(() ->
+                IntStream.range(0, 100_000).parallel().forEach(i -> counters.recordDownload(1L)));
+        while (!hits.isDone()) {
+            counters.drain().values().forEach(delta -> flushed[0] += delta.downloads());
+        }
+        counters.drain().values().forEach(delta -> flushed[0] += delta.downloads());
+
+        assertEquals(100_000, flushed[0]);
+        assertEquals(100_000, counters.get(1L).downloads());
+    }
+}
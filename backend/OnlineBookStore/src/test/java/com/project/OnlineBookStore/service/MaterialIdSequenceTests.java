@@ -0,0 +1,72 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class MaterialIdSequenceTests {
+
+    @Autowired
+    private MaterialIdSequence materialIdSequence;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @AfterEach
+    void deleteCreated() {
+        created.forEach(id -> jdbcTemplate.update("DELETE FROM materials WHERE id = ?", id));
+    }
+
+    @Test
+    void reservedIdsNeverCollideWithGeneratedOnes() {
+        Set<Long> ids = new HashSet<>();
+        // each round runs Hibernate past the end of its current block, so it fetches
+        // the next one after the reservation moved the sequence
+        int[] reservations = {10, Material.ID_BLOCK_SIZE, Material.ID_BLOCK_SIZE + 1};
+        for (int count : reservations) {
+            for (int i = 0; i < Material.ID_BLOCK_SIZE - 5; i++) {
+                Long id = materialRepository.save(material("generated")).getId();
+                created.add(id);
+                assertTrue(ids.add(id), "generated id " + id + " was already used");
+            }
+            long first = materialIdSequence.reserve(count);
+            for (long id = first; id < first + count; id++) {
+                jdbcTemplate.update("INSERT INTO materials (id, title, price) VALUES (?, ?, ?)", id, "reserved", 1.0);
+                created.add(id);
+                assertTrue(ids.add(id), "reserved id " + id + " was already used");
+            }
+        }
+        for (int i = 0; i < Material.ID_BLOCK_SIZE; i++) {
+            Long id = materialRepository.save(material("generated")).getId();
+            created.add(id);
+            assertTrue(ids.add(id), "generated id " + id + " was already used");
+        }
+
+        assertEquals(created.size(), ids.size());
+    }
+
+    private static Material material(String title) {
+        Material material = new Material();
+        material.setTitle(title);
+        material.setPrice(1.0);
+        return material;
+    }
+}
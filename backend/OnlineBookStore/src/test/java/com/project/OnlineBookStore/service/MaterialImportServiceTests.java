@@ -0,0 +1,144 @@
+package com.project.OnlineBookStore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.OnlineBookStore.dto.MaterialImportResultDTO;
+import com.project.OnlineBookStore.dto.MaterialImportRowDTO;
+import com.project.OnlineBookStore.model.Material;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MaterialImportServiceTests {
+
+    private static final byte[] PDF = "%PDF-1.4\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path uploadDir;
+
+    private final MaterialService materialService = mock(MaterialService.class);
+    private final AtomicLong ids = new AtomicLong(100);
+    private MaterialImportService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void parsesQuotedCsv() throws IOException {
+        List<List<String>> records = MaterialImportService.parseCsv(new StringReader(
+                "\uFEFFfile,title\r\na.pdf,\"Notes, part \"\"one\"\"\"\n\nb.pdf,\"two\nlines\"\n"));
+
+        assertEquals(List.of(List.of("file", "title"), List.of("a.pdf", "Notes, part \"one\""),
+                List.of("b.pdf", "two\nlines")), records);
+        assertThrows(IllegalArgumentException.class, () -> MaterialImportService.parseCsv(new StringReader("a,\"b")));
+    }
+
+    @Test
+    void reportsEveryRowAndRetriesAFailedBatchRowByRow() throws IOException {
+        service = service(2);
+        // a batch containing "Rejected" fails, so does that row on its own
+        when(materialService.createAll(anyList())).thenAnswer(invocation -> {
+            List<Material> materials = invocation.getArgument(0);
+            if (materials.stream().anyMatch(m -> m.getTitle().equals("Rejected"))) {
+                materials.forEach(m -> m.setId(ids.incrementAndGet()));
+                throw new IllegalStateException("constraint violated");
+            }
+            materials.forEach(m -> m.setId(ids.incrementAndGet()));
+            return materials;
+        });
+        String manifest = """
+                file,title,university,student_year,course module,price
+                algebra.pdf,Linear Algebra,University of Colombo,1,MA101,250
+                docs/rejected.pdf,Rejected,,,,100
+                missing.pdf,Missing,,,,100
+                fake.pdf,Fake,,,,100
+                calculus.pdf,Calculus,,2,,not-a-price
+                physics.pdf,Physics,,,,300
+                """;
+
+        MaterialImportResultDTO result = service.importArchive(zip(
+                "manifest.csv", manifest.getBytes(StandardCharsets.UTF_8),
+                "algebra.pdf", PDF, "docs/rejected.pdf", PDF, "fake.pdf", "hello".getBytes(StandardCharsets.UTF_8),
+                "calculus.pdf", PDF, "physics.pdf", PDF), null);
+
+        assertEquals(6, result.getTotal());
+        assertEquals(2, result.getCreated());
+        assertEquals(4, result.getFailed());
+        List<MaterialImportRowDTO> rows = result.getRows();
+        assertNotNull(rows.get(0).getMaterialId());
+        assertNull(rows.get(0).getError());
+        assertEquals("Could not save row 2: constraint violated", rows.get(1).getError());
+        assertEquals("No file missing.pdf in the archive", rows.get(2).getError());
+        assertEquals("Not a PDF file: fake.pdf", rows.get(3).getError());
+        assertEquals("price is not a number: not-a-price", rows.get(4).getError());
+        assertNotNull(rows.get(5).getMaterialId());
+        // one failed batch of two, both rows again on their own, then the last batch
+        verify(materialService, times(4)).createAll(anyList());
+        try (Stream<Path> stored = Files.list(uploadDir)) {
+            assertEquals(2, stored.count()); // the rejected row's file is removed again
+        }
+    }
+
+    @Test
+    void readsSeparateJsonManifest() throws IOException {
+        service = service(50);
+        when(materialService.createAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        MockMultipartFile manifest = new MockMultipartFile("manifest", "materials.json", "application/json",
+                "[{\"file\": \"a.pdf\", \"title\": \"A\", \"studentYear\": 3, \"price\": 99.5}]".getBytes(StandardCharsets.UTF_8));
+
+        MaterialImportResultDTO result = service.importArchive(zip("a.pdf", PDF), manifest);
+
+        assertEquals(1, result.getCreated());
+        verify(materialService).createAll(argThat(materials -> {
+            Material material = materials.get(0);
+            return material.getStudentYear() == 3 && material.getPrice() == 99.5 && material.getFilename().endsWith("-a.pdf");
+        }));
+        assertThrows(IllegalArgumentException.class, () -> service.importArchive(zip("a.pdf", PDF), null));
+    }
+
+    private MaterialImportService service(int batchSize) {
+        FileStorageService storage = new FileStorageService(uploadDir.toString(), new MetricsService(new SimpleMeterRegistry()));
+        return new MaterialImportService(materialService, storage, new ObjectMapper(), 2, batchSize, 100, 1 << 20);
+    }
+
+    // name, content, name, content, ...
+    private static MockMultipartFile zip(Object... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) entries[i]));
+                zip.write((byte[]) entries[i + 1]);
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("archive", "materials.zip", "application/zip", bytes.toByteArray());
+    }
+}
@@ -0,0 +1,51 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MaterialServiceTests {
+
+    @TempDir
+    Path uploadDir;
+
+    private final MaterialRepository materialRepository = mock(MaterialRepository.class);
+
+    @Test
+    void keepsAFileOtherMaterialsStillUse() throws Exception {
+        FileStorageService storage = new FileStorageService(uploadDir.toString(), new MetricsService(new SimpleMeterRegistry()));
+        String shared = storage.store("seed-placeholder.pdf", new ByteArrayInputStream("%PDF-1.4".getBytes(StandardCharsets.US_ASCII)));
+        MaterialService service = new MaterialService(materialRepository, storage, new CatalogVersionService(),
+                event -> { }, mock(EntityManager.class));
+        when(materialRepository.findById(1L)).thenReturn(Optional.of(material(1L, shared)));
+        when(materialRepository.findById(2L)).thenReturn(Optional.of(material(2L, shared)));
+        when(materialRepository.existsByFilenameAndIdNot(shared, 1L)).thenReturn(true);
+
+        service.delete(1L);
+        assertTrue(Files.exists(storage.load(shared)));
+
+        service.delete(2L);
+        assertFalse(Files.exists(storage.load(shared)));
+    }
+
+    private static Material material(Long id, String filename) {
+        Material material = new Material();
+        material.setId(id);
+        material.setFilename(filename);
+        return material;
+    }
+}
@@ -0,0 +1,169 @@
+package com.project.OnlineBookStore.service;
+
+import com.project.OnlineBookStore.event.PurchaseStatusChangedEvent;
+import com.project.OnlineBookStore.model.Material;
+import com.project.OnlineBookStore.model.Purchase;
+import com.project.OnlineBookStore.model.PurchaseStatus;
+import com.project.OnlineBookStore.model.User;
+import com.project.OnlineBookStore.repository.MaterialRepository;
+import com.project.OnlineBookStore.repository.PurchaseRepository;
+import com.project.OnlineBookStore.repository.UserRepository;
+import com.stripe.model.PaymentIntent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PurchaseServiceTests {
+
+    private static final String INTENT = "pi_1";
+
+    private final PurchaseRepository purchaseRepository = mock(PurchaseRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final StripeService stripeService = mock(StripeService.class);
+    private final List<PurchaseStatus> published = new ArrayList<>();
+    private final PurchaseService service = new PurchaseService(purchaseRepository, mock(MaterialRepository.class),
+            userRepository, stripeService, new MetricsService(new SimpleMeterRegistry()), new CatalogVersionService(),
+            event -> published.add(((PurchaseStatusChangedEvent) event).status()),
+            mock(PlatformTransactionManager.class), 3);
+
+    // the stored row; reads hand out copies, writes are checked against its version like Hibernate does
+    private final Purchase row = purchase(PurchaseStatus.NEW, 0L);
+    private Runnable concurrentWrite = () -> { };
+
+    @BeforeEach
+    void setUp() {
+        when(purchaseRepository.findByStripePaymentIntentId(INTENT))
+                .thenAnswer(invocation -> Optional.of(purchase(row.getStatus(), row.getVersion())));
+        when(purchaseRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            Purchase purchase = invocation.getArgument(0);
+            concurrentWrite.run();
+            concurrentWrite = () -> { };
+            if (!purchase.getVersion().equals(row.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Purchase.class, purchase.getId());
+            }
+            row.setStatus(purchase.getStatus());
+            row.setVersion(row.getVersion() + 1);
+            return purchase(row.getStatus(), row.getVersion());
+        });
+    }
+
+    @Test
+    void completesThroughProcessing() throws Exception {
+        when(stripeService.retrievePaymentIntent(INTENT)).thenReturn(intent("succeeded"));
+
+        assertEquals(PurchaseStatus.DONE, service.completePurchase(INTENT).getStatus());
+        assertEquals(List.of(PurchaseStatus.PROC, PurchaseStatus.DONE), published);
+        assertEquals(2L, row.getVersion());
+        // confirming again is a no-op
+        assertEquals(PurchaseStatus.DONE, service.completePurchase(INTENT).getStatus());
+        assertEquals(2L, row.getVersion());
+    }
+
+    @Test
+    void confirmationThatLosesTheRaceSeesTheWinnersResult() throws Exception {
+        concurrentWrite = () -> {
+            row.setStatus(PurchaseStatus.DONE);
+            row.setVersion(2L);
+        };
+
+        assertEquals(PurchaseStatus.DONE, service.completePurchase(INTENT).getStatus());
+        verify(stripeService, never()).retrievePaymentIntent(any());
+        assertEquals(List.of(), published);
+    }
+
+    @Test
+    void conflictingWriteIsRetriedOnFreshState() throws Exception {
+        when(stripeService.retrievePaymentIntent(INTENT)).thenAnswer(invocation -> {
+            concurrentWrite = () -> row.setVersion(row.getVersion() + 1); // e.g. another confirmation's claim
+            return intent("succeeded");
+        });
+
+        assertEquals(PurchaseStatus.DONE, service.completePurchase(INTENT).getStatus());
+        assertEquals(PurchaseStatus.DONE, row.getStatus());
+        assertEquals(3L, row.getVersion());
+    }
+
+    @Test
+    void failedPaymentIsRecordedAndCanBeRetried() throws Exception {
+        when(stripeService.retrievePaymentIntent(INTENT)).thenReturn(intent("requires_payment_method"), intent("succeeded"));
+
+        assertThrows(RuntimeException.class, () -> service.completePurchase(INTENT));
+        assertEquals(PurchaseStatus.FAIL, row.getStatus());
+        assertEquals(PurchaseStatus.DONE, service.completePurchase(INTENT).getStatus());
+    }
+
+    @Test
+    void rejectsTransitionsOutsideTheTable() {
+        row.setStatus(PurchaseStatus.REF);
+
+        assertThrows(IllegalStateException.class, () -> service.completePurchase(INTENT));
+        assertTrue(PurchaseStatus.DONE.canTransitionTo(PurchaseStatus.REF));
+        assertFalse(PurchaseStatus.NEW.canTransitionTo(PurchaseStatus.DONE));
+        assertFalse(PurchaseStatus.REF.canTransitionTo(PurchaseStatus.DONE));
+    }
+
+    @Test
+    void onlyCompletedPurchasesGrantAccess() throws Exception {
+        User user = purchase(PurchaseStatus.NEW, 0L).getUser();
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(purchaseRepository.existsByUserAndMaterialIdAndStatus(eq(user), eq(11L), any()))
+                .thenAnswer(invocation -> row.getStatus() == invocation.getArgument(2));
+        when(stripeService.retrievePaymentIntent(INTENT)).thenReturn(intent("requires_payment_method"), intent("succeeded"));
+
+        assertFalse(service.hasUserPurchased(7L, 11L));
+        assertThrows(RuntimeException.class, () -> service.completePurchase(INTENT));
+        assertEquals(PurchaseStatus.FAIL, row.getStatus());
+        assertFalse(service.hasUserPurchased(7L, 11L));
+        service.completePurchase(INTENT);
+        assertTrue(service.hasUserPurchased(7L, 11L));
+    }
+
+    @Test
+    void givesUpAfterRepeatedConflicts() {
+        doThrow(new ObjectOptimisticLockingFailureException(Purchase.class, 1L))
+                .when(purchaseRepository).saveAndFlush(any());
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.completePurchase(INTENT));
+        assertTrue(e.getMessage().contains("changed concurrently"), e.getMessage());
+    }
+
+    private static Purchase purchase(PurchaseStatus status, Long version) {
+        User user = new User();
+        user.setId(7L);
+        Material material = new Material();
+        material.setId(11L);
+        Purchase purchase = new Purchase();
+        purchase.setId(1L);
+        purchase.setUser(user);
+        purchase.setMaterial(material);
+        purchase.setStripePaymentIntentId(INTENT);
+        purchase.setStatus(status);
+        purchase.setVersion(version);
+        return purchase;
+    }
+
+    private static PaymentIntent intent(String status) {
+        PaymentIntent intent = new PaymentIntent();
+        intent.setId(INTENT);
+        intent.setStatus(status);
+        return intent;
+    }
+}
@@ -0,0 +1,60 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedTokenBucketsTests {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    void allowsABurstThenRefillsAtTheRate() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(64, 3, 6, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("alice@example.com"));
+        }
+        long wait = buckets.tryAcquire("alice@example.com");
+        assertEquals(TimeUnit.SECONDS.toNanos(10), wait, TimeUnit.MILLISECONDS.toNanos(1));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(buckets.tryAcquire("alice@example.com") > 0);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, buckets.tryAcquire("alice@example.com"));
+        assertTrue(buckets.tryAcquire("alice@example.com") > 0);
+    }
+
+    @Test
+    void releaseGivesBackATokenUpToTheBurst() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(64, 2, 1, clock::get);
+
+        buckets.release("bob@example.com");
+        assertEquals(0, buckets.tryAcquire("bob@example.com"));
+        assertEquals(0, buckets.tryAcquire("bob@example.com"));
+        assertTrue(buckets.tryAcquire("bob@example.com") > 0);
+
+        buckets.release("bob@example.com");
+        assertEquals(0, buckets.tryAcquire("bob@example.com"));
+    }
+
+    @Test
+    void keysOnOtherStripesAreNotAffected() {
+        // with seed 1 none of these 101 keys share a stripe; a fixed seed keeps that true on every run
+        StripedTokenBuckets buckets = new StripedTokenBuckets(4096, 1, 1, clock::get, 1);
+
+        assertEquals(0, buckets.tryAcquire("10.0.0.1"));
+        assertTrue(buckets.tryAcquire("10.0.0.1") > 0);
+        int allowed = 0;
+        for (int i = 2; i < 102; i++) {
+            if (buckets.tryAcquire("10.0.0." + i) == 0) {
+                allowed++;
+            }
+        }
+        assertEquals(100, allowed);
+    }
+}
@@ -0,0 +1,85 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SuggestionTrieTests {
+
+    @Test
+    void completesPrefixesRankedByCount() {
+        SuggestionTrie trie = new SuggestionTrie(10)
+                .with("data structures", suggestion("Data Structures", 3))
+                .with("structures", suggestion("Data Structures", 3))
+                .with("databases", suggestion("Databases", 5))
+                .with("data mining", suggestion("Data Mining", 3));
+
+        assertEquals(List.of(suggestion("Databases", 5), suggestion("Data Mining", 3), suggestion("Data Structures", 3)),
+                trie.complete("dat", 10));
+        assertEquals(List.of(suggestion("Data Mining", 3), suggestion("Data Structures", 3)), trie.complete("data ", 10));
+        assertEquals(List.of(suggestion("Data Structures", 3)), trie.complete("struct", 10));
+        assertEquals(List.of(suggestion("Databases", 5)), trie.complete("d", 1));
+        assertEquals(List.of(), trie.complete("datx", 10));
+        assertEquals(List.of(), trie.complete("data structures ii", 10));
+    }
+
+    @Test
+    void removingAndReplacingKeepsOlderTriesIntact() {
+        SuggestionTrie before = new SuggestionTrie(10)
+                .with("algebra", suggestion("Algebra", 1))
+                .with("algorithms", suggestion("Algorithms", 2));
+
+        SuggestionTrie after = before.without("algorithms", "Algorithms", "title")
+                .with("algebra", suggestion("Algebra", 4))
+                .without("alchemy", "Alchemy", "title");
+
+        assertEquals(List.of(suggestion("Algebra", 4)), after.complete("al", 10));
+        assertEquals(List.of(suggestion("Algorithms", 2), suggestion("Algebra", 1)), before.complete("alg", 10));
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomChanges() {
+        SplittableRandom random = new SplittableRandom(11);
+        Map<String, Integer> expected = new HashMap<>();
+        SuggestionTrie trie = new SuggestionTrie(5);
+        for (int i = 0; i < 5000; i++) {
+            String key = randomKey(random);
+            if (random.nextInt(4) == 0) {
+                expected.remove(key);
+                trie = trie.without(key, key, "title");
+            } else {
+                int count = random.nextInt(1, 20);
+                expected.put(key, count);
+                trie = trie.with(key, new SuggestionTrie.Suggestion(key, "title", count));
+            }
+        }
+        for (int i = 0; i < 500; i++) {
+            String prefix = randomKey(random).substring(0, 1 + random.nextInt(3));
+            List<SuggestionTrie.Suggestion> bruteForce = expected.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .map(entry -> new SuggestionTrie.Suggestion(entry.getKey(), "title", entry.getValue()))
+                    .sorted(SuggestionTrie.RANKING)
+                    .limit(5)
+                    .toList();
+            assertEquals(bruteForce, trie.complete(prefix, 5), prefix);
+        }
+    }
+
+    private static SuggestionTrie.Suggestion suggestion(String text, int count) {
+        return new SuggestionTrie.Suggestion(text, "title", count);
+    }
+
+    private static String randomKey(SplittableRandom random) {
+        StringBuilder key = new StringBuilder();
+        int length = random.nextInt(3, 8);
+        for (int i = 0; i < length; i++) {
+            key.append((char) ('a' + random.nextInt(4)));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.project.OnlineBookStore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendingScoresTests {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final MutableClock clock = new MutableClock(START);
+    private final TrendingScores scores = new TrendingScores(Duration.ofHours(24), clock);
+
+    @Test
+    void scoresHalveEveryHalfLife() {
+        scores.add(1, 8, START);
+        assertEquals(8, scores.score(1), 1e-9);
+
+        clock.now = START.plus(Duration.ofHours(48));
+
+        assertEquals(2, scores.score(1), 1e-9);
+    }
+
+    @Test
+    void pastEventsCountAsAlreadyDecayed() {
+        clock.now = START.plus(Duration.ofDays(3));
+        scores.add(1, 4, START.plus(Duration.ofDays(2)));
+        scores.add(2, 4, clock.now);
+
+        assertEquals(2, scores.score(1), 1e-9);
+        assertEquals(4, scores.score(2), 1e-9);
+    }
+
+    @Test
+    void renormalizingKeepsScores() {
+        scores.add(1, 1, START);
+        scores.add(2, 3, START.plus(Duration.ofDays(40)));
+        clock.now = START.plus(Duration.ofDays(41));
+
+        Map<Long, Double> current = scores.scores();
+        scores.add(2, 1, clock.now);
+
+        assertEquals(Math.pow(2, -41), current.get(1L), 1e-15);
+        assertEquals(1.5, current.get(2L), 1e-9);
+        assertEquals(2.5, scores.score(2), 1e-9);
+        assertTrue(scores.score(1) < scores.score(2));
+    }
+
+    private static final class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.project.OnlineBookStore.support;
+
+import com.project.OnlineBookStore.config.SqlBudgetFilter;
+import com.project.OnlineBookStore.config.SqlBudgetProperties;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers that fail an integration test when an endpoint runs more
+ * SQL statements than allowed, based on the Server-Timing header written by
+ * SqlBudgetFilter.
+ *
+ * mockMvc.perform(get("/api/user/materials")).andExpect(queriesAtMost(3));
+ * mockMvc.perform(get("/api/purchases")).andExpect(withinConfiguredBudget(properties));
+ */
+public final class SqlBudgetAssertions {
+
+    private static final Pattern DB_QUERIES = Pattern.compile("db;dur=[0-9.]+;desc=\"(\\d+) queries\"");
+
+    private SqlBudgetAssertions() {
+    }
+
+    public static ResultMatcher queriesAtMost(int budget) {
+        return result -> assertBudget(result, budget);
+    }
+
+    public static ResultMatcher withinConfiguredBudget(SqlBudgetProperties properties) {
+        return result -> {
+            Object pattern = result.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            assertBudget(result, properties.budgetFor(pattern != null ? pattern.toString() : null));
+        };
+    }
+
+    public static int queryCount(MvcResult result) {
+        String header = result.getResponse().getHeader(SqlBudgetFilter.SERVER_TIMING);
+        assertNotNull(header, "No " + SqlBudgetFilter.SERVER_TIMING + " header; is SqlBudgetFilter registered with MockMvc?");
+        Matcher matcher = DB_QUERIES.matcher(header);
+        assertTrue(matcher.find(), "Unexpected " + SqlBudgetFilter.SERVER_TIMING + " header: " + header);
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static void assertBudget(MvcResult result, int budget) {
+        int queries = queryCount(result);
+        assertTrue(queries <= budget, () -> result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                + " ran " + queries + " SQL statements, budget is " + budget);
+    }
+}
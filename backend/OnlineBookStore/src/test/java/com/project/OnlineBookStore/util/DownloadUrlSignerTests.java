@@ -0,0 +1,63 @@
+package com.project.OnlineBookStore.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadUrlSignerTests {
+
+    private static final String FILENAME = "3f2c-notes & summary.pdf";
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+    private final DownloadUrlSigner signer = new DownloadUrlSigner("test-secret", 300, clock);
+
+    @Test
+    void signedUrlVerifies() {
+        UriComponents url = UriComponentsBuilder.fromUriString(signer.sign(7L, 42L, FILENAME)).build();
+
+        assertEquals("/api/files/7", url.getPath());
+        assertEquals(FILENAME, decode(url.getQueryParams().getFirst("f")));
+        long expiresAt = Long.parseLong(url.getQueryParams().getFirst("e"));
+        String signature = url.getQueryParams().getFirst("s");
+        assertTrue(signer.isValid(7L, 42L, FILENAME, expiresAt, signature));
+        assertFalse(signer.isExpired(expiresAt));
+    }
+
+    @Test
+    void tamperedFieldsAreRejected() {
+        UriComponents url = UriComponentsBuilder.fromUriString(signer.sign(7L, 42L, FILENAME)).build();
+        long expiresAt = Long.parseLong(url.getQueryParams().getFirst("e"));
+        String signature = url.getQueryParams().getFirst("s");
+
+        assertFalse(signer.isValid(8L, 42L, FILENAME, expiresAt, signature));
+        assertFalse(signer.isValid(7L, 43L, FILENAME, expiresAt, signature));
+        assertFalse(signer.isValid(7L, 42L, "other.pdf", expiresAt, signature));
+        assertFalse(signer.isValid(7L, 42L, FILENAME, expiresAt + 3600, signature));
+        assertFalse(new DownloadUrlSigner("other-secret", 300, clock).isValid(7L, 42L, FILENAME, expiresAt, signature));
+    }
+
+    @Test
+    void urlExpiresAfterTtl() {
+        long expiresAt = clock.instant().getEpochSecond() + 300;
+        DownloadUrlSigner later = new DownloadUrlSigner("test-secret", 300,
+                Clock.offset(clock, Duration.ofSeconds(301)));
+
+        assertTrue(later.isExpired(expiresAt));
+        assertEquals(0, later.secondsUntil(expiresAt));
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}